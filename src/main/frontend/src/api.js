@@ -3,6 +3,21 @@
 // Use an environment variable for the base URL. Default to "" for relative paths.
 const BASE_URL = process.env.REACT_APP_BACKEND_URL || "";
 
+// Retry-After of a response (seconds or an HTTP date) in milliseconds, or undefined if absent or invalid
+const retryAfterMillis = (response) => {
+    const value = response.headers.get("Retry-After");
+    if (!value) return undefined;
+    const seconds = Number(value);
+    const millis = Number.isFinite(seconds) ? seconds * 1000 : Date.parse(value) - Date.now();
+    return Number.isFinite(millis) ? Math.max(0, millis) : undefined;
+};
+
+// 2s, 4s, 8s, ... up to a minute after consecutive failures, with jitter so clients do not retry in step
+const backoffMillis = (failures) => {
+    const base = Math.min(60000, 2000 * 2 ** Math.min(failures - 1, 5));
+    return base / 2 + Math.random() * base / 2;
+};
+
 /**
  * Creates an API client instance.
  * @param {string} token - The Keycloak auth token.
@@ -99,6 +114,9 @@ export const apiFactory = (token, login) => {
         getTasks: function() {
             return fetchWithAuth("/api/tasks");
         },
+        getTaskSummaries: function() {
+            return fetchWithAuth("/api/tasks/summaries");
+        },
         getTaskById: function(taskId) {
             return fetchWithAuth(`/api/tasks/${taskId}`);
         },
@@ -167,27 +185,98 @@ export const apiFactory = (token, login) => {
         // === Solution API (SolutionController.java) ===
 
         submitSolution: function(userId, taskId, file) {
+            // userId and taskId go in the query so the rate limit is checked before the upload is read
             const formData = new FormData();
-            formData.append("userId", userId);
-            formData.append("taskId", taskId);
             formData.append("file", file);
 
-            return fetchWithAuthFormData("/api/solutions/submit", {
+            const query = new URLSearchParams({ userId, taskId });
+            return fetchWithAuthFormData(`/api/solutions/submit?${query}`, {
                 method: "POST",
                 body: formData
             });
         },
-        getAllSolutions: function() {
-            return fetchWithAuth("/api/solutions");
+        // params: taskId, userId, minScore, maxScore, after, limit, order, includeFile;
+        // resolves to { items, nextCursor }, pass nextCursor as "after" for the next page
+        getAllSolutions: function(params = {}) {
+            const query = new URLSearchParams(
+                Object.entries(params).filter(([, value]) => value !== undefined && value !== null)
+            );
+            return fetchWithAuth(`/api/solutions?${query}`);
         },
         getLeaderboardForTask: function(taskId) {
             return fetchWithAuth(`/api/leaderboard/${taskId}`);
         },
-        getSolutionsForUser: function(userId) {
-            return fetchWithAuth(`/api/solutions/user/${userId}`);
-        },
-        getSolutionsForTask: function(taskId) {
-            return fetchWithAuth(`/api/solutions/task/${taskId}`);
+        // live leaderboard: onSnapshot(entries) with the whole board, then onDelta(entries) with changed entries;
+        // read with fetch instead of EventSource so the token can be sent. Reconnects until the returned function is called,
+        // after Retry-After if the server sends one and otherwise backing off exponentially while connecting fails.
+        subscribeToLeaderboard: function(taskId, { onSnapshot, onDelta, onError }) {
+            const controller = new AbortController();
+            let failures = 0;
+            const handle = (frame) => {
+                let event = "message";
+                const data = [];
+                frame.split("\n").forEach(line => {
+                    if (line.startsWith("event:")) event = line.slice(6).trim();
+                    else if (line.startsWith("data:")) data.push(line.slice(5).replace(/^ /, ""));
+                });
+                if (data.length === 0) return;
+                const entries = JSON.parse(data.join("\n"));
+                if (event === "snapshot") onSnapshot(entries);
+                else if (event === "delta") onDelta(entries);
+            };
+            const connect = async () => {
+                while (!controller.signal.aborted) {
+                    let delay = 2000;
+                    try {
+                        const response = await fetch(BASE_URL + `/api/leaderboard/${taskId}/stream`, {
+                            headers: { "Authorization": `Bearer ${token}`, "Accept": "text/event-stream" },
+                            signal: controller.signal
+                        });
+                        if (response.status === 401) {
+                            login();
+                            return;
+                        }
+                        if (!response.ok) {
+                            failures++;
+                            delay = retryAfterMillis(response) ?? backoffMillis(failures);
+                            throw new Error(response.statusText);
+                        }
+                        // the server ends streams after a while; reconnect and start over with a snapshot
+                        failures = 0;
+                        const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+                        let buffer = "";
+                        for (;;) {
+                            const { value, done } = await reader.read();
+                            if (done) break;
+                            buffer += value.replace(/\r\n?/g, "\n");
+                            let end;
+                            while ((end = buffer.indexOf("\n\n")) >= 0) {
+                                handle(buffer.slice(0, end));
+                                buffer = buffer.slice(end + 2);
+                            }
+                        }
+                    } catch (error) {
+                        if (controller.signal.aborted) return;
+                        if (error.name === "TypeError") {
+                            // network error, no response
+                            failures++;
+                            delay = backoffMillis(failures);
+                        }
+                        if (onError) onError(error);
+                    }
+                    await new Promise(resolve => setTimeout(resolve, delay));
+                }
+            };
+            connect();
+            return () => controller.abort();
+        },
+        getSolutionsForUser: function(userId, after) {
+            const query = after ? `?after=${encodeURIComponent(after)}` : "";
+            return fetchWithAuth(`/api/solutions/user/${userId}${query}`);
+        },
+        getSolutionsForTask: function(taskId, after) {
+            const query = after ? `?after=${encodeURIComponent(after)}` : "";
+            return fetchWithAuth(`/api/solutions/task/${taskId}${query}`);
         },
         deleteSolution: function(solutionId) {
             return fetchWithAuth(`/api/solutions/${solutionId}`, {
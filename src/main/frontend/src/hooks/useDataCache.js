@@ -14,7 +14,8 @@ export const useDataCache = (api) => {
             setUsers(new Map(usersData.map(u => [u.id, u.username])));
         } catch (e) { console.error("Failed to fetch users", e); }
         try {
-            const tasksData = await api.getTasks();
+            // summaries only: id, name, description and file metadata, no file contents
+            const tasksData = await api.getTaskSummaries();
             // --- FIX: Store the *entire task object*, not just the name ---
             setTasks(new Map(tasksData.map(t => [t.id, t])));
         } catch (e) { console.error("Failed to fetch tasks", e); }
@@ -109,7 +109,9 @@ const ReviewModal = ({ submission, onClose, cache, api, onSuccess }) => {
 
 export const JudgePage = ({ api, cache }) => {
     const [submissions, setSubmissions] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
     const [loading, setLoading] = useState(true);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [selectedSubmission, setSelectedSubmission] = useState(null);
 
     // --- Refactored loadSubmissions ---
@@ -117,11 +119,10 @@ export const JudgePage = ({ api, cache }) => {
         if (!api) return;
         setLoading(true);
         try {
-            // Uses new API path
-            const data = await api.getAllSolutions();
-            // Sort by most recent first
-            data.sort((a, b) => new Date(b.submissionTimestamp) - new Date(a.submissionTimestamp));
-            setSubmissions(data);
+            // Pages come sorted by most recent first; the review modal needs the file metadata
+            const page = await api.getAllSolutions({ includeFile: true });
+            setSubmissions(page.items);
+            setNextCursor(page.nextCursor);
         } catch (error) {
             console.error("Failed to load submissions:", error);
         } finally {
@@ -129,6 +130,20 @@ export const JudgePage = ({ api, cache }) => {
         }
     }, [api]); // Dependency array includes api
 
+    const loadMoreSubmissions = async () => {
+        if (!nextCursor) return;
+        setLoadingMore(true);
+        try {
+            const page = await api.getAllSolutions({ includeFile: true, after: nextCursor });
+            setSubmissions(prev => [...prev, ...page.items]);
+            setNextCursor(page.nextCursor);
+        } catch (error) {
+            console.error("Failed to load more submissions:", error);
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
     useEffect(() => {
         loadSubmissions();
     }, [loadSubmissions]); // useEffect now depends on the stable loadSubmissions function
@@ -174,6 +189,15 @@ export const JudgePage = ({ api, cache }) => {
                                 </div>
                             </div>
                         ))}
+                        {nextCursor && (
+                            <button
+                                onClick={loadMoreSubmissions}
+                                disabled={loadingMore}
+                                className="w-full py-3 bg-gray-200 rounded-lg hover:bg-gray-300 font-medium text-gray-900 disabled:bg-gray-100"
+                            >
+                                {loadingMore ? "Loading..." : "Load more"}
+                            </button>
+                        )}
                     </div>
                 )
             )}
@@ -5,6 +5,12 @@ import { LoadingSpinner } from "../components/LoadingSpinner";
 import { EmptyState } from "../components/EmptyState";
 import { Trophy, Award, BarChart3 } from 'lucide-react';
 
+// best score first, ties to the earlier submission, as the server orders them
+const compareEntries = (a, b) =>
+    b.bestScore - a.bestScore
+    || new Date(a.bestScoreTimestamp) - new Date(b.bestScoreTimestamp)
+    || (a.userId < b.userId ? -1 : a.userId > b.userId ? 1 : 0);
+
 export const LeaderboardPage = ({ api, cache }) => {
     const { user } = useAuth(); // <-- Get user
     const { selectedHackathon } = useHackathon();
@@ -42,26 +48,34 @@ export const LeaderboardPage = ({ api, cache }) => {
         }
     }, [api, cache, selectedHackathon, user.role]);
 
-    // Fetch leaderboard when selectedTask changes
+    // Follow the leaderboard of the selected task live: a snapshot first, then changed entries
     useEffect(() => {
         if (!selectedTask || !api) {
             setLoading(false);
             return;
         }
 
-        const loadLeaderboard = async () => {
-            setLoading(true);
-            try {
-                const data = await api.getLeaderboardForTask(selectedTask);
-                setLeaderboard(data);
-            } catch (error) {
-                console.error('Failed to load leaderboard:', error);
-                alert('Failed to load leaderboard: ' + error.message);
-            } finally {
+        setLoading(true);
+        const unsubscribe = api.subscribeToLeaderboard(selectedTask, {
+            onSnapshot: (entries) => {
+                setLeaderboard(entries);
+                setLoading(false);
+            },
+            onDelta: (entries) => {
+                setLeaderboard(current => {
+                    const changed = new Set(entries.map(entry => entry.userId));
+                    return current
+                        .filter(entry => !changed.has(entry.userId))
+                        .concat(entries)
+                        .sort(compareEntries);
+                });
+            },
+            onError: (error) => {
+                console.error('Leaderboard stream interrupted:', error);
                 setLoading(false);
             }
-        };
-        loadLeaderboard();
+        });
+        return unsubscribe;
     }, [selectedTask, api]);
 
     const formatTimestamp = (isoString) => {
@@ -0,0 +1,30 @@
+package com.hackathon.main.configurtion;
+
+import com.hackathon.main.scoring.ErrorKernels;
+import com.hackathon.main.scoring.ParallelScorer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+@Slf4j
+public class ScoringConfig {
+
+    public ScoringConfig(@Value("${hackathon.scoring.kernels:auto}") String mode) {
+        ErrorKernels.select(ErrorKernels.Mode.valueOf(mode.toUpperCase()));
+        log.info("Scoring error kernels: {} (requested: {})", ErrorKernels.isVectorized() ? "vector" : "scalar", mode);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool scoringForkJoinPool(@Value("${hackathon.scoring.parallel.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @Bean
+    public ParallelScorer parallelScorer(ForkJoinPool scoringForkJoinPool) {
+        return new ParallelScorer(scoringForkJoinPool);
+    }
+}
@@ -52,7 +52,10 @@ public class SecurityConfig {
         // Allow requests from your Nginx frontend
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:3000"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type",
+                "Range", "If-Range", "If-None-Match"));
+        // let file downloads be resumed and revalidated from the frontend
+        configuration.setExposedHeaders(Arrays.asList("ETag", "Accept-Ranges", "Content-Range", "Retry-After"));
         configuration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
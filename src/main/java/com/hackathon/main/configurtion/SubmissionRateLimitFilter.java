@@ -0,0 +1,74 @@
+package com.hackathon.main.configurtion;
+
+import com.hackathon.main.service.SubmissionRateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Duration;
+
+/**
+ * Rejects solution submissions over the {@link SubmissionRateLimiter} limits with
+ * {@code 429 Too Many Requests} and a {@code Retry-After} header.
+ * <p>
+ * It runs after the security filter chain but before the dispatcher servlet parses the multipart
+ * body, so it only looks at what is known without reading the body: the authenticated user and
+ * the {@code taskId} query parameter. Submissions that send {@code taskId} in the form body
+ * instead would escape the task's limits, so they are rejected with {@code 400 Bad Request}.
+ */
+@Component
+@RequiredArgsConstructor
+public class SubmissionRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String SUBMIT_PATH = "/api/solutions/submit";
+
+    private final SubmissionRateLimiter submissionRateLimiter;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !SUBMIT_PATH.equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        MultiValueMap<String, String> query = UriComponentsBuilder.newInstance()
+                .query(request.getQueryString())
+                .build()
+                .getQueryParams();
+        Principal principal = request.getUserPrincipal();
+        String user = principal != null ? principal.getName() : queryParam(query, "userId");
+        if (user == null) {
+            user = request.getRemoteAddr();
+        }
+
+        String taskId = queryParam(query, "taskId");
+        if (taskId == null) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+
+        Duration wait = submissionRateLimiter.tryAcquire(user, taskId);
+        if (!wait.isZero()) {
+            TooManyRequests.send(response, wait);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static String queryParam(MultiValueMap<String, String> query, String name) {
+        String value = query.getFirst(name);
+        return value == null || value.isEmpty() ? null : UriUtils.decode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,44 @@
+package com.hackathon.main.configurtion;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+
+/**
+ * {@code 429 Too Many Requests} answers to submissions rejected by the
+ * {@link com.hackathon.main.service.SubmissionRateLimiter}, with a {@code Retry-After} header of
+ * the wait rounded up to whole seconds, at least one.
+ */
+public final class TooManyRequests {
+
+    private TooManyRequests() {
+    }
+
+    /**
+     * @param wait how long the client has to wait before retrying
+     * @return the answer for a controller
+     */
+    public static <T> ResponseEntity<T> response(Duration wait) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, retryAfter(wait))
+                .build();
+    }
+
+    /**
+     * Sets the status and header of a response that is not passed on, e.g. in a filter.
+     *
+     * @param response the response
+     * @param wait     how long the client has to wait before retrying
+     */
+    public static void send(HttpServletResponse response, Duration wait) {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter(wait));
+    }
+
+    private static String retryAfter(Duration wait) {
+        return Long.toString(Math.max(1, (wait.toMillis() + 999) / 1000));
+    }
+}
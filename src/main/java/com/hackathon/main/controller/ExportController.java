@@ -0,0 +1,62 @@
+package com.hackathon.main.controller;
+
+import com.hackathon.main.dto.ExportFormat;
+import com.hackathon.main.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// rows are streamed in _id order; to resume an interrupted export pass the id of the last complete row as "after"
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final ExportService exportService;
+
+    @GetMapping("/solutions")
+    public ResponseEntity<StreamingResponseBody> exportSolutions(
+            @RequestParam(value = "format", defaultValue = "ndjson") ExportFormat format,
+            @RequestParam(value = "taskId", required = false) String taskId,
+            @RequestParam(value = "userId", required = false) String userId,
+            @RequestParam(value = "after", required = false) String after) {
+        return stream("solutions", format, after, out -> exportService.exportSolutions(taskId, userId, after, format, out));
+    }
+
+    @GetMapping("/leaderboards")
+    public ResponseEntity<StreamingResponseBody> exportLeaderboards(
+            @RequestParam(value = "format", defaultValue = "ndjson") ExportFormat format,
+            @RequestParam(value = "taskId", required = false) String taskId,
+            @RequestParam(value = "after", required = false) String after) {
+        return stream("leaderboards", format, after, out -> exportService.exportLeaderboard(taskId, after, format, out));
+    }
+
+    @GetMapping("/users")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(value = "format", defaultValue = "ndjson") ExportFormat format,
+            @RequestParam(value = "after", required = false) String after) {
+        return stream("users", format, after, out -> exportService.exportUsers(after, format, out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(String name, ExportFormat format, String after, StreamingResponseBody body) {
+        try {
+            exportService.validateAfter(after);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + format.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
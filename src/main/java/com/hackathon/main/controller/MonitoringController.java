@@ -0,0 +1,54 @@
+package com.hackathon.main.controller;
+
+import com.hackathon.main.dto.GroundTruthCacheStats;
+import com.hackathon.main.dto.LeaderboardStreamStats;
+import com.hackathon.main.dto.ScoringQueueStats;
+import com.hackathon.main.dto.StorageCompressionStats;
+import com.hackathon.main.dto.SubmissionRateLimitStats;
+import com.hackathon.main.service.GroundTruthCache;
+import com.hackathon.main.service.LeaderboardStream;
+import com.hackathon.main.service.ScoringExecutor;
+import com.hackathon.main.service.StorageCompression;
+import com.hackathon.main.service.SubmissionRateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/monitoring")
+@RequiredArgsConstructor
+public class MonitoringController {
+
+    private final GroundTruthCache groundTruthCache;
+    private final ScoringExecutor scoringExecutor;
+    private final SubmissionRateLimiter submissionRateLimiter;
+    private final StorageCompression storageCompression;
+    private final LeaderboardStream leaderboardStream;
+
+    @GetMapping("/ground-truth-cache")
+    public ResponseEntity<GroundTruthCacheStats> getGroundTruthCacheStats() {
+        return ResponseEntity.ok(groundTruthCache.stats());
+    }
+
+    @GetMapping("/scoring-queue")
+    public ResponseEntity<ScoringQueueStats> getScoringQueueStats() {
+        return ResponseEntity.ok(scoringExecutor.stats());
+    }
+
+    @GetMapping("/submission-rate-limits")
+    public ResponseEntity<SubmissionRateLimitStats> getSubmissionRateLimitStats() {
+        return ResponseEntity.ok(submissionRateLimiter.stats());
+    }
+
+    @GetMapping("/storage-compression")
+    public ResponseEntity<StorageCompressionStats> getStorageCompressionStats() {
+        return ResponseEntity.ok(storageCompression.stats());
+    }
+
+    @GetMapping("/leaderboard-stream")
+    public ResponseEntity<LeaderboardStreamStats> getLeaderboardStreamStats() {
+        return ResponseEntity.ok(leaderboardStream.stats());
+    }
+}
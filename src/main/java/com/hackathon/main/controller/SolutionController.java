@@ -1,17 +1,27 @@
 package com.hackathon.main.controller;
 
+import com.hackathon.main.dto.LeaderboardWindow;
 import com.hackathon.main.dto.ManualScoreDTO;
+import com.hackathon.main.dto.SolutionFilter;
+import com.hackathon.main.dto.SolutionPage;
+import com.hackathon.main.dto.SolutionStatusDTO;
 import com.hackathon.main.model.LeaderboardEntry;
 import com.hackathon.main.model.Solution;
+import com.hackathon.main.service.LeaderboardStream;
 import com.hackathon.main.service.SolutionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
@@ -19,16 +29,29 @@ import java.util.List;
 public class SolutionController {
 
     private final SolutionService solutionService;
+    private final LeaderboardStream leaderboardStream;
 
+    // async=true -> 202 with the pending solution, poll /solutions/{id}/status for the score
     @PostMapping(value = "/solutions/submit", consumes = {"multipart/form-data"})
     public ResponseEntity<Solution> submitSolution(
             @RequestParam("userId") String userId,
             @RequestParam("taskId") String taskId,
-            @RequestPart("file") MultipartFile file) {
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(value = "async", defaultValue = "false") boolean async) {
 
         try {
+            if (async) {
+                Solution pending = solutionService.submitSolutionAsync(userId, taskId, file);
+                return ResponseEntity.accepted()
+                        .location(URI.create("/api/solutions/" + pending.getId() + "/status"))
+                        .body(pending);
+            }
             Solution newSolutionLog = solutionService.submitSolution(userId, taskId, file);
             return ResponseEntity.status(HttpStatus.CREATED).body(newSolutionLog);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
         } catch (IOException e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -38,27 +61,96 @@ public class SolutionController {
         }
     }
 
+    @GetMapping("/solutions/{id}/status")
+    public ResponseEntity<SolutionStatusDTO> getSolutionStatus(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(solutionService.getSolutionStatus(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // limit -> only the top entries
     @GetMapping("/leaderboard/{taskId}")
-    public ResponseEntity<List<LeaderboardEntry>> getLeaderboard(@PathVariable String taskId) {
-        List<LeaderboardEntry> leaderboard = solutionService.getLeaderboardForTask(taskId);
-        return ResponseEntity.ok(leaderboard);
+    public ResponseEntity<List<LeaderboardEntry>> getLeaderboard(
+            @PathVariable String taskId,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            List<LeaderboardEntry> leaderboard = limit == null
+                    ? solutionService.getLeaderboardForTask(taskId)
+                    : solutionService.getLeaderboardForTask(taskId, limit);
+            return ResponseEntity.ok(leaderboard);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
+    // text/event-stream: a "snapshot" event with the whole leaderboard, then "delta" events with changed entries
+    @GetMapping(value = "/leaderboard/{taskId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamLeaderboard(@PathVariable String taskId) {
+        try {
+            return ResponseEntity.ok(leaderboardStream.subscribe(taskId));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .build();
+        }
+    }
+
+    // rank of the user plus up to radius entries above and below it
+    @GetMapping("/leaderboard/{taskId}/users/{userId}")
+    public ResponseEntity<LeaderboardWindow> getLeaderboardWindow(
+            @PathVariable String taskId,
+            @PathVariable String userId,
+            @RequestParam(value = "radius", defaultValue = "5") int radius) {
+        try {
+            return ResponseEntity.ok(solutionService.getLeaderboardWindow(taskId, userId, radius));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // keyset-paged, newest first; pass the returned nextCursor as "after" to get the next page
     @GetMapping("/solutions/task/{taskId}")
-    public ResponseEntity<List<Solution>> getSolutionsForTask(@PathVariable String taskId) {
-        List<Solution> solutions = solutionService.getSolutionsForTask(taskId);
-        return ResponseEntity.ok(solutions);
+    public ResponseEntity<SolutionPage> getSolutionsForTask(
+            @PathVariable String taskId,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return getSolutionPage(new SolutionFilter(taskId, null, null, null), after, limit, "desc", false);
     }
 
     @GetMapping("/solutions/user/{userId}")
-    public ResponseEntity<List<Solution>> getSolutionsForUser(@PathVariable String userId) {
-        List<Solution> solutions = solutionService.getSolutionsForUser(userId);
-        return ResponseEntity.ok(solutions);
+    public ResponseEntity<SolutionPage> getSolutionsForUser(
+            @PathVariable String userId,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return getSolutionPage(new SolutionFilter(null, userId, null, null), after, limit, "desc", false);
     }
 
     @GetMapping("/solutions")
-    public List<Solution> getAllSolutions() {
-        return solutionService.getAllSolutions();
+    public ResponseEntity<SolutionPage> getAllSolutions(
+            @RequestParam(value = "taskId", required = false) String taskId,
+            @RequestParam(value = "userId", required = false) String userId,
+            @RequestParam(value = "minScore", required = false) Integer minScore,
+            @RequestParam(value = "maxScore", required = false) Integer maxScore,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "50") int limit,
+            @RequestParam(value = "order", defaultValue = "desc") String order,
+            @RequestParam(value = "includeFile", defaultValue = "false") boolean includeFile) {
+        return getSolutionPage(new SolutionFilter(taskId, userId, minScore, maxScore), after, limit, order, includeFile);
+    }
+
+    private ResponseEntity<SolutionPage> getSolutionPage(SolutionFilter filter, String after, int limit, String order, boolean includeFile) {
+        if (!"desc".equals(order) && !"asc".equals(order)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(solutionService.getSolutionPage(filter, after, limit, "asc".equals(order), includeFile));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @DeleteMapping("/solutions/{id}")
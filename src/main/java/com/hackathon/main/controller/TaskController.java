@@ -1,24 +1,46 @@
 package com.hackathon.main.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackathon.main.dto.RescoreJobStatus;
+import com.hackathon.main.dto.TaskSummary;
 import com.hackathon.main.model.Task;
 import com.hackathon.main.model.TaskFile;
+import com.hackathon.main.service.FileStorageService;
+import com.hackathon.main.service.RescoringService;
 import com.hackathon.main.service.TaskService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.apache.catalina.Globals;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/tasks")
 public class TaskController {
     private final TaskService taskService;
+    private final FileStorageService fileStorageService;
+    private final RescoringService rescoringService;
 
-    public TaskController(TaskService taskService){this.taskService = taskService;}
+    public TaskController(TaskService taskService, FileStorageService fileStorageService, RescoringService rescoringService){
+        this.taskService = taskService;
+        this.fileStorageService = fileStorageService;
+        this.rescoringService = rescoringService;
+    }
 
     // JSON; add task without files -> in json "files": []
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -66,16 +88,29 @@ public class TaskController {
         return ResponseEntity.ok(taskService.getAllTasks());
     }
 
+    // id, name, description and file metadata only -> for listings and id-to-name lookups
+    @GetMapping("/summaries")
+    public ResponseEntity<List<TaskSummary>> getTaskSummaries() {
+        return ResponseEntity.ok(taskService.getTaskSummaries());
+    }
+
     @GetMapping("/{taskId}")
     public ResponseEntity<Task> getTaskById(@PathVariable String taskId){
         Task task = taskService.getTaskById(taskId);
         return ResponseEntity.ok(task);
     }
+    // streamed from storage, never loaded into memory as a whole; local blobs are handed to the
+    // container's sendfile (FileChannel.transferTo) when it supports it.
+    // Strong ETag from the content hash: If-None-Match -> 304; a single Range -> 206 (unless
+    // If-Range names another ETag), an unsatisfiable one -> 416; multiple ranges get the whole file.
+    // Bodies are a StreamingResponseBody, not a Resource, so Spring does not apply the request's
+    // Range header to a 200 a second time
     @GetMapping("/{taskId}/files/{index}")
-    public ResponseEntity<byte[]> downloadFile(
+    public ResponseEntity<StreamingResponseBody> downloadFile(
             @PathVariable String taskId,
-            @PathVariable int index
-    ){
+            @PathVariable int index,
+            HttpServletRequest request
+    ) throws IOException {
         Task task = taskService.getTaskById(taskId);
 
         if (index < 0 || index >= task.getFiles().size()) {
@@ -83,13 +118,88 @@ public class TaskController {
         }
 
         TaskFile file = task.getFiles().get(index);
+        String etag = file.getSha256() != null ? "\"" + file.getSha256() + "\"" : null;
+        if (etag != null && etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
 
-        byte[] fileBytes = java.util.Base64.getDecoder().decode(file.getDataBase64());
+        Optional<Path> localPath = fileStorageService.localPath(file);
+        long size = localPath.isPresent() ? Files.size(localPath.get()) : fileStorageService.size(file);
 
-        return ResponseEntity.ok()
+        HttpStatus status = HttpStatus.OK;
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && size >= 0 && (ifRange == null || ifRange.equals(etag))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            if (ranges.size() == 1) {
+                start = ranges.get(0).getRangeStart(size);
+                end = ranges.get(0).getRangeEnd(size);
+                if (start >= size || start > end) {
+                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                            .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                            .build();
+                }
+                status = HttpStatus.PARTIAL_CONTENT;
+            }
+        }
+        long length = end - start + 1;
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
                 .header("Content-Disposition", "attachment; filename=\"" + file.getFileName() + "\"")
                 .header("Content-Type", file.getContentType())
-                .body(fileBytes);
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .cacheControl(CacheControl.noCache());
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        if (size >= 0) {
+            response.contentLength(length);
+        }
+        if (status == HttpStatus.PARTIAL_CONTENT) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+
+        if (localPath.isPresent() && Boolean.TRUE.equals(request.getAttribute(Globals.SENDFILE_SUPPORTED_ATTR))) {
+            request.setAttribute(Globals.SENDFILE_FILENAME_ATTR, localPath.get().toAbsolutePath().toString());
+            request.setAttribute(Globals.SENDFILE_FILE_START_ATTR, start);
+            request.setAttribute(Globals.SENDFILE_FILE_END_ATTR, end + 1);
+            return response.build();
+        }
+        InputStream content = status == HttpStatus.PARTIAL_CONTENT
+                ? fileStorageService.open(file, start, length)
+                : fileStorageService.open(file);
+        StreamingResponseBody body = out -> {
+            try (content) {
+                content.transferTo(out);
+            }
+        };
+        return response.body(body);
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @PutMapping(
@@ -117,6 +227,26 @@ public class TaskController {
         return ResponseEntity.ok(updated);
     }
 
+    // starts re-scoring all solutions of the task in the background -> 202, poll GET for progress
+    @PostMapping("/{taskId}/rescore")
+    public ResponseEntity<RescoreJobStatus> rescoreTask(@PathVariable String taskId) {
+        try {
+            RescoreJobStatus status = rescoringService.start(taskId);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/tasks/" + taskId + "/rescore"))
+                    .body(status);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(rescoringService.getStatus(taskId).orElse(null));
+        }
+    }
+
+    @GetMapping("/{taskId}/rescore")
+    public ResponseEntity<RescoreJobStatus> getRescoreStatus(@PathVariable String taskId) {
+        return rescoringService.getStatus(taskId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PutMapping("/{taskId}/files/{index}/remove")
     public ResponseEntity<Task> removeFileFromTask(
             @PathVariable String taskId,
@@ -0,0 +1,140 @@
+package com.hackathon.main.controller;
+
+import com.hackathon.main.configurtion.TooManyRequests;
+import com.hackathon.main.dto.CreateUploadDto;
+import com.hackathon.main.model.Solution;
+import com.hackathon.main.model.UploadPurpose;
+import com.hackathon.main.model.UploadSession;
+import com.hackathon.main.service.ChunkedUploadService;
+import com.hackathon.main.service.SolutionService;
+import com.hackathon.main.service.SubmissionRateLimiter;
+import com.hackathon.main.service.TaskService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+// resumable uploads: POST a session, PUT its chunks (retry or skip those listed in receivedChunks), then POST .../commit
+@RestController
+@RequestMapping("/api/uploads")
+@RequiredArgsConstructor
+@Slf4j
+public class UploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+    private final SolutionService solutionService;
+    private final TaskService taskService;
+    private final SubmissionRateLimiter submissionRateLimiter;
+
+    @PostMapping
+    public ResponseEntity<UploadSession> createUpload(@RequestBody CreateUploadDto request, Principal principal) {
+        if (request.getPurpose() == UploadPurpose.SUBMISSION) {
+            String user = principal != null ? principal.getName() : request.getUserId();
+            Duration wait = submissionRateLimiter.tryAcquire(user, request.getTaskId());
+            if (!wait.isZero()) {
+                return TooManyRequests.response(wait);
+            }
+        }
+        try {
+            UploadSession session = chunkedUploadService.create(request, owner(principal));
+            return ResponseEntity.created(URI.create("/api/uploads/" + session.getId())).body(session);
+        } catch (IOException e) {
+            log.error("Creating an upload session failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadSession> getUpload(@PathVariable String id, Principal principal) {
+        try {
+            return ResponseEntity.ok(chunkedUploadService.get(id, owner(principal)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // the raw bytes of the chunk are the request body
+    @PutMapping("/{id}/chunks/{index}")
+    public ResponseEntity<Void> putChunk(
+            @PathVariable String id,
+            @PathVariable int index,
+            HttpServletRequest request,
+            Principal principal) {
+        try {
+            chunkedUploadService.writeChunk(id, owner(principal), index, request.getContentLengthLong(), request.getInputStream());
+            return ResponseEntity.noContent().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IOException e) {
+            log.error("Writing chunk {} of upload {} failed", index, id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // submissions -> 201 with the solution (202 with async=true, as /api/solutions/submit); task files -> 200 with the task
+    @PostMapping("/{id}/commit")
+    public ResponseEntity<?> commitUpload(
+            @PathVariable String id,
+            @RequestParam(value = "sha256", required = false) String sha256,
+            @RequestParam(value = "async", defaultValue = "false") boolean async,
+            Principal principal) {
+        try {
+            return chunkedUploadService.commit(id, owner(principal), sha256, (session, file) -> switch (session.getPurpose()) {
+                case SUBMISSION -> {
+                    if (async) {
+                        Solution pending = solutionService.submitSolutionAsync(session.getUserId(), session.getTaskId(), file);
+                        yield ResponseEntity.accepted()
+                                .location(URI.create("/api/solutions/" + pending.getId() + "/status"))
+                                .body(pending);
+                    }
+                    yield ResponseEntity.status(HttpStatus.CREATED)
+                            .body(solutionService.submitSolution(session.getUserId(), session.getTaskId(), file));
+                }
+                case TASK_FILE -> ResponseEntity.ok(taskService.addFilesToTask(session.getTaskId(), List.of(file)));
+                case TASK_SOLUTION -> ResponseEntity.ok(taskService.addSolutionFileToTask(session.getTaskId(), file));
+            });
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        } catch (IOException e) {
+            log.error("Committing upload {} failed", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        } catch (RuntimeException e) {
+            log.warn("Committing upload {} rejected: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> abortUpload(@PathVariable String id, Principal principal) {
+        try {
+            chunkedUploadService.abort(id, owner(principal));
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    private static String owner(Principal principal) {
+        return principal != null ? principal.getName() : null;
+    }
+}
@@ -0,0 +1,21 @@
+package com.hackathon.main.dto;
+
+import com.hackathon.main.model.UploadPurpose;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class CreateUploadDto {
+    private UploadPurpose purpose;
+    private String taskId;
+    // SUBMISSION only
+    private String userId;
+    private String fileName;
+    private String contentType;
+    private Long size;
+    // optional, defaults to hackathon.upload.chunked.chunk-size
+    private Integer chunkSize;
+    // optional here, required by the time of the commit
+    private String sha256;
+}
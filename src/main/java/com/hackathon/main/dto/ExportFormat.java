@@ -0,0 +1,15 @@
+package com.hackathon.main.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+// row formats of the /api/export endpoints
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+}
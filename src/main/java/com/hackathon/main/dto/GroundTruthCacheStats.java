@@ -0,0 +1,15 @@
+package com.hackathon.main.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class GroundTruthCacheStats {
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int entries;
+    private long cachedValues;
+    private long maxValues;
+}
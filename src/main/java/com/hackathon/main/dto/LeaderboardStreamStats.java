@@ -0,0 +1,19 @@
+package com.hackathon.main.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class LeaderboardStreamStats {
+    private int subscribers;
+    private int tasks;
+    private int maxSubscribers;
+    private int maxMessagesPerSecond;
+    private int subscriberBuffer;
+    private long published;
+    private long deltasSent;
+    private long snapshotsSent;
+    private long overflows;
+    private long rejected;
+}
@@ -0,0 +1,20 @@
+package com.hackathon.main.dto;
+
+import com.hackathon.main.model.LeaderboardEntry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class LeaderboardWindow {
+    private String taskId;
+    private String userId;
+    // 1-based
+    private int rank;
+    private int total;
+    // rank of the first of the entries, which are consecutive
+    private int firstRank;
+    private List<LeaderboardEntry> entries;
+}
@@ -0,0 +1,21 @@
+package com.hackathon.main.dto;
+
+import com.hackathon.main.model.RescoreJobState;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+public class RescoreJobStatus {
+    private String taskId;
+    private RescoreJobState state;
+    private long totalSolutions;
+    private long processedSolutions;
+    private long failedSolutions;
+    private double solutionsPerSecond;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+}
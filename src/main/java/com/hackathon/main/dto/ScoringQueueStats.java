@@ -0,0 +1,20 @@
+package com.hackathon.main.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ScoringQueueStats {
+    private int queued;
+    private int running;
+    private int queueCapacity;
+    private int concurrency;
+    private long maxQueueWaitMillis;
+    private long submitted;
+    private long completed;
+    private long rejected;
+    private long timedOut;
+    private double averageWaitMillis;
+    private long maxWaitMillis;
+}
@@ -0,0 +1,12 @@
+package com.hackathon.main.dto;
+
+/**
+ * Optional filters of a solution listing; {@code null} fields do not filter.
+ *
+ * @param taskId   only solutions of this task
+ * @param userId   only solutions of this user
+ * @param minScore only solutions scoring at least this
+ * @param maxScore only solutions scoring at most this
+ */
+public record SolutionFilter(String taskId, String userId, Integer minScore, Integer maxScore) {
+}
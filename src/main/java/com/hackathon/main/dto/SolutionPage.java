@@ -0,0 +1,15 @@
+package com.hackathon.main.dto;
+
+import com.hackathon.main.model.Solution;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// one page of a solution listing; pass nextCursor as "after" to get the next one, null on the last page
+@Getter
+@AllArgsConstructor
+public class SolutionPage {
+    private List<Solution> items;
+    private String nextCursor;
+}
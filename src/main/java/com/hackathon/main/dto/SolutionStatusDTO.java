@@ -0,0 +1,14 @@
+package com.hackathon.main.dto;
+
+import com.hackathon.main.model.SolutionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SolutionStatusDTO {
+    private String solutionId;
+    private SolutionStatus status;
+    private int score;
+    private String failureReason;
+}
@@ -0,0 +1,24 @@
+package com.hackathon.main.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class StorageCompressionStats {
+    private String codec;
+    private int level;
+    private long dictionaries;
+    // all GridFS contents referenced by tasks and solutions
+    private long storedFiles;
+    private long rawBytes;
+    private long storedBytes;
+    private long savedBytes;
+    // since startup
+    private long writtenFiles;
+    private long writtenRawBytes;
+    private long writtenStoredBytes;
+    private long compactedFiles;
+    private long compactedRawBytes;
+    private long compactedStoredBytes;
+}
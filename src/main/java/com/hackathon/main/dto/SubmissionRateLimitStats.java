@@ -0,0 +1,19 @@
+package com.hackathon.main.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SubmissionRateLimitStats {
+    private long admitted;
+    private long rejectedByUser;
+    private long rejectedByTask;
+    private int trackedUsers;
+    private int trackedTasks;
+    private int cachedTaskLimits;
+    private int defaultUserBurst;
+    private double defaultUserPerMinute;
+    private int defaultTaskBurst;
+    private double defaultTaskPerMinute;
+}
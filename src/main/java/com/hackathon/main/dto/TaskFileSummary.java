@@ -0,0 +1,13 @@
+package com.hackathon.main.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class TaskFileSummary {
+    private String fileName;
+    private String contentType;
+    // null for files stored before sizes were recorded
+    private Long size;
+}
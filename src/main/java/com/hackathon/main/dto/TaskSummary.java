@@ -0,0 +1,16 @@
+package com.hackathon.main.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// task without file contents or scoring settings, for listings; files keep their download index
+@Getter
+@AllArgsConstructor
+public class TaskSummary {
+    private String id;
+    private String name;
+    private String description;
+    private List<TaskFileSummary> files;
+}
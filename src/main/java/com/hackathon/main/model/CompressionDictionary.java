@@ -0,0 +1,36 @@
+package com.hackathon.main.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A zstd dictionary trained on the stored solution files of a task, used to compress later files
+ * of the same shape. Files compressed with it refer to it by ID, so it is never changed or deleted.
+ */
+@Document(collection = "compression_dictionaries")
+@Data
+@NoArgsConstructor
+@CompoundIndex(def = "{'taskId': 1, 'createdAt': -1}")
+public class CompressionDictionary {
+    @Id
+    private String id;
+    private String taskId;
+    // the dictionary ID zstd writes into each frame compressed with it
+    private long zstdDictId;
+    private byte[] data;
+    private int samples;
+    private Instant createdAt;
+
+    public CompressionDictionary(String taskId, long zstdDictId, byte[] data, int samples, Instant createdAt) {
+        this.taskId = taskId;
+        this.zstdDictId = zstdDictId;
+        this.data = data;
+        this.samples = samples;
+        this.createdAt = createdAt;
+    }
+}
@@ -24,4 +24,7 @@ public class Hackathon {
     private List<String> tasks = new ArrayList<>();
     private List<String> users = new ArrayList<>();
 
+    // null -> hackathon.submissions.rate-limit.* defaults
+    private SubmissionRateLimit submissionRateLimit;
+
 }
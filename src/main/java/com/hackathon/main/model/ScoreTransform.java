@@ -0,0 +1,23 @@
+package com.hackathon.main.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Linear mapping of a raw metric value onto a 0–100 score: {@code offset + scale * value},
+ * clamped to the score range and truncated to an integer.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoreTransform {
+    private double offset;
+    private double scale;
+
+    public int apply(double metricValue) {
+        return (int) Math.min(100, Math.max(0, offset + scale * metricValue));
+    }
+}
@@ -11,6 +11,7 @@ import java.time.Instant;
 @Document(collection = "solutions")
 @Getter
 @Setter
+// indexes for keyset pagination of listings are created by SolutionService#createIndexes
 public class Solution {
     @Id
     private String id;
@@ -20,6 +21,10 @@ public class Solution {
     private String taskId;
     private int score;
     private Instant submissionTimestamp;
+    private SolutionStatus status = SolutionStatus.SCORED;
+    private String failureReason;
 
     private TaskFile file;
+    // set if the content of file is not stored here but in this earlier, byte-identical solution
+    private String payloadSolutionId;
 }
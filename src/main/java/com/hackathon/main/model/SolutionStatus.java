@@ -0,0 +1,7 @@
+package com.hackathon.main.model;
+
+public enum SolutionStatus {
+    PENDING,
+    SCORED,
+    FAILED
+}
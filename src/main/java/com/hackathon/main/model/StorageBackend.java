@@ -0,0 +1,6 @@
+package com.hackathon.main.model;
+
+public enum StorageBackend {
+    GRIDFS,
+    LOCAL
+}
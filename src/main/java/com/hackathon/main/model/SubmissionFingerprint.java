@@ -0,0 +1,34 @@
+package com.hackathon.main.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * The score of a submitted file content for a task, keyed by the SHA-256 of the content, and the
+ * solution that stores that content.
+ */
+@Document(collection = "submission_fingerprints")
+@Data
+@NoArgsConstructor
+@CompoundIndex(def = "{'taskId': 1, 'sha256': 1, 'contentType': 1}", unique = true)
+public class SubmissionFingerprint {
+    @Id
+    private String id;
+    private String taskId;
+    private String sha256;
+    private String contentType;
+
+    private int score;
+    private String solutionId;
+
+    public SubmissionFingerprint(String taskId, String sha256, String contentType, int score, String solutionId) {
+        this.taskId = taskId;
+        this.sha256 = sha256;
+        this.contentType = contentType;
+        this.score = score;
+        this.solutionId = solutionId;
+    }
+}
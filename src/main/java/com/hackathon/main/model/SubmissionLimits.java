@@ -0,0 +1,21 @@
+package com.hackathon.main.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Per-task limits on parsing a submission. Unset limits fall back to the
+ * {@code hackathon.scoring.limits.*} defaults; the number of values is always limited to the
+ * length of the correct solution.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionLimits {
+    // decompressed content size
+    private Long maxBytes;
+    private Long maxParseMillis;
+}
@@ -0,0 +1,22 @@
+package com.hackathon.main.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Token-bucket limits on solution submissions of a hackathon: every user and every task has a
+ * bucket holding up to {@code burst} submissions that refills at {@code perMinute}. Unset limits
+ * fall back to the {@code hackathon.submissions.rate-limit.*} defaults; a rate of 0 disables a limit.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionRateLimit {
+    private Integer userBurst;
+    private Double userPerMinute;
+    private Integer taskBurst;
+    private Double taskPerMinute;
+}
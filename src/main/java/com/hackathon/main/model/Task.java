@@ -1,5 +1,6 @@
 package com.hackathon.main.model;
 
+import com.hackathon.main.scoring.StandardMetric;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
@@ -21,4 +22,11 @@ public class Task {
     private List<TaskFile> files = new ArrayList<>();
     private TaskFile solutionFile;
 
+    // null -> RMSE and the metric's default transform
+    private StandardMetric metric;
+    private ScoreTransform scoreTransform;
+
+    // null -> hackathon.scoring.limits.* defaults
+    private SubmissionLimits submissionLimits;
+
 }
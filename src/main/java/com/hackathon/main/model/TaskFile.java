@@ -1,6 +1,7 @@
 package com.hackathon.main.model;
 
 
+import com.hackathon.main.scoring.Compression;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -10,5 +11,20 @@ public class TaskFile {
 
     private String fileName;
     private String contentType;
+    // where the content is stored; null -> GridFS if gridFsId is set, otherwise inline
+    private StorageBackend storage;
+    // ID of the GridFS file holding the content
+    private String gridFsId;
+    // legacy inline content, moved to GridFS by InlineFileMigration
     private String dataBase64;
+    // size of the raw content in bytes
+    private Long size;
+    // hex SHA-256 of the raw content, computed while it is stored; the key of LOCAL content
+    private String sha256;
+    // codec of the stored GridFS content; null -> stored raw before compression, not yet compacted
+    private Compression compression;
+    // ID of the CompressionDictionary the content was compressed with, if any
+    private String compressionDictionaryId;
+    // size of the stored (compressed) content in bytes
+    private Long storedSize;
 }
@@ -0,0 +1,11 @@
+package com.hackathon.main.model;
+
+// what a committed chunked upload becomes
+public enum UploadPurpose {
+    // a solution submission of userId for taskId, scored like POST /api/solutions/submit
+    SUBMISSION,
+    // a file added to taskId, like PUT /api/tasks/{taskId}/files
+    TASK_FILE,
+    // the correct solution of taskId, like PUT /api/tasks/{taskId}/solution
+    TASK_SOLUTION
+}
@@ -0,0 +1,42 @@
+package com.hackathon.main.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A chunked upload in progress. The chunks themselves are written into a staging file of the
+ * declared size; the session records which of them have arrived.
+ */
+@Document(collection = "upload_sessions")
+@Getter
+@Setter
+public class UploadSession {
+    @Id
+    private String id;
+    private UploadPurpose purpose;
+    // principal that created the session; only it may write to or commit it
+    private String owner;
+    private String userId;
+    private String taskId;
+    private String fileName;
+    private String contentType;
+    private long size;
+    private int chunkSize;
+    private int chunkCount;
+    // expected hex SHA-256 of the whole file, may also be given on commit
+    private String sha256;
+    private List<Integer> receivedChunks = new ArrayList<>();
+    private boolean committing;
+    // when the current commit claimed the session; a claim older than the commit lease may be taken over
+    private Instant committingSince;
+    private Instant createdAt;
+    @Indexed
+    private Instant expiresAt;
+}
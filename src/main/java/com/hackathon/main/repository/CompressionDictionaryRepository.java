@@ -0,0 +1,12 @@
+package com.hackathon.main.repository;
+
+import com.hackathon.main.model.CompressionDictionary;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CompressionDictionaryRepository extends MongoRepository<CompressionDictionary, String> {
+    Optional<CompressionDictionary> findFirstByTaskIdOrderByCreatedAtDesc(String taskId);
+}
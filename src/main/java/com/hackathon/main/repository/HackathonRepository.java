@@ -4,6 +4,9 @@ import com.hackathon.main.model.Hackathon;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface HackathonRepository extends MongoRepository<Hackathon, String> {
+    Optional<Hackathon> findFirstByTasksContaining(String taskId);
 }
@@ -2,11 +2,20 @@ package com.hackathon.main.repository;
 
 import com.hackathon.main.model.Solution;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SolutionRepository extends MongoRepository<Solution, String> {
     List<Solution> findByUserId(String user_id);
     List<Solution> findByTaskId(String task_id);
+    List<Solution> findByPayloadSolutionId(String payloadSolutionId);
+
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'file': 0 }")
+    Optional<Solution> findWithoutFileById(String id);
+
+    @Query(value = "{ 'userId': ?0 }", fields = "{ 'file': 0 }", sort = "{ 'submissionTimestamp': -1, '_id': -1 }")
+    List<Solution> findWithoutFileByUserId(String userId);
 }
@@ -0,0 +1,15 @@
+package com.hackathon.main.repository;
+
+import com.hackathon.main.model.SubmissionFingerprint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SubmissionFingerprintRepository extends MongoRepository<SubmissionFingerprint, String> {
+    Optional<SubmissionFingerprint> findFirstByTaskIdAndSha256AndContentType(String taskId, String sha256, String contentType);
+    List<SubmissionFingerprint> findBySolutionId(String solutionId);
+    void deleteByTaskId(String taskId);
+}
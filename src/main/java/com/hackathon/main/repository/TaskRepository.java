@@ -2,8 +2,13 @@ package com.hackathon.main.repository;
 
 import com.hackathon.main.model.Task;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface TaskRepository extends MongoRepository<Task, String> {
+    @Query(value = "{}", fields = "{ 'name': 1, 'description': 1, 'files.fileName': 1, 'files.contentType': 1, 'files.size': 1 }")
+    List<Task> findAllSummaries();
 }
@@ -0,0 +1,13 @@
+package com.hackathon.main.repository;
+
+import com.hackathon.main.model.UploadSession;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends MongoRepository<UploadSession, String> {
+    List<UploadSession> findByExpiresAtBefore(Instant time);
+}
@@ -0,0 +1,329 @@
+package com.hackathon.main.scoring;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Incremental decoder for binary numeric payloads: NumPy {@code .npy} files holding a float32 or
+ * float64 array, and headerless little-endian float32/float64 arrays.
+ * <p>
+ * Values are copied straight out of the fed bytes through typed buffer views; no text is involved.
+ * A value split across two chunks is carried over in a small buffer.
+ */
+final class BinaryDecoder {
+
+    private static final byte[] NPY_MAGIC = {(byte) 0x93, 'N', 'U', 'M', 'P', 'Y'};
+    private static final int MAX_NPY_HEADER_LENGTH = 64 * 1024;
+    private static final int MAX_PREALLOCATED = 1 << 20;
+
+    private static final Pattern DESCR = Pattern.compile("'descr'\\s*:\\s*'([^']*)'");
+    private static final Pattern FORTRAN_ORDER = Pattern.compile("'fortran_order'\\s*:\\s*(True|False)");
+    private static final Pattern SHAPE = Pattern.compile("'shape'\\s*:\\s*\\(([^)]*)\\)");
+
+    /**
+     * Where and how the values of a binary payload are stored.
+     *
+     * @param dataOffset  the offset of the first value, i.e. the length of the header
+     * @param elementSize the size of a value in bytes, 4 or 8
+     * @param order       the byte order of the values
+     * @param count       the number of values declared by the header, or {@code -1} for headerless payloads
+     */
+    record Layout(int dataOffset, int elementSize, ByteOrder order, long count) {
+    }
+
+    private Layout layout;
+
+    private byte[] header;
+    private int headerLength;
+
+    private final byte[] carry = new byte[Double.BYTES];
+    private int carryLength;
+
+    private final ParseBudget budget;
+
+    private double[] values;
+    private int size;
+
+    private BinaryDecoder(Layout layout, int expectedSize, ParseBudget budget) {
+        this.layout = layout;
+        this.budget = budget;
+        this.header = layout == null ? new byte[16] : null;
+        this.values = new double[Math.max(expectedSize, 16)];
+    }
+
+    /**
+     * @param type the MIME content type of a payload
+     * @return whether the type is one of the binary formats
+     */
+    static boolean isBinary(String type) {
+        return NumericParser.NPY.equals(type) || NumericParser.FLOAT64_LE.equals(type)
+                || NumericParser.FLOAT32_LE.equals(type);
+    }
+
+    /**
+     * @param type the MIME content type of a payload
+     * @return whether the type is raw values without a header, whose first bytes can be anything
+     */
+    static boolean isHeaderless(String type) {
+        return NumericParser.FLOAT64_LE.equals(type) || NumericParser.FLOAT32_LE.equals(type);
+    }
+
+    /**
+     * Creates a decoder for a binary content type.
+     *
+     * @param type         one of the binary MIME content types
+     * @param expectedSize a capacity hint; {@code 0} if unknown
+     * @param budget       the value limit to enforce; bytes and time are checked by the caller
+     * @return a fresh decoder
+     */
+    static BinaryDecoder forType(String type, int expectedSize, ParseBudget budget) {
+        if (NumericParser.NPY.equals(type)) {
+            return new BinaryDecoder(null, expectedSize, budget);
+        }
+        return new BinaryDecoder(rawLayout(type), expectedSize, budget);
+    }
+
+    /**
+     * Locates the values of a complete in-memory payload.
+     *
+     * @param data the payload; read with absolute gets from its position
+     * @param type one of the binary MIME content types
+     * @return the layout of the values, with {@code dataOffset} relative to the position of {@code data}
+     * @throws IllegalArgumentException if an {@code .npy} header is truncated, invalid or unsupported
+     */
+    static Layout layout(ByteBuffer data, String type) {
+        if (!NumericParser.NPY.equals(type)) {
+            return rawLayout(type);
+        }
+        int start = data.position();
+        byte[] b = new byte[16];
+        int length = 0;
+        while (true) {
+            int required = requiredHeaderLength(b, length);
+            if (length == required) {
+                return parseNpyHeader(b, length);
+            }
+            if (required > data.limit() - start) {
+                throw new IllegalArgumentException("Invalid NPY file format");
+            }
+            if (required > b.length) {
+                b = Arrays.copyOf(b, required);
+            }
+            data.get(start + length, b, length, required - length);
+            length = required;
+        }
+    }
+
+    /**
+     * Returns the number of values in a payload, checking it against its layout.
+     *
+     * @param layout       the layout of the payload
+     * @param payloadBytes the number of bytes after the header
+     * @return the number of values
+     * @throws IllegalArgumentException if the bytes do not hold a whole number of values, or not
+     *                                  the number declared by the header
+     */
+    static long count(Layout layout, long payloadBytes) {
+        long count = payloadBytes / layout.elementSize();
+        if (payloadBytes % layout.elementSize() != 0) {
+            throw new IllegalArgumentException(
+                    "Binary payload length is not a multiple of " + layout.elementSize() + " bytes");
+        }
+        if (layout.count() >= 0 && count != layout.count()) {
+            throw new IllegalArgumentException("NPY payload does not match its shape");
+        }
+        return count;
+    }
+
+    void feed(byte[] buf, int off, int len) {
+        int end = off + len;
+        if (layout == null) {
+            off = feedHeader(buf, off, end);
+            if (layout == null) {
+                return;
+            }
+        }
+
+        int elementSize = layout.elementSize();
+        if (carryLength > 0) {
+            int n = Math.min(elementSize - carryLength, end - off);
+            System.arraycopy(buf, off, carry, carryLength, n);
+            carryLength += n;
+            off += n;
+            if (carryLength < elementSize) {
+                return;
+            }
+            decode(carry, 0, 1);
+            carryLength = 0;
+        }
+
+        int count = (end - off) / elementSize;
+        decode(buf, off, count);
+        off += count * elementSize;
+        carryLength = end - off;
+        System.arraycopy(buf, off, carry, 0, carryLength);
+    }
+
+    double[] finish() {
+        if (layout == null) {
+            throw new IllegalArgumentException("Invalid NPY file format");
+        }
+        count(layout, (long) size * layout.elementSize() + carryLength);
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Buffers header bytes until the whole {@code .npy} header is known, then decodes it.
+     *
+     * @return the offset of the first byte after the consumed header bytes
+     */
+    private int feedHeader(byte[] buf, int off, int end) {
+        while (true) {
+            int required = requiredHeaderLength(header, headerLength);
+            if (headerLength == required) {
+                layout = parseNpyHeader(header, headerLength);
+                budget.checkValues(layout.count());
+                if (layout.count() > values.length) {
+                    values = new double[(int) Math.min(layout.count(), MAX_PREALLOCATED)];
+                }
+                return off;
+            }
+            if (off == end) {
+                return off;
+            }
+            if (required > header.length) {
+                header = Arrays.copyOf(header, required);
+            }
+            int n = Math.min(required - headerLength, end - off);
+            System.arraycopy(buf, off, header, headerLength, n);
+            headerLength += n;
+            off += n;
+        }
+    }
+
+    private void decode(byte[] buf, int off, int count) {
+        if (count == 0) {
+            return;
+        }
+        budget.checkValues((long) size + count);
+        if (values.length - size < count) {
+            long capacity = Math.max((long) size + count, values.length + (long) (values.length >> 1));
+            values = Arrays.copyOf(values, (int) Math.min(capacity, Integer.MAX_VALUE - 8));
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(buf, off, count * layout.elementSize()).order(layout.order());
+        if (layout.elementSize() == Double.BYTES) {
+            bytes.asDoubleBuffer().get(values, size, count);
+        } else {
+            FloatBuffer floats = bytes.asFloatBuffer();
+            for (int i = 0; i < count; i++) {
+                values[size + i] = floats.get(i);
+            }
+        }
+        size += count;
+    }
+
+    private static Layout rawLayout(String type) {
+        if (NumericParser.FLOAT64_LE.equals(type)) {
+            return new Layout(0, Double.BYTES, ByteOrder.LITTLE_ENDIAN, -1);
+        }
+        if (NumericParser.FLOAT32_LE.equals(type)) {
+            return new Layout(0, Float.BYTES, ByteOrder.LITTLE_ENDIAN, -1);
+        }
+        throw new IllegalArgumentException("Unsupported file type: " + type);
+    }
+
+    /**
+     * Returns how many leading bytes must be available to decode an {@code .npy} header: the
+     * fixed-size preamble while it is incomplete, then the preamble plus the declared header length.
+     */
+    private static int requiredHeaderLength(byte[] b, int length) {
+        if (length < 8) {
+            return 8;
+        }
+        for (int i = 0; i < NPY_MAGIC.length; i++) {
+            if (b[i] != NPY_MAGIC[i]) {
+                throw new IllegalArgumentException("Invalid NPY file format");
+            }
+        }
+        long headerLength;
+        int preamble;
+        switch (b[6]) {
+            case 1 -> {
+                preamble = 10;
+                if (length < preamble) {
+                    return preamble;
+                }
+                headerLength = (b[8] & 0xFF) | (b[9] & 0xFF) << 8;
+            }
+            case 2, 3 -> {
+                preamble = 12;
+                if (length < preamble) {
+                    return preamble;
+                }
+                headerLength = (b[8] & 0xFFL) | (b[9] & 0xFFL) << 8 | (b[10] & 0xFFL) << 16 | (b[11] & 0xFFL) << 24;
+            }
+            default -> throw new IllegalArgumentException("Unsupported NPY version: " + b[6]);
+        }
+        if (headerLength > MAX_NPY_HEADER_LENGTH) {
+            throw new IllegalArgumentException("Invalid NPY file format");
+        }
+        return preamble + (int) headerLength;
+    }
+
+    private static Layout parseNpyHeader(byte[] b, int length) {
+        int preamble = b[6] == 1 ? 10 : 12;
+        String dict = new String(b, preamble, length - preamble,
+                b[6] == 3 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+
+        Matcher descr = DESCR.matcher(dict);
+        Matcher fortranOrder = FORTRAN_ORDER.matcher(dict);
+        Matcher shape = SHAPE.matcher(dict);
+        if (!descr.find() || !fortranOrder.find() || !shape.find()) {
+            throw new IllegalArgumentException("Invalid NPY file format");
+        }
+
+        String dtype = descr.group(1);
+        ByteOrder order = switch (dtype) {
+            case "<f8", "<f4" -> ByteOrder.LITTLE_ENDIAN;
+            case ">f8", ">f4" -> ByteOrder.BIG_ENDIAN;
+            case "=f8", "=f4" -> ByteOrder.nativeOrder();
+            default -> throw new IllegalArgumentException("Unsupported NPY data type: " + dtype);
+        };
+        int elementSize = dtype.charAt(2) == '8' ? Double.BYTES : Float.BYTES;
+
+        long count = 1;
+        int dimensions = 0;
+        for (String dimension : shape.group(1).split(",")) {
+            String trimmed = dimension.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            long n;
+            try {
+                n = Long.parseLong(trimmed);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid NPY file format", e);
+            }
+            if (n < 0 || n > Integer.MAX_VALUE || (count *= n) > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Unsupported NPY array shape: (" + shape.group(1) + ")");
+            }
+            if (n > 1) {
+                dimensions++;
+            }
+        }
+        // Only the order of multi-dimensional arrays depends on fortran_order.
+        if (dimensions > 1 && Boolean.parseBoolean(fortranOrder.group(1).toLowerCase())) {
+            throw new IllegalArgumentException("Unsupported NPY array: Fortran order");
+        }
+        return new Layout(length, elementSize, order, count);
+    }
+}
@@ -0,0 +1,166 @@
+package com.hackathon.main.scoring;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compression formats a numeric file may be uploaded in. The format of the bytes is recognised by
+ * their magic number, so compressed content is decoded whatever content type it was declared with.
+ * <p>
+ * Headerless binary values ({@code application/x-float32-le}, {@code application/x-float64-le})
+ * can start with any bytes, including a magic number, so they are only taken as compressed if
+ * their file name says so, e.g. {@code values.f32.gz}.
+ */
+public enum Compression {
+
+    NONE(new byte[0], null),
+    GZIP(new byte[]{0x1f, (byte) 0x8b}, ".gz"),
+    ZSTD(new byte[]{0x28, (byte) 0xb5, 0x2f, (byte) 0xfd}, ".zst");
+
+    /** The number of leading bytes {@link #detect(byte[], int)} needs to recognise every format. */
+    public static final int MAGIC_LENGTH = 4;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final byte[] magic;
+    private final String extension;
+
+    Compression(byte[] magic, String extension) {
+        this.magic = magic;
+        this.extension = extension;
+    }
+
+    /**
+     * Recognises the compression of a payload from its leading bytes.
+     *
+     * @param head   the first bytes of the payload
+     * @param length the number of valid bytes in {@code head}
+     * @return the compression of the payload, {@link #NONE} if it is not compressed
+     */
+    public static Compression detect(byte[] head, int length) {
+        for (Compression compression : values()) {
+            if (compression != NONE && compression.matches(head, length)) {
+                return compression;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Recognises the compression of a file of a given type from its leading bytes. Headerless
+     * binary content is only sniffed if its file name has a compression extension.
+     *
+     * @param head     the first bytes of the payload
+     * @param length   the number of valid bytes in {@code head}
+     * @param type     the MIME content type of the (decompressed) content
+     * @param fileName the original file name, possibly {@code null}
+     * @return the compression of the payload, {@link #NONE} if it is not compressed
+     */
+    public static Compression detect(byte[] head, int length, String type, String fileName) {
+        if (BinaryDecoder.isHeaderless(type) && !isDeclared(fileName)) {
+            return NONE;
+        }
+        return detect(head, length);
+    }
+
+    /**
+     * @param fileName a file name, possibly {@code null}
+     * @return whether the file name ends with the extension of a compression format
+     */
+    public static boolean isDeclared(String fileName) {
+        if (fileName == null) {
+            return false;
+        }
+        String name = fileName.toLowerCase(Locale.ROOT);
+        return stripExtension(name).length() < name.length();
+    }
+
+    /**
+     * Wraps a stream so that compressed content is decompressed on the fly; uncompressed content
+     * is passed through unchanged.
+     *
+     * @param in       the raw stream
+     * @param type     the MIME content type of the (decompressed) content
+     * @param fileName the original file name, possibly {@code null}; see {@link #detect(byte[], int, String, String)}
+     * @return a stream of the decompressed content; closing it closes {@code in}
+     * @throws IOException              if reading the stream fails
+     * @throws IllegalArgumentException if compressed content is corrupt, also when it is read later
+     */
+    public static InputStream decompress(InputStream in, String type, String fileName) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        buffered.mark(MAGIC_LENGTH);
+        byte[] head = buffered.readNBytes(MAGIC_LENGTH);
+        buffered.reset();
+
+        try {
+            return switch (detect(head, head.length, type, fileName)) {
+                case NONE -> buffered;
+                case GZIP -> new DecompressingInputStream(new GZIPInputStream(buffered, BUFFER_SIZE));
+                case ZSTD -> new DecompressingInputStream(new ZstdInputStream(buffered));
+            };
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to decompress file", e);
+        }
+    }
+
+    /**
+     * Strips a compression extension such as {@code .gz} from a lower-case file name.
+     *
+     * @param fileName the file name, in lower case
+     * @return the name of the compressed file, or {@code fileName} if it has no compression extension
+     */
+    static String stripExtension(String fileName) {
+        for (Compression compression : values()) {
+            if (compression.extension != null && fileName.endsWith(compression.extension)) {
+                return fileName.substring(0, fileName.length() - compression.extension.length());
+            }
+        }
+        return fileName;
+    }
+
+    /**
+     * Reports corrupt compressed content as invalid input rather than as an I/O failure.
+     */
+    private static final class DecompressingInputStream extends FilterInputStream {
+
+        DecompressingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Failed to decompress file", e);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Failed to decompress file", e);
+            }
+        }
+    }
+
+    private boolean matches(byte[] head, int length) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (head[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
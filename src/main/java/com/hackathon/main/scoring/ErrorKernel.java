@@ -0,0 +1,29 @@
+package com.hackathon.main.scoring;
+
+/**
+ * Bulk error reductions over {@code double[]} ranges used by the {@link StandardMetric} accumulators.
+ * <p>
+ * Every implementation must produce bit-for-bit the same result for the same input: values are
+ * accumulated into {@link #LANES} interleaved partial sums (element {@code i} of a range goes to
+ * lane {@code (i - from) % LANES}), the lanes are added up in order and the remaining tail
+ * elements are then added one by one.
+ */
+interface ErrorKernel {
+
+    int LANES = 8;
+
+    /**
+     * @return {@code Σ (actual[i] - predicted[i])²} over {@code from <= i < to}
+     */
+    double sumSquaredError(double[] actual, double[] predicted, int from, int to);
+
+    /**
+     * @return {@code Σ |actual[i] - predicted[i]|} over {@code from <= i < to}
+     */
+    double sumAbsoluteError(double[] actual, double[] predicted, int from, int to);
+
+    /**
+     * @return {@code Σ |actual[i] - predicted[i]| / max(|actual[i]|, floor)} over {@code from <= i < to}
+     */
+    double sumAbsolutePercentageError(double[] actual, double[] predicted, int from, int to, double floor);
+}
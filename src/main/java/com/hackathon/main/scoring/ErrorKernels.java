@@ -0,0 +1,79 @@
+package com.hackathon.main.scoring;
+
+/**
+ * Runtime switch between the vectorised and scalar {@link ErrorKernel}s.
+ * <p>
+ * {@link Mode#AUTO} uses the Vector API when the {@code jdk.incubator.vector} module is present
+ * (the JVM must be started with {@code --add-modules jdk.incubator.vector}) and the hardware has
+ * vectors of at least 256 bits, and falls back to the scalar kernel otherwise, e.g. on ARM NEON.
+ * Both kernels return bit-for-bit identical results.
+ */
+public final class ErrorKernels {
+
+    public enum Mode {
+        AUTO,
+        VECTOR,
+        SCALAR
+    }
+
+    private static volatile ErrorKernel kernel = resolve(Mode.AUTO);
+
+    private ErrorKernels() {
+    }
+
+    /**
+     * Selects the kernel used by all subsequent metric computations.
+     *
+     * @param mode the requested mode
+     * @throws IllegalStateException if {@link Mode#VECTOR} is requested but the Vector API is unavailable
+     */
+    public static void select(Mode mode) {
+        kernel = resolve(mode);
+    }
+
+    /**
+     * @return {@code true} if the Vector API kernel is currently in use
+     */
+    public static boolean isVectorized() {
+        return !(kernel instanceof ScalarErrorKernel);
+    }
+
+    /**
+     * @return {@code true} if the {@code jdk.incubator.vector} module is available to this JVM
+     */
+    public static boolean isVectorApiAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+    static ErrorKernel current() {
+        return kernel;
+    }
+
+    public static double sumSquaredError(double[] actual, double[] predicted, int from, int to) {
+        return kernel.sumSquaredError(actual, predicted, from, to);
+    }
+
+    public static double sumAbsoluteError(double[] actual, double[] predicted, int from, int to) {
+        return kernel.sumAbsoluteError(actual, predicted, from, to);
+    }
+
+    public static double sumAbsolutePercentageError(double[] actual, double[] predicted, int from, int to, double floor) {
+        return kernel.sumAbsolutePercentageError(actual, predicted, from, to, floor);
+    }
+
+    private static ErrorKernel resolve(Mode mode) {
+        return switch (mode) {
+            case SCALAR -> ScalarErrorKernel.INSTANCE;
+            case VECTOR -> {
+                if (!isVectorApiAvailable()) {
+                    throw new IllegalStateException("Vector kernels requested but jdk.incubator.vector is not available");
+                }
+                yield VectorErrorKernel.INSTANCE;
+            }
+            // VectorErrorKernel is only loaded once the module is known to be present
+            case AUTO -> isVectorApiAvailable() && VectorErrorKernel.isIntrinsic()
+                    ? VectorErrorKernel.INSTANCE
+                    : ScalarErrorKernel.INSTANCE;
+        };
+    }
+}
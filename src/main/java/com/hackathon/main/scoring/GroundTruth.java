@@ -0,0 +1,19 @@
+package com.hackathon.main.scoring;
+
+import com.hackathon.main.model.ScoreTransform;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Parsed correct solution of a task together with how submissions against it are scored and
+ * the {@link ParseBudget} they are parsed within. The values array is shared and must be
+ * treated as read-only.
+ */
+@Getter
+@AllArgsConstructor
+public class GroundTruth {
+    private final double[] values;
+    private final Metric metric;
+    private final ScoreTransform scoreTransform;
+    private final ParseBudget submissionBudget;
+}
@@ -0,0 +1,72 @@
+package com.hackathon.main.scoring;
+
+import com.hackathon.main.model.ScoreTransform;
+
+/**
+ * A scoring metric computed in a single streaming pass over (actual, predicted) value pairs.
+ * <p>
+ * Implementations hand out fresh {@link Accumulator}s; an accumulator consumes pairs one at a time
+ * (or in bulk through {@link Accumulator#acceptAll(double[], double[], int, int)}), can be merged
+ * with accumulators that consumed other parts of the data and finally yields the metric value.
+ * No intermediate lists are ever materialised, so any number of metrics can share one traversal,
+ * see {@link Metrics#evaluate(double[], double[], Metric...)}.
+ */
+public interface Metric {
+
+    /**
+     * @return a short, stable name of the metric, e.g. {@code RMSE}
+     */
+    String name();
+
+    /**
+     * @return a fresh accumulator that has not seen any values yet
+     */
+    Accumulator newAccumulator();
+
+    /**
+     * @return the transform turning this metric's value into a 0–100 score when a task does not define one
+     */
+    ScoreTransform defaultScoreTransform();
+
+    /**
+     * Mutable, single-threaded running state of a {@link Metric}.
+     */
+    interface Accumulator {
+
+        /**
+         * Consumes one pair of values.
+         *
+         * @param actual    the ground-truth value
+         * @param predicted the submitted value
+         */
+        void accept(double actual, double predicted);
+
+        /**
+         * Consumes the pairs {@code actual[i], predicted[i]} for {@code from <= i < to}.
+         * Implementations may override this with a tighter loop.
+         *
+         * @param actual    the ground-truth values
+         * @param predicted the submitted values
+         * @param from      the first index, inclusive
+         * @param to        the last index, exclusive
+         */
+        default void acceptAll(double[] actual, double[] predicted, int from, int to) {
+            for (int i = from; i < to; i++) {
+                accept(actual[i], predicted[i]);
+            }
+        }
+
+        /**
+         * Folds the state of another accumulator of the same metric into this one, as if this
+         * accumulator had also consumed the other one's values after its own.
+         *
+         * @param other an accumulator created by the same metric
+         */
+        void merge(Accumulator other);
+
+        /**
+         * @return the metric value over all consumed pairs; {@code NaN} if it is undefined
+         */
+        double result();
+    }
+}
@@ -0,0 +1,63 @@
+package com.hackathon.main.scoring;
+
+/**
+ * Helpers for running {@link Metric}s over primitive arrays.
+ */
+public final class Metrics {
+
+    private Metrics() {
+    }
+
+    /**
+     * Computes a single metric over two equally long arrays.
+     *
+     * @param metric    the metric to compute
+     * @param actual    the ground-truth values
+     * @param predicted the submitted values
+     * @return the metric value
+     * @throws IllegalArgumentException if the arrays have different lengths
+     */
+    public static double evaluate(Metric metric, double[] actual, double[] predicted) {
+        requireSameLength(actual, predicted);
+        Metric.Accumulator accumulator = metric.newAccumulator();
+        accumulator.acceptAll(actual, predicted, 0, actual.length);
+        return accumulator.result();
+    }
+
+    /**
+     * Computes several metrics in one traversal of two equally long arrays.
+     *
+     * @param actual    the ground-truth values
+     * @param predicted the submitted values
+     * @param metrics   the metrics to compute
+     * @return the metric values, in the order of {@code metrics}
+     * @throws IllegalArgumentException if the arrays have different lengths
+     */
+    public static double[] evaluate(double[] actual, double[] predicted, Metric... metrics) {
+        requireSameLength(actual, predicted);
+        Metric.Accumulator[] accumulators = new Metric.Accumulator[metrics.length];
+        for (int m = 0; m < metrics.length; m++) {
+            accumulators[m] = metrics[m].newAccumulator();
+        }
+
+        for (int i = 0; i < actual.length; i++) {
+            double a = actual[i];
+            double p = predicted[i];
+            for (Metric.Accumulator accumulator : accumulators) {
+                accumulator.accept(a, p);
+            }
+        }
+
+        double[] results = new double[metrics.length];
+        for (int m = 0; m < metrics.length; m++) {
+            results[m] = accumulators[m].result();
+        }
+        return results;
+    }
+
+    private static void requireSameLength(double[] actual, double[] predicted) {
+        if (actual.length != predicted.length) {
+            throw new IllegalArgumentException("Arrays must have the same length");
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.hackathon.main.scoring;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Incremental parser turning a numeric solution file (JSON array, CSV list or one of the binary
+ * formats) into a primitive {@code double[]}.
+ * <p>
+ * The parser is fed raw bytes as they arrive and never materialises the whole payload as a
+ * {@link String}: every value is parsed straight out of a small, reused token buffer and appended
+ * to a growable {@code double[]}. Its accepted inputs, results and error messages are those of the
+ * former {@code String.split(",")} + {@link Double#parseDouble(String)} implementation:
+ * <ul>
+ *     <li>{@code application/json} → content must start with {@code '['} and end with {@code ']'},
+ *     e.g. {@code [1.0, 2.5, 3]}</li>
+ *     <li>{@code text/csv} → content must contain at least one comma, e.g. {@code 1.0,2.5,3}</li>
+ * </ul>
+ * Trailing empty values (e.g. {@code 1,2,}) are ignored, empty values in the middle are rejected.
+ * <p>
+ * Binary payloads are decoded without any text handling by a {@link BinaryDecoder}:
+ * <ul>
+ *     <li>{@code application/x-npy} → a NumPy {@code .npy} file of {@code float32} or {@code float64}
+ *     values in either byte order; multi-dimensional arrays are flattened in C order</li>
+ *     <li>{@code application/x-float64-le} / {@code application/x-float32-le} → headerless
+ *     little-endian IEEE 754 values</li>
+ * </ul>
+ * Any of these may be gzip- or zstd-compressed; {@link #parse(InputStream, String)} and
+ * {@link #parse(byte[], String)} recognise the {@link Compression} by its magic number and
+ * decompress on the fly while parsing. Headerless binary values are only decompressed if the file
+ * name passed to {@link #parse(InputStream, String, String, ParseBudget)} or
+ * {@link #parse(byte[], String, String, ParseBudget)} has a compression extension, since raw
+ * values may start with the bytes of a magic number.
+ * <p>
+ * Submissions are parsed within a {@link ParseBudget}: every fed chunk is checked against its
+ * byte and time limits and every value against its value limit, so parsing aborts as soon as a
+ * limit is exceeded instead of after reading the whole file.
+ */
+public final class NumericParser {
+
+    public static final String JSON = "application/json";
+    public static final String CSV = "text/csv";
+    public static final String NPY = "application/x-npy";
+    public static final String FLOAT64_LE = "application/x-float64-le";
+    public static final String FLOAT32_LE = "application/x-float32-le";
+
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int FEED_SLICE_SIZE = 64 * 1024;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final boolean json;
+    private final BinaryDecoder binary;
+
+    private final ParseBudget budget;
+    private final long startNanos = System.nanoTime();
+    private long bytesFed;
+
+    private double[] values;
+    private int size;
+
+    private byte[] token = new byte[64];
+    private int tokenLength;
+
+    /** Number of zero-length values seen since the last non-empty one; dropped if nothing follows. */
+    private int pendingEmpty;
+
+    private int tokenCount;
+    private long bytesRead;
+    private int lastByte = -1;
+    private boolean sawComma;
+    private NumberFormatException failure;
+
+    private NumericParser(boolean json, int expectedSize, ParseBudget budget) {
+        this.json = json;
+        this.binary = null;
+        this.budget = budget;
+        this.values = new double[Math.max(expectedSize, 16)];
+    }
+
+    private NumericParser(BinaryDecoder binary, ParseBudget budget) {
+        this.json = false;
+        this.binary = binary;
+        this.budget = budget;
+    }
+
+    /**
+     * Creates a parser for the given MIME content type.
+     *
+     * @param type         the MIME content type of the file (e.g. {@code application/json}, {@code text/csv},
+     *                     {@code application/x-npy})
+     * @param expectedSize a capacity hint, e.g. the length of the ground truth; {@code 0} if unknown
+     * @param budget       the limits to enforce while parsing
+     * @return a fresh parser
+     * @throws IllegalArgumentException if the type is unsupported
+     */
+    public static NumericParser forType(String type, int expectedSize, ParseBudget budget) {
+        if (JSON.equals(type)) {
+            return new NumericParser(true, expectedSize, budget);
+        }
+        if (CSV.equals(type)) {
+            return new NumericParser(false, expectedSize, budget);
+        }
+        if (BinaryDecoder.isBinary(type)) {
+            return new NumericParser(BinaryDecoder.forType(type, expectedSize, budget), budget);
+        }
+        throw new IllegalArgumentException("Unsupported file type: " + type);
+    }
+
+    /**
+     * Parses a whole stream in one call, decompressing it first if it is compressed.
+     *
+     * @param in   the stream to read; it is closed once read, which releases any decompressor
+     * @param type the MIME content type of the (decompressed) stream
+     * @return the parsed values
+     * @throws IOException              if reading the stream fails
+     * @throws IllegalArgumentException if the format is invalid, the type is unsupported or
+     *                                  compressed content is corrupt
+     */
+    public static double[] parse(InputStream in, String type) throws IOException {
+        return parse(in, type, ParseBudget.UNLIMITED);
+    }
+
+    /**
+     * Parses a whole stream in one call within a budget, decompressing it first if it is compressed.
+     *
+     * @param in     the stream to read; it is closed once read, which releases any decompressor
+     * @param type   the MIME content type of the (decompressed) stream
+     * @param budget the limits to enforce; the byte limit applies to the decompressed content
+     * @return the parsed values
+     * @throws IOException              if reading the stream fails
+     * @throws IllegalArgumentException if the format is invalid, the type is unsupported,
+     *                                  compressed content is corrupt or a limit is exceeded
+     */
+    public static double[] parse(InputStream in, String type, ParseBudget budget) throws IOException {
+        return parse(in, type, null, budget);
+    }
+
+    /**
+     * Parses a whole stream of a named file in one call within a budget, decompressing it first if
+     * it is compressed.
+     *
+     * @param in       the stream to read; it is closed once read, which releases any decompressor
+     * @param type     the MIME content type of the (decompressed) stream
+     * @param fileName the original file name, possibly {@code null}; headerless binary content is
+     *                 only decompressed if it has a compression extension
+     * @param budget   the limits to enforce; the byte limit applies to the decompressed content
+     * @return the parsed values
+     * @throws IOException              if reading the stream fails
+     * @throws IllegalArgumentException if the format is invalid, the type is unsupported,
+     *                                  compressed content is corrupt or a limit is exceeded
+     */
+    public static double[] parse(InputStream in, String type, String fileName, ParseBudget budget) throws IOException {
+        NumericParser parser = forType(type, INITIAL_CAPACITY, budget);
+        try (InputStream source = Compression.decompress(in, type, fileName)) {
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int n;
+            while ((n = source.read(buffer)) != -1) {
+                parser.feed(buffer, 0, n);
+            }
+        }
+        return parser.finish();
+    }
+
+    /**
+     * Parses an in-memory payload, decompressing it on the fly if it is compressed.
+     *
+     * @param bytes the raw file content
+     * @param type  the MIME content type of the (decompressed) content
+     * @return the parsed values
+     * @throws IllegalArgumentException if the format is invalid, the type is unsupported or
+     *                                  compressed content is corrupt
+     */
+    public static double[] parse(byte[] bytes, String type) {
+        return parse(bytes, type, ParseBudget.UNLIMITED);
+    }
+
+    /**
+     * Parses an in-memory payload within a budget, decompressing it on the fly if it is compressed.
+     *
+     * @param bytes  the raw file content
+     * @param type   the MIME content type of the (decompressed) content
+     * @param budget the limits to enforce; the byte limit applies to the decompressed content
+     * @return the parsed values
+     * @throws IllegalArgumentException if the format is invalid, the type is unsupported,
+     *                                  compressed content is corrupt or a limit is exceeded
+     */
+    public static double[] parse(byte[] bytes, String type, ParseBudget budget) {
+        return parse(bytes, type, null, budget);
+    }
+
+    /**
+     * Parses an in-memory payload of a named file within a budget, decompressing it on the fly if
+     * it is compressed.
+     *
+     * @param bytes    the raw file content
+     * @param type     the MIME content type of the (decompressed) content
+     * @param fileName the original file name, possibly {@code null}; headerless binary content is
+     *                 only decompressed if it has a compression extension
+     * @param budget   the limits to enforce; the byte limit applies to the decompressed content
+     * @return the parsed values
+     * @throws IllegalArgumentException if the format is invalid, the type is unsupported,
+     *                                  compressed content is corrupt or a limit is exceeded
+     */
+    public static double[] parse(byte[] bytes, String type, String fileName, ParseBudget budget) {
+        if (Compression.detect(bytes, bytes.length, type, fileName) != Compression.NONE) {
+            try {
+                return parse(new ByteArrayInputStream(bytes), type, fileName, budget);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        NumericParser parser = forType(type, INITIAL_CAPACITY, budget);
+        // Fed in slices so the budget is checked while parsing, not only after the whole payload.
+        for (int off = 0; off < bytes.length; off += FEED_SLICE_SIZE) {
+            parser.feed(bytes, off, Math.min(FEED_SLICE_SIZE, bytes.length - off));
+        }
+        return parser.finish();
+    }
+
+    /**
+     * Consumes the next chunk of the file.
+     *
+     * @param buf the buffer holding the chunk
+     * @param off offset of the first byte
+     * @param len number of bytes to consume
+     * @throws IllegalArgumentException if a JSON payload does not start with {@code '['}, an
+     *                                  {@code .npy} header is invalid or a limit of the budget is exceeded
+     */
+    public void feed(byte[] buf, int off, int len) {
+        if (len <= 0) {
+            return;
+        }
+        bytesFed += len;
+        budget.checkBytes(bytesFed);
+        budget.checkTime(startNanos);
+        if (binary != null) {
+            binary.feed(buf, off, len);
+            return;
+        }
+        int i = off;
+        int end = off + len;
+        if (bytesRead == 0 && json) {
+            if (buf[i] != '[') {
+                throw new IllegalArgumentException("Invalid JSON array format");
+            }
+            i++;
+        }
+        bytesRead += len;
+        lastByte = buf[end - 1] & 0xFF;
+
+        for (; i < end; i++) {
+            byte b = buf[i];
+            if (b == ',') {
+                sawComma = true;
+                endToken(false);
+            } else {
+                appendToToken(b);
+            }
+        }
+    }
+
+    /**
+     * Completes parsing once the whole file has been fed.
+     *
+     * @return the parsed values, trimmed to their exact length
+     * @throws IllegalArgumentException if the format is invalid or a value cannot be parsed
+     */
+    public double[] finish() {
+        if (binary != null) {
+            return binary.finish();
+        }
+        if (json) {
+            if (lastByte != ']') {
+                throw new IllegalArgumentException("Invalid JSON array format");
+            }
+            // The closing bracket is the last byte and was buffered as part of the final token.
+            if (tokenLength > 0) {
+                tokenLength--;
+            }
+        } else if (!sawComma) {
+            throw new IllegalArgumentException("Invalid CSV array format");
+        }
+        endToken(true);
+
+        if (failure != null) {
+            throw new IllegalArgumentException(json ? "Failed to parse JSON array" : "Failed to parse CSV array", failure);
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * @return the number of values parsed so far
+     */
+    public int size() {
+        return binary != null ? binary.size() : size;
+    }
+
+    /**
+     * Resolves the format of an uploaded file. Browsers send no specific content type for binary
+     * files (or for CSV on some platforms), so unsupported types fall back to the file extension:
+     * {@code .json}, {@code .csv}, {@code .npy}, {@code .f64} and {@code .f32}.
+     *
+     * @param contentType the content type sent with the file, possibly {@code null}
+     * @param fileName    the original file name, possibly {@code null}
+     * @return a supported content type, or {@code contentType} unchanged if none applies
+     */
+    public static String resolveType(String contentType, String fileName) {
+        if (JSON.equals(contentType) || CSV.equals(contentType) || BinaryDecoder.isBinary(contentType)
+                || fileName == null) {
+            return contentType;
+        }
+        String name = Compression.stripExtension(fileName.toLowerCase(Locale.ROOT));
+        if (name.endsWith(".json")) return JSON;
+        if (name.endsWith(".csv")) return CSV;
+        if (name.endsWith(".npy")) return NPY;
+        if (name.endsWith(".f64")) return FLOAT64_LE;
+        if (name.endsWith(".f32")) return FLOAT32_LE;
+        return contentType;
+    }
+
+    private void appendToToken(byte b) {
+        if (failure != null) {
+            return;
+        }
+        if (tokenLength == token.length) {
+            token = Arrays.copyOf(token, token.length * 2);
+        }
+        token[tokenLength++] = b;
+    }
+
+    private void endToken(boolean last) {
+        int length = tokenLength;
+        tokenLength = 0;
+        if (failure != null) {
+            return;
+        }
+
+        // A JSON array body is trimmed before splitting, so a blank first or last value counts as empty.
+        boolean edge = tokenCount++ == 0 || last;
+        boolean empty = length == 0 || (edge && json && isBlank(token, length));
+        if (empty) {
+            pendingEmpty++;
+            return;
+        }
+        if (pendingEmpty > 0) {
+            failure = new NumberFormatException("empty String");
+            return;
+        }
+
+        try {
+            add(parseDouble(token, 0, length));
+        } catch (NumberFormatException e) {
+            failure = e;
+        }
+    }
+
+    private void add(double value) {
+        budget.checkValues(size + 1L);
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length + (values.length >> 1));
+        }
+        values[size++] = value;
+    }
+
+    private static boolean isBlank(byte[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if ((b[i] & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Parses a decimal number from ASCII bytes.
+     * <p>
+     * Plain decimals whose significand fits in 53 bits and whose decimal exponent is at most 22 in
+     * magnitude are computed exactly with a single multiplication or division (Clinger's fast path),
+     * which yields the same correctly rounded value as {@link Double#parseDouble(String)}. Everything
+     * else (long significands, large exponents, {@code NaN}, hex literals, ...) is delegated to
+     * {@link Double#parseDouble(String)} itself, so results are always identical.
+     *
+     * @param b   the buffer
+     * @param off offset of the first byte
+     * @param len number of bytes, surrounding whitespace allowed
+     * @return the parsed value
+     * @throws NumberFormatException if the bytes are not a valid number
+     */
+    static double parseDouble(byte[] b, int off, int len) {
+        int i = off;
+        int end = off + len;
+        while (i < end && (b[i] & 0xFF) <= ' ') i++;
+        while (end > i && (b[end - 1] & 0xFF) <= ' ') end--;
+
+        int start = i;
+        boolean negative = false;
+        if (i < end && (b[i] == '-' || b[i] == '+')) {
+            negative = b[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+
+        while (i < end && b[i] >= '0' && b[i] <= '9') {
+            anyDigit = true;
+            if (mantissa != 0 || b[i] != '0') {
+                if (++digits > 18) return slowParse(b, start, end);
+                mantissa = mantissa * 10 + (b[i] - '0');
+            }
+            i++;
+        }
+        if (i < end && b[i] == '.') {
+            i++;
+            while (i < end && b[i] >= '0' && b[i] <= '9') {
+                anyDigit = true;
+                if (mantissa != 0 || b[i] != '0') {
+                    if (++digits > 18) return slowParse(b, start, end);
+                    mantissa = mantissa * 10 + (b[i] - '0');
+                }
+                exponent--;
+                i++;
+            }
+        }
+        if (!anyDigit) {
+            return slowParse(b, start, end);
+        }
+        if (i < end && (b[i] == 'e' || b[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (b[i] == '-' || b[i] == '+')) {
+                negativeExponent = b[i] == '-';
+                i++;
+            }
+            int explicit = 0;
+            int expDigits = 0;
+            while (i < end && b[i] >= '0' && b[i] <= '9') {
+                if (++expDigits > 4) return slowParse(b, start, end);
+                explicit = explicit * 10 + (b[i] - '0');
+                i++;
+            }
+            if (expDigits == 0) {
+                return slowParse(b, start, end);
+            }
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+        if (i != end) {
+            return slowParse(b, start, end);
+        }
+
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (mantissa > (1L << 53) || exponent < -22 || exponent > 22) {
+            return slowParse(b, start, end);
+        } else if (exponent < 0) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        }
+        return negative ? -value : value;
+    }
+
+    private static double slowParse(byte[] b, int start, int end) {
+        return Double.parseDouble(new String(b, start, end - start, StandardCharsets.ISO_8859_1));
+    }
+}
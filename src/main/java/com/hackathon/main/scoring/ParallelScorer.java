@@ -0,0 +1,400 @@
+package com.hackathon.main.scoring;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Parses a large in-memory submission and reduces it against a ground truth on a {@link ForkJoinPool}.
+ * <p>
+ * The payload is cut into chunks that start right after a comma, so every chunk holds whole
+ * values. A first parallel pass counts the commas of each chunk, which gives the index of the
+ * first value in every chunk. A second parallel pass parses each chunk straight into a partial
+ * {@link Metric.Accumulator} against the matching slice of the ground truth; the partials are then
+ * merged left to right. No array of the submitted values is ever built.
+ * <p>
+ * Binary payloads need no parsing: their values are read in parallel straight from typed views of
+ * the buffer.
+ * <p>
+ * Accepted inputs and error messages are those of {@link NumericParser}. A {@link ParseBudget} is
+ * enforced as well: the byte limit up front, the value and time limits while chunks are reduced.
+ * The first chunk to exceed a limit makes all others stop early.
+ */
+public final class ParallelScorer {
+
+    private static final int MIN_CHUNK_SIZE = 256 * 1024;
+    private static final int BLOCK_SIZE = 1024;
+
+    private final ForkJoinPool pool;
+    private final int minChunkSize;
+
+    public ParallelScorer(ForkJoinPool pool) {
+        this(pool, MIN_CHUNK_SIZE);
+    }
+
+    ParallelScorer(ForkJoinPool pool, int minChunkSize) {
+        this.pool = pool;
+        this.minChunkSize = minChunkSize;
+    }
+
+    /**
+     * Result of a parallel reduction.
+     *
+     * @param count       the number of values in the submission
+     * @param accumulator the merged accumulator; only meaningful if {@code count} equals the ground-truth length
+     */
+    public record Result(long count, Metric.Accumulator accumulator) {
+    }
+
+    /**
+     * Parses and reduces a submission.
+     *
+     * @param data        the submission; read with absolute gets between its position and limit
+     * @param type        the MIME content type of the submission
+     * @param groundTruth the parsed correct values
+     * @param metric      the metric to accumulate
+     * @return the number of submitted values and the merged accumulator
+     * @throws IllegalArgumentException if the format is invalid or the type is unsupported
+     */
+    public Result score(ByteBuffer data, String type, double[] groundTruth, Metric metric) {
+        return score(data, type, groundTruth, metric, ParseBudget.UNLIMITED);
+    }
+
+    /**
+     * Parses and reduces a submission within a budget.
+     *
+     * @param data        the submission; read with absolute gets between its position and limit
+     * @param type        the MIME content type of the submission
+     * @param groundTruth the parsed correct values
+     * @param metric      the metric to accumulate
+     * @param budget      the limits to enforce
+     * @return the number of submitted values and the merged accumulator
+     * @throws IllegalArgumentException if the format is invalid, the type is unsupported or a limit is exceeded
+     */
+    public Result score(ByteBuffer data, String type, double[] groundTruth, Metric metric, ParseBudget budget) {
+        budget.checkBytes(data.remaining());
+        if (BinaryDecoder.isBinary(type)) {
+            return scoreBinary(data, type, groundTruth, metric, budget);
+        }
+        boolean json;
+        if (NumericParser.JSON.equals(type)) {
+            json = true;
+        } else if (NumericParser.CSV.equals(type)) {
+            json = false;
+        } else {
+            throw new IllegalArgumentException("Unsupported file type: " + type);
+        }
+
+        long startNanos = System.nanoTime();
+        int start = data.position();
+        int end = data.limit();
+        if (json) {
+            if (end - start < 2 || data.get(start) != '[' || data.get(end - 1) != ']') {
+                throw new IllegalArgumentException("Invalid JSON array format");
+            }
+            start++;
+            end--;
+        }
+
+        int[] bounds = chunkBounds(data, start, end);
+        int chunks = bounds.length - 1;
+
+        long[] commas = new long[chunks];
+        pool.invoke(new CountTask(data, bounds, commas, 0, chunks));
+        long totalCommas = 0;
+        long[] firstToken = new long[chunks];
+        for (int c = 0; c < chunks; c++) {
+            firstToken[c] = totalCommas;
+            totalCommas += commas[c];
+        }
+        if (!json && totalCommas == 0) {
+            throw new IllegalArgumentException("Invalid CSV array format");
+        }
+
+        Context context = new Context(data, bounds, firstToken, totalCommas, json, groundTruth, metric,
+                budget, startNanos, new AtomicBoolean());
+        ChunkResult result = pool.invoke(new ReduceTask(context, 0, chunks));
+
+        if (result.abort != null) {
+            throw result.abort;
+        }
+        String failureMessage = json ? "Failed to parse JSON array" : "Failed to parse CSV array";
+        if (result.failure != null) {
+            throw new IllegalArgumentException(failureMessage, result.failure);
+        }
+        if (result.firstEmpty < result.lastNonEmpty) {
+            throw new IllegalArgumentException(failureMessage, new NumberFormatException("empty String"));
+        }
+        return new Result(result.lastNonEmpty + 1, result.accumulator);
+    }
+
+    private Result scoreBinary(ByteBuffer data, String type, double[] groundTruth, Metric metric, ParseBudget budget) {
+        BinaryDecoder.Layout layout = BinaryDecoder.layout(data, type);
+        int start = data.position() + layout.dataOffset();
+        int elementSize = layout.elementSize();
+        long count = BinaryDecoder.count(layout, data.limit() - start);
+        budget.checkValues(count);
+        if (count != groundTruth.length) {
+            return new Result(count, metric.newAccumulator());
+        }
+
+        ByteBuffer values = data.slice(start, (int) count * elementSize).order(layout.order());
+        int chunkSize = (int) Math.max(minChunkSize / elementSize, count / (pool.getParallelism() * 4L));
+        Metric.Accumulator accumulator = pool.invoke(
+                new BinaryReduceTask(values, elementSize, groundTruth, metric, chunkSize, 0, (int) count));
+        return new Result(count, accumulator);
+    }
+
+    /**
+     * Splits {@code [start, end)} into chunks whose inner boundaries sit right after a comma.
+     */
+    private int[] chunkBounds(ByteBuffer data, int start, int end) {
+        long length = end - start;
+        long target = Math.max(minChunkSize, length / (pool.getParallelism() * 4L));
+
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(start);
+        long next = start + target;
+        while (next < end) {
+            int i = (int) next;
+            while (i < end && data.get(i) != ',') i++;
+            if (i >= end - 1) {
+                break;
+            }
+            bounds.add(i + 1);
+            next = i + 1 + target;
+        }
+        bounds.add(end);
+        return bounds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private record Context(ByteBuffer data, int[] bounds, long[] firstToken, long lastToken, boolean json,
+                           double[] groundTruth, Metric metric,
+                           ParseBudget budget, long startNanos, AtomicBoolean aborted) {
+    }
+
+    private static final class CountTask extends RecursiveAction {
+        private final ByteBuffer data;
+        private final int[] bounds;
+        private final long[] counts;
+        private final int from;
+        private final int to;
+
+        CountTask(ByteBuffer data, int[] bounds, long[] counts, int from, int to) {
+            this.data = data;
+            this.bounds = bounds;
+            this.counts = counts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new CountTask(data, bounds, counts, from, mid), new CountTask(data, bounds, counts, mid, to));
+                return;
+            }
+            long n = 0;
+            for (int i = bounds[from], end = bounds[from + 1]; i < end; i++) {
+                if (data.get(i) == ',') n++;
+            }
+            counts[from] = n;
+        }
+    }
+
+    private static final class ReduceTask extends RecursiveTask<ChunkResult> {
+        private final Context context;
+        private final int from;
+        private final int to;
+
+        ReduceTask(Context context, int from, int to) {
+            this.context = context;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                ReduceTask left = new ReduceTask(context, from, mid);
+                left.fork();
+                ChunkResult right = new ReduceTask(context, mid, to).compute();
+                return left.join().merge(right);
+            }
+            return reduceChunk(context, from);
+        }
+    }
+
+    private static final class BinaryReduceTask extends RecursiveTask<Metric.Accumulator> {
+        private final ByteBuffer values;
+        private final int elementSize;
+        private final double[] groundTruth;
+        private final Metric metric;
+        private final int chunkSize;
+        private final int from;
+        private final int to;
+
+        BinaryReduceTask(ByteBuffer values, int elementSize, double[] groundTruth, Metric metric,
+                         int chunkSize, int from, int to) {
+            this.values = values;
+            this.elementSize = elementSize;
+            this.groundTruth = groundTruth;
+            this.metric = metric;
+            this.chunkSize = chunkSize;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Metric.Accumulator compute() {
+            if (to - from > chunkSize) {
+                int mid = (from + to) >>> 1;
+                BinaryReduceTask left = new BinaryReduceTask(values, elementSize, groundTruth, metric, chunkSize, from, mid);
+                left.fork();
+                Metric.Accumulator right = new BinaryReduceTask(values, elementSize, groundTruth, metric, chunkSize, mid, to).compute();
+                Metric.Accumulator result = left.join();
+                result.merge(right);
+                return result;
+            }
+
+            Metric.Accumulator accumulator = metric.newAccumulator();
+            double[] actualBlock = new double[BLOCK_SIZE];
+            double[] predictedBlock = new double[BLOCK_SIZE];
+            float[] floatBlock = elementSize == Float.BYTES ? new float[BLOCK_SIZE] : null;
+            for (int i = from; i < to; i += BLOCK_SIZE) {
+                int n = Math.min(BLOCK_SIZE, to - i);
+                System.arraycopy(groundTruth, i, actualBlock, 0, n);
+                if (floatBlock == null) {
+                    values.asDoubleBuffer().get(i, predictedBlock, 0, n);
+                } else {
+                    values.asFloatBuffer().get(i, floatBlock, 0, n);
+                    for (int j = 0; j < n; j++) {
+                        predictedBlock[j] = floatBlock[j];
+                    }
+                }
+                accumulator.acceptAll(actualBlock, predictedBlock, 0, n);
+            }
+            return accumulator;
+        }
+    }
+
+    private static ChunkResult reduceChunk(Context context, int chunk) {
+        ByteBuffer data = context.data;
+        double[] groundTruth = context.groundTruth;
+        ChunkResult result = new ChunkResult(context.metric.newAccumulator());
+
+        double[] actualBlock = new double[BLOCK_SIZE];
+        double[] predictedBlock = new double[BLOCK_SIZE];
+        int blockSize = 0;
+        byte[] token = new byte[64];
+
+        long tokenIndex = context.firstToken[chunk];
+        int i = context.bounds[chunk];
+        int end = context.bounds[chunk + 1];
+        while (i <= end) {
+            if (((tokenIndex - context.firstToken[chunk]) & (BLOCK_SIZE - 1)) == 0) {
+                if (context.aborted.get()) {
+                    return result;
+                }
+                try {
+                    context.budget.checkTime(context.startNanos);
+                } catch (IllegalArgumentException e) {
+                    return abort(context, result, e);
+                }
+            }
+            int tokenStart = i;
+            while (i < end && data.get(i) != ',') i++;
+            if (i == end && chunk < context.bounds.length - 2) {
+                // Inner chunks end right after a comma: the next token belongs to the next chunk.
+                break;
+            }
+            int length = i - tokenStart;
+
+            if (length > token.length) {
+                token = new byte[Math.max(length, token.length * 2)];
+            }
+            data.get(tokenStart, token, 0, length);
+
+            boolean edge = tokenIndex == 0 || tokenIndex == context.lastToken;
+            boolean empty = length == 0 || (edge && context.json && isBlank(token, length));
+            if (empty) {
+                result.firstEmpty = Math.min(result.firstEmpty, tokenIndex);
+            } else {
+                double value;
+                try {
+                    value = NumericParser.parseDouble(token, 0, length);
+                } catch (NumberFormatException e) {
+                    result.failure = e;
+                    return result;
+                }
+                if (tokenIndex >= context.budget.maxValues()) {
+                    try {
+                        context.budget.checkValues(tokenIndex + 1);
+                    } catch (IllegalArgumentException e) {
+                        return abort(context, result, e);
+                    }
+                }
+                result.lastNonEmpty = tokenIndex;
+                if (tokenIndex < groundTruth.length) {
+                    actualBlock[blockSize] = groundTruth[(int) tokenIndex];
+                    predictedBlock[blockSize] = value;
+                    if (++blockSize == BLOCK_SIZE) {
+                        result.accumulator.acceptAll(actualBlock, predictedBlock, 0, blockSize);
+                        blockSize = 0;
+                    }
+                }
+            }
+
+            tokenIndex++;
+            i++;
+        }
+        result.accumulator.acceptAll(actualBlock, predictedBlock, 0, blockSize);
+        return result;
+    }
+
+    private static ChunkResult abort(Context context, ChunkResult result, IllegalArgumentException e) {
+        context.aborted.set(true);
+        result.abort = e;
+        return result;
+    }
+
+    private static boolean isBlank(byte[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if ((b[i] & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class ChunkResult {
+        final Metric.Accumulator accumulator;
+        long firstEmpty = Long.MAX_VALUE;
+        long lastNonEmpty = -1;
+        NumberFormatException failure;
+        IllegalArgumentException abort;
+
+        ChunkResult(Metric.Accumulator accumulator) {
+            this.accumulator = accumulator;
+        }
+
+        ChunkResult merge(ChunkResult right) {
+            if (failure == null) {
+                failure = right.failure;
+            }
+            if (abort == null) {
+                abort = right.abort;
+            }
+            firstEmpty = Math.min(firstEmpty, right.firstEmpty);
+            lastNonEmpty = Math.max(lastNonEmpty, right.lastNonEmpty);
+            accumulator.merge(right.accumulator);
+            return this;
+        }
+    }
+}
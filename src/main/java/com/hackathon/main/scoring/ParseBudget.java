@@ -0,0 +1,59 @@
+package com.hackathon.main.scoring;
+
+import java.time.Duration;
+
+/**
+ * Limits on parsing a single submission: the number of (decompressed) bytes, the number of values
+ * and the time spent. Parsers check them while they go and abort as soon as one is exceeded, so an
+ * oversized or malformed submission costs no more than the limits allow.
+ *
+ * @param maxBytes  the maximum number of content bytes, after decompression
+ * @param maxValues the maximum number of values, usually the length of the correct solution
+ * @param maxNanos  the maximum parse time in nanoseconds
+ */
+public record ParseBudget(long maxBytes, int maxValues, long maxNanos) {
+
+    public static final ParseBudget UNLIMITED = new ParseBudget(Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    /**
+     * @param maxBytes  the maximum number of content bytes, after decompression
+     * @param maxValues the maximum number of values
+     * @param maxTime   the maximum parse time
+     * @return a budget with these limits
+     */
+    public static ParseBudget of(long maxBytes, int maxValues, Duration maxTime) {
+        return new ParseBudget(maxBytes, maxValues, maxTime.toNanos());
+    }
+
+    /**
+     * @param bytes the number of bytes seen so far
+     * @throws IllegalArgumentException if it exceeds {@link #maxBytes()}
+     */
+    public void checkBytes(long bytes) {
+        if (bytes > maxBytes) {
+            throw new IllegalArgumentException("Submission exceeds the size limit of " + maxBytes + " bytes");
+        }
+    }
+
+    /**
+     * @param values the number of values seen so far
+     * @throws IllegalArgumentException if it exceeds {@link #maxValues()}, with the message of a
+     *                                  length mismatch against the correct solution
+     */
+    public void checkValues(long values) {
+        if (values > maxValues) {
+            throw new IllegalArgumentException("Correct and submitted solution arrays must have the same length");
+        }
+    }
+
+    /**
+     * @param startNanos the {@link System#nanoTime()} at which parsing started
+     * @throws IllegalArgumentException if more than {@link #maxNanos()} have passed since
+     */
+    public void checkTime(long startNanos) {
+        if (maxNanos != Long.MAX_VALUE && System.nanoTime() - startNanos > maxNanos) {
+            throw new IllegalArgumentException(
+                    "Parsing the submission exceeded the time limit of " + maxNanos / 1_000_000 + " ms");
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.hackathon.main.scoring;
+
+/**
+ * Plain Java {@link ErrorKernel} that reproduces the lane layout of {@link VectorErrorKernel}
+ * with scalar arithmetic, so both return identical results.
+ */
+final class ScalarErrorKernel implements ErrorKernel {
+
+    static final ScalarErrorKernel INSTANCE = new ScalarErrorKernel();
+
+    private ScalarErrorKernel() {
+    }
+
+    @Override
+    public double sumSquaredError(double[] actual, double[] predicted, int from, int to) {
+        double[] lanes = new double[LANES];
+        int i = from;
+        for (int upper = from + ((to - from) / LANES) * LANES; i < upper; i += LANES) {
+            for (int l = 0; l < LANES; l++) {
+                double diff = actual[i + l] - predicted[i + l];
+                lanes[l] += diff * diff;
+            }
+        }
+        double sum = addLanes(lanes);
+        for (; i < to; i++) {
+            double diff = actual[i] - predicted[i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    public double sumAbsoluteError(double[] actual, double[] predicted, int from, int to) {
+        double[] lanes = new double[LANES];
+        int i = from;
+        for (int upper = from + ((to - from) / LANES) * LANES; i < upper; i += LANES) {
+            for (int l = 0; l < LANES; l++) {
+                lanes[l] += Math.abs(actual[i + l] - predicted[i + l]);
+            }
+        }
+        double sum = addLanes(lanes);
+        for (; i < to; i++) {
+            sum += Math.abs(actual[i] - predicted[i]);
+        }
+        return sum;
+    }
+
+    @Override
+    public double sumAbsolutePercentageError(double[] actual, double[] predicted, int from, int to, double floor) {
+        double[] lanes = new double[LANES];
+        int i = from;
+        for (int upper = from + ((to - from) / LANES) * LANES; i < upper; i += LANES) {
+            for (int l = 0; l < LANES; l++) {
+                lanes[l] += Math.abs(actual[i + l] - predicted[i + l]) / Math.max(Math.abs(actual[i + l]), floor);
+            }
+        }
+        double sum = addLanes(lanes);
+        for (; i < to; i++) {
+            sum += Math.abs(actual[i] - predicted[i]) / Math.max(Math.abs(actual[i]), floor);
+        }
+        return sum;
+    }
+
+    static double addLanes(double[] lanes) {
+        double sum = 0.0;
+        for (double lane : lanes) {
+            sum += lane;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,204 @@
+package com.hackathon.main.scoring;
+
+import com.hackathon.main.model.ScoreTransform;
+
+/**
+ * The built-in {@link Metric}s a task can be scored with.
+ * <p>
+ * All accumulators keep O(1) state and are mergeable, so a metric can be computed over chunks of
+ * the data and the partial results combined. The error-based metrics consume bulk ranges through
+ * the {@link ErrorKernels}, which may be vectorised.
+ */
+public enum StandardMetric implements Metric {
+
+    /** Root mean squared error; scored as {@code 100 - 3 * rmse}. */
+    RMSE(new ScoreTransform(100, -3)) {
+        @Override
+        public Accumulator newAccumulator() {
+            return new SumAccumulator() {
+                @Override
+                public void accept(double actual, double predicted) {
+                    double diff = actual - predicted;
+                    sum += diff * diff;
+                    count++;
+                }
+
+                @Override
+                public void acceptAll(double[] actual, double[] predicted, int from, int to) {
+                    sum += ErrorKernels.sumSquaredError(actual, predicted, from, to);
+                    count += to - from;
+                }
+
+                @Override
+                public double result() {
+                    return Math.sqrt(sum / count);
+                }
+            };
+        }
+    },
+
+    /** Mean absolute error; scored as {@code 100 - 3 * mae}. */
+    MAE(new ScoreTransform(100, -3)) {
+        @Override
+        public Accumulator newAccumulator() {
+            return new SumAccumulator() {
+                @Override
+                public void accept(double actual, double predicted) {
+                    sum += Math.abs(actual - predicted);
+                    count++;
+                }
+
+                @Override
+                public void acceptAll(double[] actual, double[] predicted, int from, int to) {
+                    sum += ErrorKernels.sumAbsoluteError(actual, predicted, from, to);
+                    count += to - from;
+                }
+            };
+        }
+    },
+
+    /**
+     * Mean absolute percentage error as a fraction, with the denominator bounded below by
+     * {@link Math#ulp(double) ulp(1.0)} so zero actual values do not divide by zero;
+     * scored as {@code 100 - 100 * mape}.
+     */
+    MAPE(new ScoreTransform(100, -100)) {
+        @Override
+        public Accumulator newAccumulator() {
+            return new SumAccumulator() {
+                @Override
+                public void accept(double actual, double predicted) {
+                    sum += Math.abs(actual - predicted) / Math.max(Math.abs(actual), EPSILON);
+                    count++;
+                }
+
+                @Override
+                public void acceptAll(double[] actual, double[] predicted, int from, int to) {
+                    sum += ErrorKernels.sumAbsolutePercentageError(actual, predicted, from, to, EPSILON);
+                    count += to - from;
+                }
+            };
+        }
+    },
+
+    /**
+     * Coefficient of determination. The variance of the actual values is accumulated with
+     * Welford's algorithm so it needs no second pass; scored as {@code 100 * r2}.
+     */
+    R2(new ScoreTransform(0, 100)) {
+        @Override
+        public Accumulator newAccumulator() {
+            return new R2Accumulator();
+        }
+    },
+
+    /** Fraction of exactly matching values; scored as {@code 100 * accuracy}. */
+    ACCURACY(new ScoreTransform(0, 100)) {
+        @Override
+        public Accumulator newAccumulator() {
+            return new SumAccumulator() {
+                @Override
+                public void accept(double actual, double predicted) {
+                    if (actual == predicted) {
+                        sum++;
+                    }
+                    count++;
+                }
+            };
+        }
+    },
+
+    /**
+     * Binary cross-entropy of predicted probabilities against 0/1 labels, with probabilities
+     * clipped to {@code [1e-15, 1 - 1e-15]}; scored as {@code 100 - 100 * logLoss}.
+     */
+    LOG_LOSS(new ScoreTransform(100, -100)) {
+        @Override
+        public Accumulator newAccumulator() {
+            return new SumAccumulator() {
+                @Override
+                public void accept(double actual, double predicted) {
+                    double p = Math.min(1 - PROBABILITY_CLIP, Math.max(PROBABILITY_CLIP, predicted));
+                    sum -= actual * Math.log(p) + (1 - actual) * Math.log(1 - p);
+                    count++;
+                }
+            };
+        }
+    };
+
+    private static final double EPSILON = Math.ulp(1.0);
+    private static final double PROBABILITY_CLIP = 1e-15;
+
+    private final ScoreTransform defaultScoreTransform;
+
+    StandardMetric(ScoreTransform defaultScoreTransform) {
+        this.defaultScoreTransform = defaultScoreTransform;
+    }
+
+    @Override
+    public ScoreTransform defaultScoreTransform() {
+        return new ScoreTransform(defaultScoreTransform.getOffset(), defaultScoreTransform.getScale());
+    }
+
+    /**
+     * Accumulator of a running sum and count whose result is their mean unless overridden.
+     */
+    private abstract static class SumAccumulator implements Accumulator {
+        double sum;
+        long count;
+
+        @Override
+        public void merge(Accumulator other) {
+            SumAccumulator o = (SumAccumulator) other;
+            sum += o.sum;
+            count += o.count;
+        }
+
+        @Override
+        public double result() {
+            return sum / count;
+        }
+    }
+
+    private static final class R2Accumulator implements Accumulator {
+        private long count;
+        private double mean;
+        private double m2;
+        private double squaredError;
+
+        @Override
+        public void accept(double actual, double predicted) {
+            count++;
+            double delta = actual - mean;
+            mean += delta / count;
+            m2 += delta * (actual - mean);
+            double diff = actual - predicted;
+            squaredError += diff * diff;
+        }
+
+        @Override
+        public void merge(Accumulator other) {
+            R2Accumulator o = (R2Accumulator) other;
+            if (o.count == 0) {
+                return;
+            }
+            long total = count + o.count;
+            double delta = o.mean - mean;
+            m2 += o.m2 + delta * delta * count * o.count / total;
+            mean += delta * o.count / total;
+            count = total;
+            squaredError += o.squaredError;
+        }
+
+        @Override
+        public double result() {
+            if (count == 0) {
+                return Double.NaN;
+            }
+            if (m2 == 0) {
+                return squaredError == 0 ? 1.0 : 0.0;
+            }
+            return 1 - squaredError / m2;
+        }
+    }
+}
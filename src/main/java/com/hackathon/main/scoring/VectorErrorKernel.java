@@ -0,0 +1,105 @@
+package com.hackathon.main.scoring;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ErrorKernel} built on the JDK Vector API.
+ * <p>
+ * The {@link ErrorKernel#LANES} partial sums are held in two 4-lane (256-bit) vectors, which keeps
+ * two independent add chains in flight. The 256-bit species is only compiled to SIMD instructions
+ * where the hardware has vectors at least that wide (AVX2 or AVX-512); on 128-bit NEON or SSE it
+ * falls back to a path far slower than {@link ScalarErrorKernel}, see {@link #isIntrinsic()}.
+ * Lanes are combined with {@link ScalarErrorKernel#addLanes(double[])} instead of
+ * {@code reduceLanes}, whose order is unspecified, so results match {@link ScalarErrorKernel}
+ * exactly.
+ * <p>
+ * Only load this class after checking that the {@code jdk.incubator.vector} module is present.
+ */
+final class VectorErrorKernel implements ErrorKernel {
+
+    static final VectorErrorKernel INSTANCE = new VectorErrorKernel();
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_256;
+    private static final int WIDTH = SPECIES.length();
+
+    private VectorErrorKernel() {
+    }
+
+    /**
+     * @return {@code true} if the hardware's preferred vectors are wide enough for the 256-bit
+     * species of this kernel to be compiled to SIMD instructions
+     */
+    static boolean isIntrinsic() {
+        return DoubleVector.SPECIES_PREFERRED.vectorBitSize() >= SPECIES.vectorBitSize();
+    }
+
+    @Override
+    public double sumSquaredError(double[] actual, double[] predicted, int from, int to) {
+        DoubleVector low = DoubleVector.zero(SPECIES);
+        DoubleVector high = DoubleVector.zero(SPECIES);
+        int i = from;
+        for (int upper = from + ((to - from) / LANES) * LANES; i < upper; i += LANES) {
+            DoubleVector d0 = DoubleVector.fromArray(SPECIES, actual, i).sub(DoubleVector.fromArray(SPECIES, predicted, i));
+            DoubleVector d1 = DoubleVector.fromArray(SPECIES, actual, i + WIDTH).sub(DoubleVector.fromArray(SPECIES, predicted, i + WIDTH));
+            low = low.add(d0.mul(d0));
+            high = high.add(d1.mul(d1));
+        }
+        double sum = addLanes(low, high);
+        for (; i < to; i++) {
+            double diff = actual[i] - predicted[i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    public double sumAbsoluteError(double[] actual, double[] predicted, int from, int to) {
+        DoubleVector low = DoubleVector.zero(SPECIES);
+        DoubleVector high = DoubleVector.zero(SPECIES);
+        int i = from;
+        for (int upper = from + ((to - from) / LANES) * LANES; i < upper; i += LANES) {
+            low = low.add(DoubleVector.fromArray(SPECIES, actual, i)
+                    .sub(DoubleVector.fromArray(SPECIES, predicted, i))
+                    .lanewise(VectorOperators.ABS));
+            high = high.add(DoubleVector.fromArray(SPECIES, actual, i + WIDTH)
+                    .sub(DoubleVector.fromArray(SPECIES, predicted, i + WIDTH))
+                    .lanewise(VectorOperators.ABS));
+        }
+        double sum = addLanes(low, high);
+        for (; i < to; i++) {
+            sum += Math.abs(actual[i] - predicted[i]);
+        }
+        return sum;
+    }
+
+    @Override
+    public double sumAbsolutePercentageError(double[] actual, double[] predicted, int from, int to, double floor) {
+        DoubleVector low = DoubleVector.zero(SPECIES);
+        DoubleVector high = DoubleVector.zero(SPECIES);
+        int i = from;
+        for (int upper = from + ((to - from) / LANES) * LANES; i < upper; i += LANES) {
+            low = low.add(percentageError(actual, predicted, i, floor));
+            high = high.add(percentageError(actual, predicted, i + WIDTH, floor));
+        }
+        double sum = addLanes(low, high);
+        for (; i < to; i++) {
+            sum += Math.abs(actual[i] - predicted[i]) / Math.max(Math.abs(actual[i]), floor);
+        }
+        return sum;
+    }
+
+    private static DoubleVector percentageError(double[] actual, double[] predicted, int i, double floor) {
+        DoubleVector a = DoubleVector.fromArray(SPECIES, actual, i);
+        DoubleVector error = a.sub(DoubleVector.fromArray(SPECIES, predicted, i)).lanewise(VectorOperators.ABS);
+        return error.div(a.lanewise(VectorOperators.ABS).max(floor));
+    }
+
+    private static double addLanes(DoubleVector low, DoubleVector high) {
+        double[] lanes = new double[LANES];
+        low.intoArray(lanes, 0);
+        high.intoArray(lanes, WIDTH);
+        return ScalarErrorKernel.addLanes(lanes);
+    }
+}
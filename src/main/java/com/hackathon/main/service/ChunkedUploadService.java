@@ -0,0 +1,477 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.dto.CreateUploadDto;
+import com.hackathon.main.model.UploadPurpose;
+import com.hackathon.main.model.UploadSession;
+import com.hackathon.main.repository.UploadSessionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Resumable chunked uploads of large submissions and task files.
+ * <p>
+ * A client creates an {@link UploadSession} with the size of the file, PUTs its numbered chunks in
+ * any order and as often as needed, and commits it. Every chunk is written straight from the
+ * request body into its place in a preallocated staging file below
+ * {@code hackathon.upload.chunked.dir} and forced to disk before it is recorded as received, so an
+ * interrupted upload resumes with the chunks the session does not list yet. On commit the staging
+ * file is checked against the expected SHA-256 and handed to the existing submission or task-file
+ * path as a {@link MultipartFile} that streams from it, so it is never buffered in memory.
+ * <p>
+ * Chunk writes and commits of a session exclude each other: a commit waits for chunks being
+ * written and rejects new ones until it is done, so the file handed on is the one that was checked.
+ * A commit claims the session for {@code hackathon.upload.chunked.commit-lease}; a claim left
+ * behind by a crashed instance can be taken over once it has expired.
+ * <p>
+ * The staging files are local, so all requests of a session must reach the same instance.
+ * Sessions expire {@code hackathon.upload.chunked.ttl} after they were created and are swept with
+ * their staging files when new sessions are created.
+ */
+@Service
+@Slf4j
+public class ChunkedUploadService {
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long SWEEP_INTERVAL_MILLIS = Duration.ofMinutes(10).toMillis();
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final MongoTemplate mongoTemplate;
+    private final TaskService taskService;
+    private final ScoringService scoringService;
+    private final Path dir;
+    private final int defaultChunkSize;
+    private final int maxChunkSize;
+    private final long maxBytes;
+    private final Duration ttl;
+    private final Duration commitLease;
+
+    private final AtomicLong nextSweep = new AtomicLong();
+    // chunk writes hold the read lock of their session, commits the write lock
+    private final Map<String, ReentrantReadWriteLock> locks = new ConcurrentHashMap<>();
+
+    public ChunkedUploadService(
+            UploadSessionRepository uploadSessionRepository,
+            MongoTemplate mongoTemplate,
+            TaskService taskService,
+            ScoringService scoringService,
+            @Value("${hackathon.upload.chunked.dir:${java.io.tmpdir}/chunked-uploads}") Path dir,
+            @Value("${hackathon.upload.chunked.chunk-size:8388608}") int defaultChunkSize,
+            @Value("${hackathon.upload.chunked.max-chunk-size:67108864}") int maxChunkSize,
+            @Value("${hackathon.upload.chunked.max-bytes:4294967296}") long maxBytes,
+            @Value("${hackathon.upload.chunked.ttl:24h}") Duration ttl,
+            @Value("${hackathon.upload.chunked.commit-lease:1h}") Duration commitLease
+    ) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.taskService = taskService;
+        this.scoringService = scoringService;
+        this.dir = dir;
+        this.defaultChunkSize = defaultChunkSize;
+        this.maxChunkSize = maxChunkSize;
+        this.maxBytes = maxBytes;
+        this.ttl = ttl;
+        this.commitLease = commitLease;
+    }
+
+    /**
+     * Handles the staged file of a committed session, e.g. by submitting it.
+     */
+    @FunctionalInterface
+    public interface CommitHandler<T> {
+        T handle(UploadSession session, MultipartFile file) throws IOException;
+    }
+
+    /**
+     * Creates a session and its preallocated staging file.
+     *
+     * @param request the purpose, task, file name, size and optionally chunk size and SHA-256 of the upload
+     * @param owner   the principal creating the session, or {@code null}
+     * @return the new session
+     * @throws IOException              if the staging file cannot be created
+     * @throws IllegalArgumentException if the request is incomplete, out of the configured limits or,
+     *                                  for a submission, larger than the task accepts
+     * @throws RuntimeException         if the task does not exist
+     */
+    public UploadSession create(CreateUploadDto request, String owner) throws IOException {
+        sweepExpired();
+
+        if (request.getPurpose() == null || request.getTaskId() == null || request.getFileName() == null) {
+            throw new IllegalArgumentException("purpose, taskId and fileName are required");
+        }
+        if (request.getPurpose() == UploadPurpose.SUBMISSION && request.getUserId() == null) {
+            throw new IllegalArgumentException("userId is required for submissions");
+        }
+        if (request.getSize() == null || request.getSize() <= 0 || request.getSize() > maxBytes) {
+            throw new IllegalArgumentException("size must be between 1 and " + maxBytes + " bytes");
+        }
+        int chunkSize = request.getChunkSize() != null ? request.getChunkSize() : defaultChunkSize;
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > maxChunkSize) {
+            throw new IllegalArgumentException("chunkSize must be between " + MIN_CHUNK_SIZE + " and " + maxChunkSize + " bytes");
+        }
+        if (request.getSha256() != null && !SHA256_HEX.matcher(request.getSha256()).matches()) {
+            throw new IllegalArgumentException("sha256 must be 64 lower-case hex digits");
+        }
+        taskService.getTaskById(request.getTaskId());
+        if (request.getPurpose() == UploadPurpose.SUBMISSION) {
+            // rejected now rather than after the whole file was uploaded
+            scoringService.getGroundTruth(request.getTaskId()).getSubmissionBudget().checkBytes(request.getSize());
+        }
+
+        Instant now = Instant.now();
+        UploadSession session = new UploadSession();
+        session.setPurpose(request.getPurpose());
+        session.setOwner(owner);
+        session.setUserId(request.getUserId());
+        session.setTaskId(request.getTaskId());
+        session.setFileName(request.getFileName());
+        session.setContentType(request.getContentType());
+        session.setSize(request.getSize());
+        session.setChunkSize(chunkSize);
+        session.setChunkCount((int) ((request.getSize() + chunkSize - 1) / chunkSize));
+        session.setSha256(request.getSha256());
+        session.setCreatedAt(now);
+        session.setExpiresAt(now.plus(ttl));
+        session = uploadSessionRepository.save(session);
+
+        try {
+            Files.createDirectories(dir);
+            try (RandomAccessFile staging = new RandomAccessFile(stagingPath(session.getId()).toFile(), "rw")) {
+                staging.setLength(session.getSize());
+            }
+        } catch (IOException | RuntimeException e) {
+            delete(session);
+            throw e;
+        }
+        return session;
+    }
+
+    /**
+     * @param id    the ID of the session
+     * @param owner the principal asking, or {@code null}
+     * @return the session, with the chunks received so far
+     * @throws RuntimeException if the session does not exist, has expired or belongs to another principal
+     */
+    public UploadSession get(String id, String owner) {
+        return uploadSessionRepository.findById(id)
+                .filter(s -> s.getExpiresAt().isAfter(Instant.now()))
+                .filter(s -> s.getOwner() == null || s.getOwner().equals(owner))
+                .orElseThrow(() -> new RuntimeException("Error: Upload session not found with id: " + id));
+    }
+
+    /**
+     * Writes one chunk into its place in the staging file and records it as received. Writing a
+     * chunk again overwrites it, so failed chunks can simply be retried.
+     *
+     * @param id            the ID of the session
+     * @param owner         the principal writing, or {@code null}
+     * @param index         the zero-based index of the chunk
+     * @param contentLength the declared length of the body, or {@code -1} if unknown
+     * @param body          the content of the chunk; read to its end but not closed
+     * @return the session with the chunk recorded
+     * @throws IOException              if reading the body or writing the staging file fails
+     * @throws IllegalArgumentException if the index is out of range or the chunk has the wrong length
+     * @throws IllegalStateException    if the session is being committed
+     * @throws RuntimeException         if the session does not exist
+     */
+    public UploadSession writeChunk(String id, String owner, int index, long contentLength, InputStream body) throws IOException {
+        ReentrantReadWriteLock lock = lockOf(id);
+        if (!lock.readLock().tryLock()) {
+            throw new IllegalStateException("Upload session " + id + " is being committed");
+        }
+        try {
+            return writeChunkLocked(id, owner, index, contentLength, body);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private UploadSession writeChunkLocked(String id, String owner, int index, long contentLength, InputStream body) throws IOException {
+        UploadSession session = get(id, owner);
+        if (isClaimed(session)) {
+            throw new IllegalStateException("Upload session " + id + " is being committed");
+        }
+        if (index < 0 || index >= session.getChunkCount()) {
+            throw new IllegalArgumentException("Chunk index must be between 0 and " + (session.getChunkCount() - 1));
+        }
+        long offset = (long) index * session.getChunkSize();
+        long expected = Math.min(session.getChunkSize(), session.getSize() - offset);
+        if (contentLength >= 0 && contentLength != expected) {
+            throw new IllegalArgumentException("Chunk " + index + " must be " + expected + " bytes");
+        }
+
+        try (FileChannel staging = FileChannel.open(stagingPath(id), StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            byte[] array = buffer.array();
+            long written = 0;
+            int read;
+            while ((read = body.read(array, 0, (int) Math.min(array.length, expected - written + 1))) >= 0) {
+                if (written + read > expected) {
+                    throw new IllegalArgumentException("Chunk " + index + " must be " + expected + " bytes");
+                }
+                buffer.clear().limit(read);
+                while (buffer.hasRemaining()) {
+                    written += staging.write(buffer, offset + written);
+                }
+            }
+            if (written != expected) {
+                throw new IllegalArgumentException("Chunk " + index + " must be " + expected + " bytes");
+            }
+            staging.force(false);
+        }
+
+        UploadSession updated = mongoTemplate.findAndModify(
+                query(where("_id").is(id)),
+                new Update().addToSet("receivedChunks", index),
+                FindAndModifyOptions.options().returnNew(true),
+                UploadSession.class);
+        if (updated == null) {
+            throw new RuntimeException("Error: Upload session not found with id: " + id);
+        }
+        return updated;
+    }
+
+    /**
+     * Checks that all chunks have arrived and that the staged file has the expected SHA-256, hands
+     * it to {@code handler} and deletes the session if the handler succeeds. If the checks fail, or
+     * the handler fails with an {@link IOException} or for another reason than rejecting the
+     * content, the session stays open so the commit can be retried. If the handler rejects the
+     * content with an {@link IllegalArgumentException}, the session is deleted too: committing the
+     * same content again would fail the same way, and would let clients submit again without
+     * creating a new, rate-limited session.
+     *
+     * @param id      the ID of the session
+     * @param owner   the principal committing, or {@code null}
+     * @param sha256  the expected hex SHA-256 of the file, or {@code null} to use the one given on creation
+     * @param handler consumes the staged file, which can only be read during the call
+     * @return the result of {@code handler}
+     * @throws IOException              if reading the staging file or the handler fails
+     * @throws IllegalArgumentException if chunks are missing, no checksum is known, the checksum does
+     *                                  not match or the handler rejects the content
+     * @throws IllegalStateException    if the session is already being committed
+     * @throws RuntimeException         if the session does not exist or the handler fails
+     */
+    public <T> T commit(String id, String owner, String sha256, CommitHandler<T> handler) throws IOException {
+        get(id, owner);
+        // millisecond precision, as stored, so the claim can be matched again
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        UploadSession claimed = mongoTemplate.findAndModify(
+                query(where("_id").is(id).orOperator(
+                        where("committing").is(false),
+                        where("committingSince").lt(now.minus(commitLease)))),
+                new Update().set("committing", true).set("committingSince", now),
+                FindAndModifyOptions.options().returnNew(true),
+                UploadSession.class);
+        if (claimed == null) {
+            throw new IllegalStateException("Upload session " + id + " is being committed");
+        }
+
+        // waits for chunks still being written; new ones are rejected until the commit is done
+        ReentrantReadWriteLock lock = lockOf(id);
+        lock.writeLock().lock();
+        try {
+            return commitLocked(id, now, sha256, handler);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private <T> T commitLocked(String id, Instant claimedAt, String sha256, CommitHandler<T> handler) throws IOException {
+        // re-read to see the chunks recorded meanwhile, and whether another commit took over
+        UploadSession session = mongoTemplate.findOne(
+                query(where("_id").is(id).and("committingSince").is(claimedAt)), UploadSession.class);
+        if (session == null) {
+            throw new IllegalStateException("Upload session " + id + " is no longer being committed by this request");
+        }
+
+        Path staging = stagingPath(id);
+        try {
+            if (session.getReceivedChunks().size() != session.getChunkCount()) {
+                throw new IllegalArgumentException("Upload session " + id + " has received "
+                        + session.getReceivedChunks().size() + " of " + session.getChunkCount() + " chunks");
+            }
+            String expected = sha256 != null ? sha256 : session.getSha256();
+            if (expected == null) {
+                throw new IllegalArgumentException("sha256 is required");
+            }
+            String actual = sha256(staging);
+            if (!actual.equals(expected)) {
+                throw new IllegalArgumentException("Checksum mismatch: expected " + expected + ", got " + actual);
+            }
+        } catch (IOException | RuntimeException e) {
+            release(id, claimedAt);
+            throw e;
+        }
+
+        T result;
+        try {
+            result = handler.handle(session, new StagedFile(staging, session));
+        } catch (IllegalArgumentException e) {
+            delete(session);
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            release(id, claimedAt);
+            throw e;
+        }
+        delete(session);
+        return result;
+    }
+
+    private void release(String id, Instant claimedAt) {
+        mongoTemplate.updateFirst(
+                query(where("_id").is(id).and("committingSince").is(claimedAt)),
+                new Update().set("committing", false).unset("committingSince"),
+                UploadSession.class);
+    }
+
+    /**
+     * Deletes a session and its staging file.
+     *
+     * @param id    the ID of the session
+     * @param owner the principal deleting, or {@code null}
+     * @throws RuntimeException if the session does not exist
+     */
+    public void abort(String id, String owner) {
+        delete(get(id, owner));
+    }
+
+    private void sweepExpired() {
+        long now = System.currentTimeMillis();
+        long next = nextSweep.get();
+        if (now < next || !nextSweep.compareAndSet(next, now + SWEEP_INTERVAL_MILLIS)) {
+            return;
+        }
+        List<UploadSession> expired = uploadSessionRepository.findByExpiresAtBefore(Instant.ofEpochMilli(now));
+        expired.forEach(this::delete);
+        if (!expired.isEmpty()) {
+            log.info("Deleted {} expired upload sessions", expired.size());
+        }
+    }
+
+    private void delete(UploadSession session) {
+        uploadSessionRepository.deleteById(session.getId());
+        try {
+            Files.deleteIfExists(stagingPath(session.getId()));
+        } catch (IOException e) {
+            log.warn("Could not delete staging file of upload session {}", session.getId(), e);
+        }
+        locks.remove(session.getId());
+    }
+
+    private ReentrantReadWriteLock lockOf(String id) {
+        return locks.computeIfAbsent(id, k -> new ReentrantReadWriteLock());
+    }
+
+    private boolean isClaimed(UploadSession session) {
+        return session.isCommitting()
+                && (session.getCommittingSince() == null
+                || session.getCommittingSince().isAfter(Instant.now().minus(commitLease)));
+    }
+
+    private Path stagingPath(String id) {
+        return dir.resolve(id + ".part");
+    }
+
+    private static String sha256(Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * The staged file of a committed session, read from disk whenever its content is requested.
+     */
+    private static final class StagedFile implements MultipartFile {
+        private final Path path;
+        private final UploadSession session;
+
+        StagedFile(Path path, UploadSession session) {
+            this.path = path;
+            this.session = session;
+        }
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return session.getFileName();
+        }
+
+        @Override
+        public String getContentType() {
+            return session.getContentType();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return session.getSize() == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return session.getSize();
+        }
+
+        @Override
+        public byte[] getBytes() throws IOException {
+            return Files.readAllBytes(path);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(path);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.hackathon.main.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackathon.main.dto.ExportFormat;
+import com.hackathon.main.model.LeaderboardEntry;
+import com.hackathon.main.model.Solution;
+import com.hackathon.main.model.User;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Writes solutions, leaderboard entries and users as NDJSON or CSV, one row per document.
+ * <p>
+ * Documents are read from a MongoDB cursor in {@code _id} order and written through a small
+ * buffer that is flushed every {@value #FLUSH_ROWS} rows, so memory use does not depend on the
+ * size of the collection and the client receives rows while the export runs. Only the exported
+ * fields are read. An interrupted export can be resumed by passing the ID of the last complete row
+ * as {@code after}; a resumed CSV export has no header row, so it can be appended to the first part.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private static final int FLUSH_ROWS = 1000;
+    private static final int CURSOR_BATCH_SIZE = 1000;
+
+    private static final List<Column<Solution>> SOLUTION_COLUMNS = List.of(
+            new Column<>("id", Solution::getId),
+            new Column<>("userId", Solution::getUserId),
+            new Column<>("taskId", Solution::getTaskId),
+            new Column<>("score", Solution::getScore),
+            new Column<>("submissionTimestamp", Solution::getSubmissionTimestamp),
+            new Column<>("status", Solution::getStatus),
+            new Column<>("failureReason", Solution::getFailureReason)
+    );
+
+    private static final List<Column<LeaderboardEntry>> LEADERBOARD_COLUMNS = List.of(
+            new Column<>("id", LeaderboardEntry::getId),
+            new Column<>("userId", LeaderboardEntry::getUserId),
+            new Column<>("taskId", LeaderboardEntry::getTaskId),
+            new Column<>("bestScore", LeaderboardEntry::getBestScore),
+            new Column<>("bestScoreTimestamp", LeaderboardEntry::getBestScoreTimestamp)
+    );
+
+    private static final List<Column<User>> USER_COLUMNS = List.of(
+            new Column<>("id", User::getId),
+            new Column<>("keycloakId", User::getKeycloakId),
+            new Column<>("username", User::getUsername),
+            new Column<>("email", User::getEmail),
+            new Column<>("role", User::getRole),
+            new Column<>("team_name", User::getTeam_name)
+    );
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param taskId only solutions of this task, or {@code null} for all
+     * @param userId only solutions of this user, or {@code null} for all
+     * @param after  the ID of the last exported solution, or {@code null} to start at the beginning
+     * @throws IllegalArgumentException if {@code after} is not a valid ID
+     * @throws IOException              if writing to {@code out} fails
+     */
+    public void exportSolutions(String taskId, String userId, String after, ExportFormat format, OutputStream out) throws IOException {
+        Query query = new Query();
+        if (taskId != null) {
+            query.addCriteria(where("taskId").is(taskId));
+        }
+        if (userId != null) {
+            query.addCriteria(where("userId").is(userId));
+        }
+        export(query, Solution.class, SOLUTION_COLUMNS, after, format, out);
+    }
+
+    /**
+     * @param taskId only entries of this task, or {@code null} for all
+     * @param after  the ID of the last exported entry, or {@code null} to start at the beginning
+     * @throws IllegalArgumentException if {@code after} is not a valid ID
+     * @throws IOException              if writing to {@code out} fails
+     */
+    public void exportLeaderboard(String taskId, String after, ExportFormat format, OutputStream out) throws IOException {
+        Query query = new Query();
+        if (taskId != null) {
+            query.addCriteria(where("taskId").is(taskId));
+        }
+        export(query, LeaderboardEntry.class, LEADERBOARD_COLUMNS, after, format, out);
+    }
+
+    /**
+     * @param after the ID of the last exported user, or {@code null} to start at the beginning
+     * @throws IllegalArgumentException if {@code after} is not a valid ID
+     * @throws IOException              if writing to {@code out} fails
+     */
+    public void exportUsers(String after, ExportFormat format, OutputStream out) throws IOException {
+        export(new Query(), User.class, USER_COLUMNS, after, format, out);
+    }
+
+    /**
+     * Checks a resume position before the response is committed.
+     *
+     * @param after the ID of the last exported document, or {@code null}
+     * @throws IllegalArgumentException if {@code after} is not a valid ID
+     */
+    public void validateAfter(String after) {
+        if (after != null && !ObjectId.isValid(after)) {
+            throw new IllegalArgumentException("Invalid resume ID: " + after);
+        }
+    }
+
+    private <T> void export(Query query, Class<T> type, List<Column<T>> columns, String after, ExportFormat format,
+                            OutputStream out) throws IOException {
+        validateAfter(after);
+        if (after != null) {
+            query.addCriteria(where("id").gt(new ObjectId(after)));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "id")).cursorBatchSize(CURSOR_BATCH_SIZE);
+        columns.forEach(column -> query.fields().include(column.name()));
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        RowWriter<T> rows = format == ExportFormat.CSV
+                ? new CsvRowWriter<>(writer, columns, after == null)
+                : new NdjsonRowWriter<>(objectMapper.getFactory().createGenerator(writer), columns);
+
+        try (Stream<T> documents = mongoTemplate.stream(query, type)) {
+            int written = 0;
+            for (T document : (Iterable<T>) documents::iterator) {
+                rows.write(document);
+                if (++written % FLUSH_ROWS == 0) {
+                    rows.flush();
+                }
+            }
+        }
+        rows.flush();
+    }
+
+    private record Column<T>(String name, Function<T, Object> value) {
+    }
+
+    private interface RowWriter<T> {
+        void write(T document) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    private static final class NdjsonRowWriter<T> implements RowWriter<T> {
+        private final JsonGenerator generator;
+        private final List<Column<T>> columns;
+
+        NdjsonRowWriter(JsonGenerator generator, List<Column<T>> columns) {
+            this.generator = generator;
+            this.columns = columns;
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(T document) throws IOException {
+            generator.writeStartObject();
+            for (Column<T> column : columns) {
+                generator.writeFieldName(column.name());
+                generator.writeObject(column.value().apply(document));
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class CsvRowWriter<T> implements RowWriter<T> {
+        private final Writer writer;
+        private final List<Column<T>> columns;
+
+        CsvRowWriter(Writer writer, List<Column<T>> columns, boolean header) throws IOException {
+            this.writer = writer;
+            this.columns = columns;
+            if (header) {
+                writeRow(columns.stream().map(Column::name).toList());
+            }
+        }
+
+        @Override
+        public void write(T document) throws IOException {
+            writeRow(columns.stream().map(column -> column.value().apply(document)).toList());
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        private void writeRow(List<?> values) throws IOException {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = values.get(i);
+                if (value != null) {
+                    writer.write(escape(value.toString()));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        // RFC 4180: quote fields containing separators, quotes or line breaks and double the quotes
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -0,0 +1,522 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.model.CompressionDictionary;
+import com.hackathon.main.model.Solution;
+import com.hackathon.main.model.StorageBackend;
+import com.hackathon.main.model.Task;
+import com.hackathon.main.model.TaskFile;
+import com.hackathon.main.scoring.Compression;
+import com.hackathon.main.scoring.NumericParser;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.GridFSUploadStream;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Converts uploads into stored {@link TaskFile}s and reads their content back.
+ * <p>
+ * New content goes to the {@link StorageBackend} selected by {@code hackathon.storage.backend}:
+ * GridFS (the default) or the content-addressed {@link LocalBlobStore}. A {@link TaskFile} only
+ * holds a reference to its content, so reading a task or solution document does not load any
+ * payload, and content stays readable from either backend after the setting is changed. Uploads
+ * are hashed with SHA-256 while they are streamed into storage and downloads are streamed out of
+ * it, so the raw bytes are never copied onto the heap as a whole. Files stored inline as Base64 by
+ * earlier versions can still be read until {@link InlineFileMigration} has moved them.
+ * <p>
+ * GridFS contents are compressed on the way in and decompressed on the way out by
+ * {@link StorageCompression}, unless the upload is already gzip- or zstd-compressed. Sizes and
+ * hashes always refer to the raw content. Local blobs are kept raw so that downloads can be served
+ * from the file with sendfile and byte ranges read without decompressing.
+ * <p>
+ * Local blobs are shared by all files with the same content, so one is only deleted once no task
+ * or solution refers to it any more.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FileStorageService {
+
+    private final GridFsTemplate gridFsTemplate;
+    private final LocalBlobStore localBlobStore;
+    private final MongoTemplate mongoTemplate;
+    private final StorageCompression storageCompression;
+
+    @Value("${hackathon.storage.backend:gridfs}")
+    private StorageBackend backend;
+
+    @Value("${spring.data.mongodb.gridfs.bucket:fs}")
+    private String gridFsBucket;
+
+    /**
+     * Creates the indexes the reference checks of local blob and GridFS content deletions query,
+     * since indexes are not created automatically.
+     */
+    @PostConstruct
+    void createIndexes() {
+        mongoTemplate.indexOps(Solution.class).createIndex(new Index().on("file.sha256", Sort.Direction.ASC));
+        mongoTemplate.indexOps(Task.class).createIndex(new Index().on("files.sha256", Sort.Direction.ASC));
+        mongoTemplate.indexOps(Task.class).createIndex(new Index().on("solutionFile.sha256", Sort.Direction.ASC));
+        mongoTemplate.indexOps(Solution.class).createIndex(new Index().on("file.gridFsId", Sort.Direction.ASC));
+        mongoTemplate.indexOps(Task.class).createIndex(new Index().on("files.gridFsId", Sort.Direction.ASC));
+        mongoTemplate.indexOps(Task.class).createIndex(new Index().on("solutionFile.gridFsId", Sort.Direction.ASC));
+    }
+
+    /**
+     * Streams an upload into storage.
+     *
+     * @param file the uploaded file
+     * @return a populated {@link TaskFile} with the original filename, content type, storage reference, size and SHA-256; the
+     *         content type of numeric files is resolved with {@link NumericParser#resolveType(String, String)}
+     * @throws IOException if reading the upload fails
+     */
+    public TaskFile store(MultipartFile file) throws IOException {
+        return store(file, null);
+    }
+
+    /**
+     * Streams a solution upload into storage, compressed with the dictionary of its task if there is one.
+     *
+     * @param file   the uploaded file
+     * @param taskId the ID of the task the file is a solution of, or {@code null}
+     * @return a populated {@link TaskFile}, see {@link #store(MultipartFile)}
+     * @throws IOException if reading the upload fails
+     */
+    public TaskFile store(MultipartFile file, String taskId) throws IOException {
+        String contentType = NumericParser.resolveType(file.getContentType(), file.getOriginalFilename());
+        try (InputStream in = file.getInputStream()) {
+            return store(in, file.getOriginalFilename(), contentType, taskId);
+        }
+    }
+
+    /**
+     * Streams a solution upload into storage like {@link #store(MultipartFile, String)} and copies
+     * every byte read from it to {@code tee}, e.g. a {@link SubmissionScorer}, in the same pass.
+     *
+     * @param file   the uploaded file
+     * @param taskId the ID of the task the file is a solution of, or {@code null}
+     * @param tee    receives the raw content as it is read; not closed
+     * @return a populated {@link TaskFile}, see {@link #store(MultipartFile)}
+     * @throws IOException if reading the upload, writing it to storage or writing to {@code tee} fails;
+     *                     nothing is stored then
+     */
+    public TaskFile store(MultipartFile file, String taskId, OutputStream tee) throws IOException {
+        String contentType = NumericParser.resolveType(file.getContentType(), file.getOriginalFilename());
+        try (InputStream in = new TeeInputStream(file.getInputStream(), tee)) {
+            return store(in, file.getOriginalFilename(), contentType, taskId);
+        }
+    }
+
+    /**
+     * Streams content into the configured storage backend.
+     *
+     * @param in          the content; read to its end but not closed
+     * @param fileName    the file name to store
+     * @param contentType the content type to store
+     * @param taskId      the ID of the task whose compression dictionary to use, or {@code null} for none
+     * @return a populated {@link TaskFile} with the storage reference, size and SHA-256 of the content
+     * @throws IOException if reading the content or writing it to storage fails
+     */
+    public TaskFile store(InputStream in, String fileName, String contentType, String taskId) throws IOException {
+        if (backend == StorageBackend.LOCAL) {
+            TaskFile tf = new TaskFile();
+            tf.setFileName(fileName);
+            tf.setContentType(contentType);
+            tf.setStorage(StorageBackend.LOCAL);
+            LocalBlobStore.Blob blob = localBlobStore.put(in);
+            tf.setSize(blob.size());
+            tf.setSha256(blob.sha256());
+            return tf;
+        }
+        return storeInGridFs(in, fileName, contentType, taskId);
+    }
+
+    /**
+     * Rewrites the content of a GridFS file with the configured {@link StorageCompression} codec,
+     * whatever the configured backend. The file itself is not changed.
+     *
+     * @param file   the stored file
+     * @param taskId the ID of the task whose compression dictionary to use, or {@code null} for none
+     * @return a new {@link TaskFile} referring to the rewritten content
+     * @throws IOException if reading the content or writing it to GridFS fails
+     */
+    public TaskFile recompress(TaskFile file, String taskId) throws IOException {
+        try (InputStream in = open(file)) {
+            return storeInGridFs(in, file.getFileName(), file.getContentType(), taskId);
+        }
+    }
+
+    private TaskFile storeInGridFs(InputStream in, String fileName, String contentType, String taskId) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in);
+        buffered.mark(Compression.MAGIC_LENGTH);
+        byte[] head = buffered.readNBytes(Compression.MAGIC_LENGTH);
+        buffered.reset();
+        Compression codec = Compression.detect(head, head.length, contentType, fileName) == Compression.NONE
+                ? storageCompression.codec()
+                : Compression.NONE;
+        CompressionDictionary dictionary = codec == Compression.ZSTD
+                ? storageCompression.dictionaryFor(taskId).orElse(null)
+                : null;
+
+        MessageDigest sha256 = sha256();
+        GridFSUploadOptions options = new GridFSUploadOptions().metadata(new Document("_contentType", contentType));
+        GridFSUploadStream upload = GridFSBuckets.create(mongoTemplate.getDb(), gridFsBucket).openUploadStream(fileName, options);
+        CountingOutputStream stored = new CountingOutputStream(upload);
+        long size;
+        // Not try-with-resources: closing the upload stream commits the file, so on failure it is
+        // aborted instead and never closed.
+        try {
+            OutputStream out = storageCompression.compress(stored, codec, dictionary);
+            size = new DigestInputStream(buffered, sha256).transferTo(out);
+            out.close();
+        } catch (IOException | RuntimeException e) {
+            try {
+                upload.abort();
+            } catch (RuntimeException abortFailure) {
+                e.addSuppressed(abortFailure);
+            }
+            throw e;
+        }
+
+        TaskFile tf = new TaskFile();
+        tf.setFileName(fileName);
+        tf.setContentType(contentType);
+        tf.setStorage(StorageBackend.GRIDFS);
+        tf.setGridFsId(upload.getObjectId().toHexString());
+        tf.setSize(size);
+        tf.setSha256(HexFormat.of().formatHex(sha256.digest()));
+        tf.setCompression(codec);
+        tf.setCompressionDictionaryId(dictionary != null ? dictionary.getId() : null);
+        tf.setStoredSize(stored.count);
+        storageCompression.recordWrite(size, stored.count);
+        return tf;
+    }
+
+    /**
+     * Opens the content of a stored file for streaming.
+     *
+     * @param file the stored file
+     * @return the raw content; the caller must close it
+     * @throws IOException      if opening the stored content fails
+     * @throws RuntimeException if the file has no stored content
+     */
+    public InputStream open(TaskFile file) throws IOException {
+        if (file.getStorage() == StorageBackend.LOCAL) {
+            return localBlobStore.open(file.getSha256());
+        }
+        if (file.getGridFsId() != null) {
+            GridFSFile gridFsFile = gridFsTemplate.findOne(query(where("_id").is(new ObjectId(file.getGridFsId()))));
+            if (gridFsFile == null) {
+                throw new RuntimeException("Stored content of file " + file.getFileName() + " not found");
+            }
+            InputStream stored = gridFsTemplate.getResource(gridFsFile).getInputStream();
+            try {
+                return storageCompression.decompress(stored, file);
+            } catch (IOException | RuntimeException e) {
+                stored.close();
+                throw e;
+            }
+        }
+        if (file.getDataBase64() != null) {
+            return new ByteArrayInputStream(Base64.getDecoder().decode(file.getDataBase64()));
+        }
+        throw new RuntimeException("File " + file.getFileName() + " has no stored content");
+    }
+
+    /**
+     * Opens a byte range of a stored file for streaming, skipping to its start without reading the
+     * content before it where the backend allows (local blobs and uncompressed GridFS chunks).
+     *
+     * @param file   the stored file
+     * @param offset the index of the first byte
+     * @param length the number of bytes to read at most
+     * @return the content of the range; the caller must close it
+     * @throws IOException      if opening the stored content fails
+     * @throws RuntimeException if the file has no stored content
+     */
+    public InputStream open(TaskFile file, long offset, long length) throws IOException {
+        InputStream in;
+        if (file.getStorage() == StorageBackend.LOCAL) {
+            FileChannel channel = FileChannel.open(localBlobStore.path(file.getSha256()), StandardOpenOption.READ);
+            channel.position(offset);
+            in = Channels.newInputStream(channel);
+        } else {
+            in = open(file);
+            try {
+                in.skipNBytes(offset);
+            } catch (IOException | RuntimeException e) {
+                in.close();
+                throw e;
+            }
+        }
+        return new RangeInputStream(in, length);
+    }
+
+    /**
+     * Reads the whole content of a stored file.
+     *
+     * @param file the stored file
+     * @return the raw content
+     * @throws UncheckedIOException if reading the stored content fails
+     * @throws RuntimeException     if the file has no stored content
+     */
+    public byte[] load(TaskFile file) {
+        try (InputStream in = open(file)) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param file the stored file
+     * @return the path of its content if it is a local blob, which can be served without copying it through the heap
+     */
+    public Optional<Path> localPath(TaskFile file) {
+        return file.getStorage() == StorageBackend.LOCAL
+                ? Optional.of(localBlobStore.path(file.getSha256()))
+                : Optional.empty();
+    }
+
+    /**
+     * @param file the stored file
+     * @return the size of its raw content in bytes, or {@code -1} if unknown
+     */
+    public long size(TaskFile file) {
+        if (file.getSize() != null) {
+            return file.getSize();
+        }
+        if (file.getDataBase64() != null) {
+            String data = file.getDataBase64();
+            int padding = data.endsWith("==") ? 2 : data.endsWith("=") ? 1 : 0;
+            return data.length() / 4L * 3 - padding;
+        }
+        return -1;
+    }
+
+    /**
+     * Makes a file refer to the stored content of another, e.g. when a solution takes over the
+     * content it shared with a deleted one.
+     *
+     * @param from the file whose content is taken over
+     * @param to   the file that refers to the content afterwards
+     */
+    public void moveContent(TaskFile from, TaskFile to) {
+        to.setStorage(from.getStorage());
+        to.setGridFsId(from.getGridFsId());
+        to.setDataBase64(from.getDataBase64());
+        to.setCompression(from.getCompression());
+        to.setCompressionDictionaryId(from.getCompressionDictionaryId());
+        to.setStoredSize(from.getStoredSize());
+    }
+
+    /**
+     * Deletes the stored content of a file and clears the file's reference to it. A local blob is
+     * kept while any saved task or solution still refers to it, so the file's own document must
+     * already be updated or deleted.
+     *
+     * @param file the stored file; may be {@code null}
+     */
+    public void delete(TaskFile file) {
+        if (file == null) {
+            return;
+        }
+        if (file.getStorage() == StorageBackend.LOCAL) {
+            deleteLocalBlob(file.getSha256());
+        } else if (file.getGridFsId() != null) {
+            gridFsTemplate.delete(query(where("_id").is(new ObjectId(file.getGridFsId()))));
+        }
+        file.setStorage(null);
+        file.setGridFsId(null);
+        file.setDataBase64(null);
+        file.setCompression(null);
+        file.setCompressionDictionaryId(null);
+        file.setStoredSize(null);
+    }
+
+    private void deleteLocalBlob(String sha256) {
+        try {
+            localBlobStore.deleteUnlessReferenced(sha256, () -> isLocalBlobReferenced(sha256));
+        } catch (IOException e) {
+            log.warn("Failed to delete local blob {}", sha256, e);
+        }
+    }
+
+    /**
+     * @param gridFsId the ID of a GridFS file
+     * @return whether any saved task or solution refers to the GridFS file
+     */
+    public boolean isGridFsReferenced(String gridFsId) {
+        return mongoTemplate.exists(query(where("file.gridFsId").is(gridFsId)), Solution.class)
+                || mongoTemplate.exists(query(new Criteria().orOperator(
+                        where("files.gridFsId").is(gridFsId),
+                        where("solutionFile.gridFsId").is(gridFsId))), Task.class);
+    }
+
+    private boolean isLocalBlobReferenced(String sha256) {
+        Criteria local = where("storage").is(StorageBackend.LOCAL).and("sha256").is(sha256);
+        return mongoTemplate.exists(query(where("file.storage").is(StorageBackend.LOCAL).and("file.sha256").is(sha256)), Solution.class)
+                || mongoTemplate.exists(query(new Criteria().orOperator(
+                        where("files").elemMatch(local),
+                        where("solutionFile.storage").is(StorageBackend.LOCAL).and("solutionFile.sha256").is(sha256))), Task.class);
+    }
+
+    private static final class RangeInputStream extends FilterInputStream {
+        private long remaining;
+
+        RangeInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    private static final class TeeInputStream extends FilterInputStream {
+        private final OutputStream tee;
+
+        TeeInputStream(InputStream in, OutputStream tee) {
+            super(in);
+            this.tee = tee;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                tee.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                tee.write(b, off, n);
+            }
+            return n;
+        }
+
+        // skipped bytes are read as well, so the tee still sees them
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] skipped = new byte[(int) Math.min(8192, Math.max(n, 0))];
+            long remaining = n;
+            while (remaining > 0) {
+                int read = read(skipped, 0, (int) Math.min(skipped.length, remaining));
+                if (read < 0) {
+                    break;
+                }
+                remaining -= read;
+            }
+            return n - remaining;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.dto.GroundTruthCacheStats;
+import com.hackathon.main.scoring.GroundTruth;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded in-memory cache of parsed task ground truths and their scoring settings, keyed by task ID.
+ * <p>
+ * Entries are kept in least-recently-used order and weighed by their number of values; once the
+ * total exceeds {@code hackathon.scoring.ground-truth-cache.max-values} the least recently used
+ * entries are evicted. The cached value arrays are shared between callers and must never be modified.
+ * <p>
+ * {@link TaskService} invalidates an entry whenever the underlying task changes. A load that
+ * started before an invalidation is not stored, so a stale ground truth can never be re-cached.
+ */
+@Component
+@Slf4j
+public class GroundTruthCache {
+
+    private final long maxValues;
+
+    private final LinkedHashMap<String, GroundTruth> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedValues;
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public GroundTruthCache(@Value("${hackathon.scoring.ground-truth-cache.max-values:10000000}") long maxValues) {
+        this.maxValues = maxValues;
+    }
+
+    /**
+     * Returns the cached ground truth of a task, loading and caching it on a miss.
+     * <p>
+     * The loader runs outside the cache lock, so a slow load never blocks lookups of other tasks.
+     * Concurrent misses for the same task may load it more than once; only one result is kept.
+     *
+     * @param taskId the ID of the task
+     * @param loader loads and parses the ground truth of the task; exceptions are propagated and nothing is cached
+     * @return the ground truth, whose values must be treated as read-only
+     */
+    public GroundTruth get(String taskId, Function<String, GroundTruth> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            GroundTruth cached = entries.get(taskId);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+
+        GroundTruth loaded = loader.apply(taskId);
+
+        synchronized (this) {
+            if (loadGeneration == generation && loaded.getValues().length <= maxValues) {
+                GroundTruth previous = entries.put(taskId, loaded);
+                cachedValues += loaded.getValues().length - (previous == null ? 0 : previous.getValues().length);
+                evictIfNeeded();
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Removes the cached ground truth of a task, if present.
+     *
+     * @param taskId the ID of the task whose ground truth changed or was deleted
+     */
+    public synchronized void invalidate(String taskId) {
+        generation++;
+        GroundTruth removed = entries.remove(taskId);
+        if (removed != null) {
+            cachedValues -= removed.getValues().length;
+            log.debug("Invalidated cached ground truth of task {}", taskId);
+        }
+    }
+
+    /**
+     * @return a snapshot of the cache size and its hit/miss/eviction counters
+     */
+    public synchronized GroundTruthCacheStats stats() {
+        return new GroundTruthCacheStats(
+                hits.sum(),
+                misses.sum(),
+                evictions.sum(),
+                entries.size(),
+                cachedValues,
+                maxValues
+        );
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, GroundTruth>> it = entries.entrySet().iterator();
+        while (cachedValues > maxValues && it.hasNext()) {
+            Map.Entry<String, GroundTruth> eldest = it.next();
+            cachedValues -= eldest.getValue().getValues().length;
+            it.remove();
+            evictions.increment();
+        }
+    }
+}
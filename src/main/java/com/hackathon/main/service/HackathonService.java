@@ -18,6 +18,7 @@ public class HackathonService {
     private final HackathonRepository hackathonRepository;
     private final TaskRepository taskRepository;
     private final UserRepository userRepository;
+    private final SubmissionRateLimiter submissionRateLimiter;
 
     /**
      * Creates and persists a new {@link Hackathon}.
@@ -61,6 +62,7 @@ public class HackathonService {
             throw new RuntimeException("Hackathon not found with id: " + hackId);
         }
         hackathonRepository.deleteById(hackId);
+        submissionRateLimiter.invalidate();
     }
 
     /**
@@ -90,7 +92,9 @@ public class HackathonService {
 
         if (!hackathon.getTasks().contains(taskId)) {
             hackathon.getTasks().add(taskId);
-            return hackathonRepository.save(hackathon);
+            Hackathon saved = hackathonRepository.save(hackathon);
+            submissionRateLimiter.invalidate();
+            return saved;
         }
         return hackathon;
     }
@@ -144,7 +148,9 @@ public class HackathonService {
 
         if (hackathon.getTasks() != null) {
             hackathon.getTasks().remove(taskId);
-            return hackathonRepository.save(hackathon);
+            Hackathon saved = hackathonRepository.save(hackathon);
+            submissionRateLimiter.invalidate();
+            return saved;
         }
         return hackathon;
     }
@@ -180,6 +186,8 @@ public class HackathonService {
      * {@link #removeTaskFromHackathon(String, String)},
      * {@link #addUserToHackathon(String, String)},
      * and {@link #removeUserFromHackathon(String, String)}.
+     * <p>
+     * The submission rate limit is only changed when provided.
      *
      * @param hackId           the ID of the hackathon to be updated
      * @param updatedHackathon an object containing the new values for updatable fields
@@ -194,6 +202,12 @@ public class HackathonService {
         existingHackathon.setDescription(updatedHackathon.getDescription());
         // Do not update tasks or users here, that's handled by other endpoints
 
-        return hackathonRepository.save(existingHackathon);
+        if (updatedHackathon.getSubmissionRateLimit() != null) {
+            existingHackathon.setSubmissionRateLimit(updatedHackathon.getSubmissionRateLimit());
+        }
+
+        Hackathon saved = hackathonRepository.save(existingHackathon);
+        submissionRateLimiter.invalidate();
+        return saved;
     }
 }
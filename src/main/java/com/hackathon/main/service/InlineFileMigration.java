@@ -0,0 +1,149 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.model.Solution;
+import com.hackathon.main.model.Task;
+import com.hackathon.main.model.TaskFile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Moves {@link TaskFile} contents that earlier versions stored inline as Base64 into the
+ * configured storage backend of the {@link FileStorageService}.
+ * <p>
+ * Runs once in the background after startup if {@code hackathon.storage.migrate-inline-files} is
+ * set. Task and solution documents are streamed from a cursor; each inline file is written to
+ * storage and its document updated to the reference, so reads keep working throughout. Each file
+ * is updated on its own and only if the document still holds its inline content, so files added,
+ * removed or replaced concurrently are left alone, the migration can run concurrently with normal
+ * use and be restarted at any time; the worst case is orphaned stored content.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InlineFileMigration {
+
+    private final MongoTemplate mongoTemplate;
+    private final FileStorageService fileStorageService;
+
+    @Value("${hackathon.storage.migrate-inline-files:true}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            Thread.ofVirtual().name("inline-file-migration").start(this::run);
+        }
+    }
+
+    private void run() {
+        try {
+            int tasks = migrateTasks();
+            int solutions = migrateSolutions();
+            if (tasks + solutions > 0) {
+                log.info("Moved inline files of {} tasks and {} solutions to storage", tasks, solutions);
+            }
+        } catch (RuntimeException e) {
+            log.error("Moving inline files to storage failed", e);
+        }
+    }
+
+    private int migrateTasks() {
+        Query query = Query.query(new Criteria().orOperator(
+                where("files.dataBase64").exists(true),
+                where("solutionFile.dataBase64").exists(true)));
+        int migrated = 0;
+        try (Stream<Task> tasks = mongoTemplate.stream(query, Task.class)) {
+            for (Task task : (Iterable<Task>) tasks::iterator) {
+                boolean updated = false;
+                for (TaskFile file : task.getFiles()) {
+                    if (isInline(file)) {
+                        // files.$ is the first file still holding this content, wherever it is by now
+                        updated |= migrate(Task.class, task.getId(), "files", "files.$", file);
+                    }
+                }
+                if (isInline(task.getSolutionFile())) {
+                    updated |= migrate(Task.class, task.getId(), "solutionFile", "solutionFile", task.getSolutionFile());
+                }
+                if (updated) {
+                    migrated++;
+                }
+            }
+        }
+        return migrated;
+    }
+
+    private int migrateSolutions() {
+        Query query = Query.query(where("file.dataBase64").exists(true));
+        int migrated = 0;
+        try (Stream<Solution> solutions = mongoTemplate.stream(query, Solution.class)) {
+            for (Solution solution : (Iterable<Solution>) solutions::iterator) {
+                if (migrate(Solution.class, solution.getId(), "file", "file", solution.getFile())) {
+                    migrated++;
+                }
+            }
+        }
+        return migrated;
+    }
+
+    /**
+     * Moves the content of one inline file to storage and points the file at it, but only if the
+     * document still holds that inline content; otherwise the stored content is deleted again.
+     *
+     * @param path       the path of the file (or array of files) in the document, to match on
+     * @param targetPath the path of the file to update
+     * @return whether the document was updated
+     */
+    private boolean migrate(Class<?> type, String id, String path, String targetPath, TaskFile file) {
+        String inline = file.getDataBase64();
+        moveToStorage(file);
+        Update update = new Update()
+                .set(targetPath + ".storage", file.getStorage())
+                .set(targetPath + ".gridFsId", file.getGridFsId())
+                .set(targetPath + ".size", file.getSize())
+                .set(targetPath + ".sha256", file.getSha256())
+                .set(targetPath + ".compression", file.getCompression())
+                .set(targetPath + ".compressionDictionaryId", file.getCompressionDictionaryId())
+                .set(targetPath + ".storedSize", file.getStoredSize())
+                .unset(targetPath + ".dataBase64");
+        Query unchanged = Query.query(where("_id").is(id).and(path + ".dataBase64").is(inline));
+        if (mongoTemplate.updateFirst(unchanged, update, type).getMatchedCount() == 0) {
+            fileStorageService.delete(file);
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isInline(TaskFile file) {
+        return file != null && file.getGridFsId() == null && file.getDataBase64() != null;
+    }
+
+    private void moveToStorage(TaskFile file) {
+        byte[] content = Base64.getDecoder().decode(file.getDataBase64());
+        TaskFile stored;
+        try {
+            stored = fileStorageService.store(
+                    new ByteArrayInputStream(content), file.getFileName(), file.getContentType(), null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        fileStorageService.moveContent(stored, file);
+        file.setSize(stored.getSize());
+        file.setSha256(stored.getSha256());
+    }
+}
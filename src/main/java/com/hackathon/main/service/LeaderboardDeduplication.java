@@ -0,0 +1,71 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.model.LeaderboardEntry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Creates the unique (userId, taskId) index of the {@code leaderboard} collection that
+ * {@link SolutionService#updateLeaderboard} relies on, since indexes are not created automatically.
+ * <p>
+ * Runs once during startup, before requests are served, and fails startup if the index cannot be
+ * created, as leaderboard updates would otherwise insert duplicates. Earlier versions updated the
+ * leaderboard with a read-modify-write that could insert two entries for the same user and task,
+ * which would make creating the index fail, so for every such pair all but the best entry are
+ * deleted first and the affected tasks reloaded into the {@link LeaderboardIndex} and the
+ * {@link LeaderboardStream}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LeaderboardDeduplication {
+
+    private final MongoTemplate mongoTemplate;
+    private final LeaderboardIndex leaderboardIndex;
+    private final LeaderboardStream leaderboardStream;
+
+    @PostConstruct
+    void run() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.sort(Sort.by(Sort.Order.desc("bestScore"), Sort.Order.asc("bestScoreTimestamp"))),
+                Aggregation.group("userId", "taskId").push("_id").as("ids").count().as("count"),
+                Aggregation.match(where("count").gt(1))
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        Set<String> tasks = new HashSet<>();
+        int removed = 0;
+        for (Document duplicates : mongoTemplate.aggregate(aggregation, LeaderboardEntry.class, Document.class)) {
+            List<?> ids = duplicates.getList("ids", Object.class);
+            removed += (int) mongoTemplate.remove(Query.query(where("_id").in(ids.subList(1, ids.size()))), LeaderboardEntry.class)
+                    .getDeletedCount();
+            tasks.add(duplicates.get("_id", Document.class).getString("taskId"));
+        }
+        if (removed > 0) {
+            log.info("Removed {} duplicate leaderboard entries of {} tasks", removed, tasks.size());
+        }
+
+        mongoTemplate.indexOps(LeaderboardEntry.class).createIndex(new Index()
+                .on("userId", Sort.Direction.ASC)
+                .on("taskId", Sort.Direction.ASC)
+                .unique());
+        for (String taskId : tasks) {
+            leaderboardIndex.reload(taskId);
+            leaderboardStream.reset(taskId);
+        }
+    }
+}
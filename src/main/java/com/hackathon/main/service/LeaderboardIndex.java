@@ -0,0 +1,324 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.dto.LeaderboardWindow;
+import com.hackathon.main.model.LeaderboardEntry;
+import com.hackathon.main.repository.LeaderboardRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-memory ranking of the leaderboard of every task, so top-K, rank and window queries do not
+ * sort the task's {@code leaderboard} documents on every request.
+ * <p>
+ * Each task's entries are kept in an order-statistic treap ordered by best score descending, then
+ * best score timestamp ascending (as {@link SolutionService#getLeaderboardForTask(String)} always
+ * sorted them) and user ID, where every node knows the size of its subtree. Rank, the entry at a
+ * rank and updates are then O(log n), and K consecutive entries from any rank O(log n + K).
+ * <p>
+ * A task's ranking is loaded from {@link LeaderboardRepository} on first use, and for all tasks in
+ * the background after startup. {@link SolutionService} passes every entry it writes to
+ * {@link #update(LeaderboardEntry)} after the write, and {@link RescoringService} calls
+ * {@link #reload(String)} after rebuilding a leaderboard. Loads and updates of a task are
+ * serialized, so an update is either seen by a concurrent load or applied after it.
+ * <p>
+ * The index only sees the writes of this instance. With {@code hackathon.leaderboard.index.enabled}
+ * off, e.g. when several instances share the database, every query loads the ranking afresh.
+ */
+@Service
+@Slf4j
+public class LeaderboardIndex {
+
+    static final Comparator<LeaderboardEntry> ORDER = Comparator
+            .comparingInt(LeaderboardEntry::getBestScore).reversed()
+            .thenComparing(LeaderboardEntry::getBestScoreTimestamp, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(LeaderboardEntry::getUserId);
+
+    private static final Sort SORT = Sort.by(Sort.Order.desc("bestScore"), Sort.Order.asc("bestScoreTimestamp"));
+
+    private final LeaderboardRepository leaderboardRepository;
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+
+    private final Map<String, Board> boards = new ConcurrentHashMap<>();
+
+    public LeaderboardIndex(
+            LeaderboardRepository leaderboardRepository,
+            MongoTemplate mongoTemplate,
+            @Value("${hackathon.leaderboard.index.enabled:true}") boolean enabled
+    ) {
+        this.leaderboardRepository = leaderboardRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            Thread.ofVirtual().name("leaderboard-index").start(this::hydrate);
+        }
+    }
+
+    private void hydrate() {
+        try {
+            List<String> taskIds = mongoTemplate.findDistinct(new Query(), "taskId", LeaderboardEntry.class, String.class);
+            taskIds.forEach(this::board);
+            log.info("Loaded the leaderboards of {} tasks", taskIds.size());
+        } catch (RuntimeException e) {
+            log.error("Loading leaderboards failed", e);
+        }
+    }
+
+    /**
+     * @param taskId the ID of the task
+     * @param limit  the maximum number of entries
+     * @return the best {@code limit} entries of the task, best first
+     */
+    public List<LeaderboardEntry> top(String taskId, int limit) {
+        return board(taskId).range(0, limit);
+    }
+
+    /**
+     * @param taskId the ID of the task
+     * @param userId the ID of the user
+     * @param radius the number of entries to include above and below the user's
+     * @return the rank of the user and the entries around it, or empty if the user has no entry
+     */
+    public Optional<LeaderboardWindow> window(String taskId, String userId, int radius) {
+        Board board = board(taskId);
+        synchronized (board) {
+            int index = board.indexOf(userId);
+            if (index < 0) {
+                return Optional.empty();
+            }
+            int from = Math.max(0, index - radius);
+            List<LeaderboardEntry> entries = board.range(from, index - from + radius + 1);
+            return Optional.of(new LeaderboardWindow(taskId, userId, index + 1, board.size(), from + 1, entries));
+        }
+    }
+
+    /**
+     * Applies an entry that has just been written to the {@code leaderboard} collection, unless the
+     * index already holds a better one of the user: concurrent updates can be applied in another
+     * order than they were written, and a stored entry is only ever improved.
+     *
+     * @param entry the entry as stored
+     */
+    public void update(LeaderboardEntry entry) {
+        if (!enabled) {
+            return;
+        }
+        Board board = boards.computeIfAbsent(entry.getTaskId(), taskId -> new Board());
+        synchronized (board) {
+            // an unloaded board will read the entry when it is loaded
+            if (board.loaded) {
+                board.put(copy(entry));
+            }
+        }
+    }
+
+    /**
+     * Reloads the ranking of a task after its {@code leaderboard} documents were rewritten.
+     *
+     * @param taskId the ID of the task
+     */
+    public void reload(String taskId) {
+        if (!enabled) {
+            return;
+        }
+        Board board = boards.computeIfAbsent(taskId, key -> new Board());
+        synchronized (board) {
+            load(taskId, board);
+        }
+    }
+
+    private Board board(String taskId) {
+        if (!enabled) {
+            Board board = new Board();
+            load(taskId, board);
+            return board;
+        }
+        Board board = boards.computeIfAbsent(taskId, key -> new Board());
+        synchronized (board) {
+            if (!board.loaded) {
+                load(taskId, board);
+            }
+        }
+        return board;
+    }
+
+    private void load(String taskId, Board board) {
+        board.clear();
+        leaderboardRepository.findByTaskId(taskId, SORT).forEach(board::put);
+        board.loaded = true;
+    }
+
+    private static LeaderboardEntry copy(LeaderboardEntry entry) {
+        LeaderboardEntry copy = new LeaderboardEntry(entry.getUserId(), entry.getTaskId(), entry.getBestScore(), entry.getBestScoreTimestamp());
+        copy.setId(entry.getId());
+        return copy;
+    }
+
+    /**
+     * The ranking of one task: an order-statistic treap of its entries plus their current entry per
+     * user. Guarded by its own monitor.
+     */
+    private static final class Board {
+        private Node root;
+        private final Map<String, LeaderboardEntry> byUser = new HashMap<>();
+        private boolean loaded;
+
+        synchronized int size() {
+            return byUser.size();
+        }
+
+        synchronized void clear() {
+            root = null;
+            byUser.clear();
+        }
+
+        /**
+         * Adds or improves the entry of a user. An entry that is not better than the user's
+         * current one is ignored: entries are only ever improved, so it is an update that was
+         * overtaken by a better one.
+         */
+        synchronized void put(LeaderboardEntry entry) {
+            LeaderboardEntry previous = byUser.get(entry.getUserId());
+            if (previous != null && ORDER.compare(previous, entry) <= 0) {
+                return;
+            }
+            byUser.put(entry.getUserId(), entry);
+            if (previous != null) {
+                Node[] lower = split(root, previous, false);
+                Node[] upper = split(lower[1], previous, true);
+                root = merge(lower[0], upper[1]);
+            }
+            Node[] parts = split(root, entry, false);
+            root = merge(merge(parts[0], new Node(entry)), parts[1]);
+        }
+
+        /**
+         * @return the zero-based rank of the user, or {@code -1} if the user has no entry
+         */
+        synchronized int indexOf(String userId) {
+            LeaderboardEntry entry = byUser.get(userId);
+            if (entry == null) {
+                return -1;
+            }
+            int index = 0;
+            Node node = root;
+            while (node != null) {
+                int cmp = ORDER.compare(entry, node.entry);
+                if (cmp < 0) {
+                    node = node.left;
+                } else if (cmp > 0) {
+                    index += size(node.left) + 1;
+                    node = node.right;
+                } else {
+                    return index + size(node.left);
+                }
+            }
+            throw new IllegalStateException("Leaderboard entry of user " + userId + " is not ranked");
+        }
+
+        /**
+         * @return up to {@code count} entries starting at the zero-based rank {@code from}
+         */
+        synchronized List<LeaderboardEntry> range(int from, int count) {
+            List<LeaderboardEntry> entries = new ArrayList<>(Math.max(0, Math.min(count, size() - from)));
+            collect(root, from, count, entries);
+            return entries;
+        }
+
+        private static void collect(Node node, int from, int count, List<LeaderboardEntry> out) {
+            if (node == null || out.size() >= count) {
+                return;
+            }
+            int leftSize = size(node.left);
+            if (from < leftSize) {
+                collect(node.left, from, count, out);
+            }
+            if (out.size() < count && from <= leftSize) {
+                out.add(node.entry);
+            }
+            if (out.size() < count) {
+                collect(node.right, Math.max(0, from - leftSize - 1), count, out);
+            }
+        }
+
+        /**
+         * Splits a treap into the entries ordered before {@code key} (or also those equal to it,
+         * if {@code inclusive}) and the rest.
+         */
+        private static Node[] split(Node node, LeaderboardEntry key, boolean inclusive) {
+            if (node == null) {
+                return new Node[]{null, null};
+            }
+            int cmp = ORDER.compare(node.entry, key);
+            if (cmp < 0 || (inclusive && cmp == 0)) {
+                Node[] parts = split(node.right, key, inclusive);
+                node.right = parts[0];
+                node.update();
+                return new Node[]{node, parts[1]};
+            }
+            Node[] parts = split(node.left, key, inclusive);
+            node.left = parts[1];
+            node.update();
+            return new Node[]{parts[0], node};
+        }
+
+        /**
+         * Joins two treaps where all entries of {@code left} are ordered before those of {@code right}.
+         */
+        private static Node merge(Node left, Node right) {
+            if (left == null) {
+                return right;
+            }
+            if (right == null) {
+                return left;
+            }
+            if (left.priority > right.priority) {
+                left.right = merge(left.right, right);
+                left.update();
+                return left;
+            }
+            right.left = merge(left, right.left);
+            right.update();
+            return right;
+        }
+
+        private static int size(Node node) {
+            return node == null ? 0 : node.size;
+        }
+
+        private static final class Node {
+            private final LeaderboardEntry entry;
+            private final int priority = ThreadLocalRandom.current().nextInt();
+            private Node left;
+            private Node right;
+            private int size = 1;
+
+            Node(LeaderboardEntry entry) {
+                this.entry = entry;
+            }
+
+            void update() {
+                size = 1 + size(left) + size(right);
+            }
+        }
+    }
+}
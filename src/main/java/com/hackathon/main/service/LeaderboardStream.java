@@ -0,0 +1,278 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.dto.LeaderboardStreamStats;
+import com.hackathon.main.model.LeaderboardEntry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes leaderboard changes to subscribed clients as Server-Sent Events, so clients no longer
+ * poll {@code GET /api/leaderboard/{taskId}}.
+ * <p>
+ * A subscriber first gets a {@code snapshot} event with the whole leaderboard of the task, then
+ * {@code delta} events with the entries whose best score changed, which the client merges by user.
+ * Changes of a task are coalesced per user and sent at most
+ * {@code hackathon.leaderboard.stream.max-messages-per-second} times a second, so the outgoing
+ * traffic follows the rate of changes rather than the number of readers, and changes of tasks
+ * nobody watches cost nothing.
+ * <p>
+ * Every subscriber has its own sender virtual thread and a queue of at most
+ * {@code hackathon.leaderboard.stream.subscriber-buffer} messages. If a slow client lets its queue
+ * fill up, the queued deltas are dropped and replaced by one fresh snapshot, so a slow client
+ * costs bounded memory and never delays the others.
+ */
+@Service
+@Slf4j
+public class LeaderboardStream {
+
+    private static final Object SNAPSHOT = new Object();
+
+    private final LeaderboardIndex leaderboardIndex;
+    private final int maxMessagesPerSecond;
+    private final long flushIntervalNanos;
+    private final int subscriberBuffer;
+    private final int maxSubscribers;
+    private final Duration timeout;
+
+    private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("leaderboard-stream").daemon().factory());
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder deltasSent = new LongAdder();
+    private final LongAdder snapshotsSent = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public LeaderboardStream(
+            LeaderboardIndex leaderboardIndex,
+            @Value("${hackathon.leaderboard.stream.max-messages-per-second:2}") int maxMessagesPerSecond,
+            @Value("${hackathon.leaderboard.stream.subscriber-buffer:16}") int subscriberBuffer,
+            @Value("${hackathon.leaderboard.stream.max-subscribers:10000}") int maxSubscribers,
+            @Value("${hackathon.leaderboard.stream.timeout:30m}") Duration timeout
+    ) {
+        if (maxMessagesPerSecond <= 0 || subscriberBuffer <= 0) {
+            throw new IllegalArgumentException("max-messages-per-second and subscriber-buffer must be positive");
+        }
+        this.leaderboardIndex = leaderboardIndex;
+        this.maxMessagesPerSecond = maxMessagesPerSecond;
+        this.flushIntervalNanos = TimeUnit.SECONDS.toNanos(1) / maxMessagesPerSecond;
+        this.subscriberBuffer = subscriberBuffer;
+        this.maxSubscribers = maxSubscribers;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Subscribes to the leaderboard of a task. The emitter completes after
+     * {@code hackathon.leaderboard.stream.timeout}; clients reconnect and start with a new snapshot.
+     *
+     * @param taskId the ID of the task
+     * @return the emitter to return from the request
+     * @throws RejectedExecutionException if the maximum number of subscribers is reached
+     */
+    public SseEmitter subscribe(String taskId) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            rejected.increment();
+            throw new RejectedExecutionException("Too many leaderboard subscribers");
+        }
+        Subscriber subscriber = new Subscriber(taskId, newEmitter());
+        subscriber.queue.add(SNAPSHOT);
+        topics.compute(taskId, (key, topic) -> {
+            Topic current = topic != null ? topic : new Topic();
+            current.subscribers.add(subscriber);
+            return current;
+        });
+
+        subscriber.emitter.onCompletion(subscriber::close);
+        subscriber.emitter.onTimeout(subscriber.emitter::complete);
+        subscriber.emitter.onError(e -> subscriber.close());
+        subscriber.sender.start();
+        return subscriber.emitter;
+    }
+
+    /**
+     * Queues a changed leaderboard entry for the subscribers of its task. If an entry of the user
+     * is already queued, the better one is kept, since concurrent updates can be published in
+     * another order than they were written.
+     *
+     * @param entry the entry as stored
+     */
+    public void publish(LeaderboardEntry entry) {
+        Topic topic = topics.get(entry.getTaskId());
+        if (topic == null) {
+            return;
+        }
+        published.increment();
+        synchronized (topic) {
+            topic.pending.merge(entry.getUserId(), entry,
+                    (queued, update) -> LeaderboardIndex.ORDER.compare(queued, update) <= 0 ? queued : update);
+            schedule(topic);
+        }
+    }
+
+    /**
+     * Makes the subscribers of a task reload the whole leaderboard, e.g. after it was rebuilt.
+     *
+     * @param taskId the ID of the task
+     */
+    public void reset(String taskId) {
+        Topic topic = topics.get(taskId);
+        if (topic == null) {
+            return;
+        }
+        synchronized (topic) {
+            topic.pending.clear();
+            topic.reset = true;
+            schedule(topic);
+        }
+    }
+
+    /**
+     * @return a snapshot of the subscribers and the message counters since startup
+     */
+    public LeaderboardStreamStats stats() {
+        return new LeaderboardStreamStats(
+                subscribers.get(),
+                topics.size(),
+                maxSubscribers,
+                maxMessagesPerSecond,
+                subscriberBuffer,
+                published.sum(),
+                deltasSent.sum(),
+                snapshotsSent.sum(),
+                overflows.sum(),
+                rejected.sum()
+        );
+    }
+
+    // the emitter of a new subscriber; overridden in tests to record what is sent
+    SseEmitter newEmitter() {
+        return new SseEmitter(timeout.toMillis());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        topics.values().forEach(topic -> topic.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    // guarded by the topic
+    private void schedule(Topic topic) {
+        if (topic.flushScheduled) {
+            return;
+        }
+        topic.flushScheduled = true;
+        long delay = Math.max(0, topic.lastFlushNanos + flushIntervalNanos - System.nanoTime());
+        scheduler.schedule(() -> flush(topic), delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void flush(Topic topic) {
+        Object message;
+        synchronized (topic) {
+            topic.flushScheduled = false;
+            topic.lastFlushNanos = System.nanoTime();
+            if (topic.reset) {
+                message = SNAPSHOT;
+            } else if (!topic.pending.isEmpty()) {
+                message = List.copyOf(topic.pending.values());
+            } else {
+                return;
+            }
+            topic.reset = false;
+            topic.pending.clear();
+        }
+        for (Subscriber subscriber : topic.subscribers) {
+            subscriber.offer(message);
+        }
+    }
+
+    private static final class Topic {
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private final Map<String, LeaderboardEntry> pending = new LinkedHashMap<>();
+        private boolean reset;
+        private boolean flushScheduled;
+        private long lastFlushNanos = System.nanoTime() - TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private final class Subscriber {
+        private final String taskId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(subscriberBuffer);
+        private final Thread sender = Thread.ofVirtual().name("leaderboard-subscriber").unstarted(this::send);
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(String taskId, SseEmitter emitter) {
+            this.taskId = taskId;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Queues a message, or replaces everything queued by a snapshot if the client is too slow.
+         * Only called from the scheduler thread.
+         */
+        void offer(Object message) {
+            if (!queue.offer(message)) {
+                overflows.increment();
+                queue.clear();
+                queue.offer(SNAPSHOT);
+            }
+        }
+
+        void send() {
+            try {
+                while (!closed.get()) {
+                    Object message = queue.take();
+                    if (message == SNAPSHOT) {
+                        List<LeaderboardEntry> leaderboard = leaderboardIndex.top(taskId, Integer.MAX_VALUE);
+                        emitter.send(SseEmitter.event().name("snapshot").data(leaderboard, MediaType.APPLICATION_JSON));
+                        snapshotsSent.increment();
+                    } else {
+                        emitter.send(SseEmitter.event().name("delta").data(message, MediaType.APPLICATION_JSON));
+                        deltasSent.increment();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // closed
+            } catch (IOException | RuntimeException e) {
+                log.debug("Leaderboard subscriber of task {} disconnected: {}", taskId, e.getMessage());
+                emitter.completeWithError(e);
+                close();
+            }
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscribers.decrementAndGet();
+            topics.computeIfPresent(taskId, (key, topic) -> {
+                topic.subscribers.remove(this);
+                return topic.subscribers.isEmpty() ? null : topic;
+            });
+            sender.interrupt();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.hackathon.main.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed blob store on the local filesystem.
+ * <p>
+ * A blob is stored once under the hex SHA-256 of its content, sharded by the first two byte pairs
+ * of the hash ({@code ab/cd/abcd…}) below {@code hackathon.storage.local.root}. Identical contents
+ * of different tasks and submissions are therefore stored once. A blob is first written and
+ * hashed into a temporary file in the same directory tree, forced to disk and then atomically
+ * moved into place, so readers never see a partial blob. Blobs are immutable once in place.
+ * <p>
+ * A blob is shared by every file with its content, and a {@link #put(InputStream)} that finds the
+ * blob already in place returns before its caller has saved the document referring to it. Puts
+ * and deletes of a blob are therefore serialized on a lock striped by its key, a put of an
+ * existing blob touches its modification time, and {@link #deleteUnlessReferenced} keeps a blob
+ * for {@code hackathon.storage.local.delete-grace} after it was last put and retries afterwards.
+ */
+@Component
+@Slf4j
+public class LocalBlobStore {
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path root;
+    private final Duration deleteGrace;
+
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("local-blob-store").daemon().factory());
+
+    public LocalBlobStore(
+            @Value("${hackathon.storage.local.root:data/blobs}") Path root,
+            @Value("${hackathon.storage.local.delete-grace:10m}") Duration deleteGrace
+    ) {
+        this.root = root;
+        this.deleteGrace = deleteGrace;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * A stored blob.
+     *
+     * @param sha256 the hex SHA-256 of the content, which is also its key
+     * @param size   the size of the content in bytes
+     */
+    public record Blob(String sha256, long size) {
+    }
+
+    /**
+     * Writes content into the store unless a blob with the same hash already exists, in which case
+     * its grace period before it can be deleted starts again.
+     *
+     * @param in the content; read to its end but not closed
+     * @return the key and size of the blob
+     * @throws IOException if writing the blob fails
+     */
+    public Blob put(InputStream in) throws IOException {
+        Path tmpDir = root.resolve("tmp");
+        Files.createDirectories(tmpDir);
+        Path tmp = Files.createTempFile(tmpDir, "blob-", ".tmp");
+        try {
+            MessageDigest sha256 = sha256();
+            long size;
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE);
+                 OutputStream out = Channels.newOutputStream(channel)) {
+                size = new DigestInputStream(in, sha256).transferTo(out);
+                channel.force(true);
+            }
+
+            String key = HexFormat.of().formatHex(sha256.digest());
+            Path target = path(key);
+            ReentrantLock lock = lockOf(key);
+            lock.lock();
+            try {
+                if (Files.exists(target)) {
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                } else {
+                    Files.createDirectories(target.getParent());
+                    try {
+                        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (FileAlreadyExistsException e) {
+                        log.debug("Blob {} was stored concurrently", key);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            return new Blob(key, size);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * @param sha256 the key of a blob
+     * @return the path of the blob, which may not exist
+     * @throws IllegalArgumentException if the key is not a hex SHA-256
+     */
+    public Path path(String sha256) {
+        if (sha256 == null || !SHA256_HEX.matcher(sha256).matches()) {
+            throw new IllegalArgumentException("Invalid blob key: " + sha256);
+        }
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    /**
+     * @param sha256 the key of a blob
+     * @return the content of the blob; the caller must close it
+     * @throws IOException if the blob does not exist or cannot be opened
+     */
+    public InputStream open(String sha256) throws IOException {
+        return Files.newInputStream(path(sha256));
+    }
+
+    /**
+     * Deletes a blob unless something still refers to it. A blob put within the grace period is
+     * kept, since the document of the put may not be saved yet, and the deletion is retried once
+     * the grace period has passed; a restart in between leaves the blob orphaned.
+     *
+     * @param sha256     the key of a blob
+     * @param referenced checks whether any saved document refers to the blob; called under the blob's lock
+     * @throws IOException if the blob cannot be deleted
+     */
+    public void deleteUnlessReferenced(String sha256, BooleanSupplier referenced) throws IOException {
+        Path path = path(sha256);
+        ReentrantLock lock = lockOf(sha256);
+        lock.lock();
+        try {
+            if (!Files.exists(path)) {
+                return;
+            }
+            Duration age = Duration.between(Files.getLastModifiedTime(path).toInstant(), Instant.now());
+            if (age.compareTo(deleteGrace) < 0) {
+                scheduler.schedule(() -> retryDelete(sha256, referenced), deleteGrace.minus(age).toMillis(), TimeUnit.MILLISECONDS);
+                return;
+            }
+            if (!referenced.getAsBoolean()) {
+                Files.delete(path);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void retryDelete(String sha256, BooleanSupplier referenced) {
+        try {
+            deleteUnlessReferenced(sha256, referenced);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to delete local blob {}", sha256, e);
+        }
+    }
+
+    private ReentrantLock lockOf(String sha256) {
+        return locks[Integer.parseInt(sha256, 0, 2, 16) % LOCK_STRIPES];
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
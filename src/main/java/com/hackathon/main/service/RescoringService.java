@@ -0,0 +1,279 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.dto.RescoreJobStatus;
+import com.hackathon.main.model.LeaderboardEntry;
+import com.hackathon.main.model.RescoreJobState;
+import com.hackathon.main.model.Solution;
+import com.hackathon.main.model.SolutionStatus;
+import com.hackathon.main.model.TaskFile;
+import com.hackathon.main.repository.SolutionRepository;
+import com.hackathon.main.scoring.GroundTruth;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Re-scores all solutions of a task in the background, e.g. after its correct solution was fixed.
+ * <p>
+ * A job works against a single snapshot of the task's {@link GroundTruth}, parsed once when the job
+ * starts. It streams the task's solutions from a MongoDB cursor in batches of
+ * {@code hackathon.scoring.rescore.batch-size}, scores each batch in parallel on the scoring
+ * fork/join pool and writes the new scores back with one bulk write per batch. Byte-identical
+ * contents are only scored once per job. Finally the task's leaderboard is rebuilt from the best
+ * scored solution of every user, which also replaces manual score overrides. Solutions scored
+ * while the job runs are applied to the rebuilt leaderboard again afterwards, so neither the
+ * rebuild's write-back nor its removal of stale entries loses them.
+ * <p>
+ * At most one job runs per task; the last job of every task is kept for {@link #getStatus(String)}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RescoringService {
+
+    private final MongoTemplate mongoTemplate;
+    private final SolutionRepository solutionRepository;
+    private final ScoringService scoringService;
+    private final FileStorageService fileStorageService;
+    private final SubmissionIndex submissionIndex;
+    private final LeaderboardIndex leaderboardIndex;
+    private final LeaderboardStream leaderboardStream;
+    private final SolutionService solutionService;
+    private final ForkJoinPool scoringForkJoinPool;
+
+    @Value("${hackathon.scoring.rescore.batch-size:256}")
+    private int batchSize;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Starts re-scoring all scored and failed solutions of a task; pending solutions are left to
+     * the scoring queue.
+     *
+     * @param taskId the ID of the task
+     * @return the status of the started job
+     * @throws IllegalStateException    if a job is already running for the task
+     * @throws IllegalArgumentException if the task's correct solution cannot be parsed
+     * @throws RuntimeException         if the task does not exist
+     */
+    public RescoreJobStatus start(String taskId) {
+        long generation = submissionIndex.generation(taskId);
+        GroundTruth groundTruth = scoringService.getGroundTruth(taskId);
+        Job job = new Job(taskId, generation, mongoTemplate.count(solutionsToRescore(taskId), Solution.class));
+
+        Job current = jobs.compute(taskId, (id, previous) ->
+                previous != null && previous.state == RescoreJobState.RUNNING ? previous : job);
+        if (current != job) {
+            throw new IllegalStateException("A re-scoring job is already running for task " + taskId);
+        }
+
+        Thread.ofVirtual().name("rescore-" + taskId).start(() -> run(job, groundTruth));
+        return job.status();
+    }
+
+    /**
+     * @param taskId the ID of the task
+     * @return the progress of the running or last job of the task, if any
+     */
+    public Optional<RescoreJobStatus> getStatus(String taskId) {
+        return Optional.ofNullable(jobs.get(taskId)).map(Job::status);
+    }
+
+    private void run(Job job, GroundTruth groundTruth) {
+        log.info("Re-scoring {} solutions of task {}", job.total, job.taskId);
+        try {
+            Query query = solutionsToRescore(job.taskId).cursorBatchSize(batchSize);
+            try (Stream<Solution> solutions = mongoTemplate.stream(query, Solution.class)) {
+                Iterator<Solution> it = solutions.iterator();
+                List<Solution> batch = new ArrayList<>(batchSize);
+                while (it.hasNext()) {
+                    batch.add(it.next());
+                    if (batch.size() == batchSize || !it.hasNext()) {
+                        rescoreBatch(job, groundTruth, batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+            }
+            rebuildLeaderboard(job);
+            job.finish(RescoreJobState.COMPLETED, null);
+            log.info("Re-scored {} solutions of task {} ({} failed)", job.processed.sum(), job.taskId, job.failed.sum());
+        } catch (RuntimeException e) {
+            log.warn("Re-scoring of task {} failed", job.taskId, e);
+            job.finish(RescoreJobState.FAILED, e.getMessage());
+        }
+    }
+
+    private void rescoreBatch(Job job, GroundTruth groundTruth, List<Solution> batch) {
+        List<Rescored> results = scoringForkJoinPool
+                .submit(() -> batch.parallelStream().map(s -> rescore(job, groundTruth, s)).toList())
+                .join();
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Solution.class);
+        for (Rescored result : results) {
+            Update update = result.failureReason == null
+                    ? new Update().set("score", result.score).set("status", SolutionStatus.SCORED).unset("failureReason")
+                    : new Update().set("score", 0).set("status", SolutionStatus.FAILED).set("failureReason", result.failureReason);
+            bulk.updateOne(Query.query(where("_id").is(result.solutionId)), update);
+        }
+        bulk.execute();
+        job.processed.add(results.size());
+    }
+
+    private Rescored rescore(Job job, GroundTruth groundTruth, Solution solution) {
+        TaskFile file = solution.getFile();
+        String contentKey = file.getSha256() == null ? null : file.getSha256() + ':' + file.getContentType();
+        Integer known = contentKey == null ? null : job.scoresByContent.get(contentKey);
+        if (known != null) {
+            return new Rescored(solution.getId(), known, null);
+        }
+
+        try {
+            byte[] content = fileStorageService.load(storedFileOf(solution));
+            int score = scoringService.calculateScore(groundTruth, content, file.getContentType(), file.getFileName());
+            if (contentKey != null && job.scoresByContent.putIfAbsent(contentKey, score) == null) {
+                String ownerId = solution.getPayloadSolutionId() != null ? solution.getPayloadSolutionId() : solution.getId();
+                submissionIndex.record(job.taskId, file, score, ownerId, job.generation);
+            }
+            return new Rescored(solution.getId(), score, null);
+        } catch (RuntimeException e) {
+            job.failed.increment();
+            return new Rescored(solution.getId(), 0, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    private TaskFile storedFileOf(Solution solution) {
+        if (solution.getPayloadSolutionId() == null) {
+            return solution.getFile();
+        }
+        return solutionRepository.findById(solution.getPayloadSolutionId())
+                .map(Solution::getFile)
+                .orElseThrow(() -> new RuntimeException("Stored content of solution " + solution.getId() + " not found"));
+    }
+
+    /**
+     * Replaces the leaderboard of a task with the best scored solution of every user, ties going
+     * to the earlier submission.
+     * <p>
+     * Submissions race with the rebuild: one scored after the aggregation can be overwritten by
+     * the write-back, or have its new entry removed. So afterwards every solution submitted since
+     * the job started, or pending when the aggregation ran, is applied again with
+     * {@link SolutionService#updateLeaderboard(String, String, int, Instant)}, which only ever
+     * improves an entry.
+     */
+    private void rebuildLeaderboard(Job job) {
+        String taskId = job.taskId;
+        Query pendingQuery = Query.query(where("taskId").is(taskId).and("status").is(SolutionStatus.PENDING));
+        pendingQuery.fields().include("_id");
+        List<String> pending = mongoTemplate.find(pendingQuery, Solution.class).stream().map(Solution::getId).toList();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(where("taskId").is(taskId).and("status").nin(SolutionStatus.PENDING, SolutionStatus.FAILED)),
+                Aggregation.project("userId", "score", "submissionTimestamp"),
+                Aggregation.sort(Sort.by(Sort.Order.desc("score"), Sort.Order.asc("submissionTimestamp"))),
+                Aggregation.group("userId")
+                        .first("score").as("bestScore")
+                        .first("submissionTimestamp").as("bestScoreTimestamp")
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        List<Document> best = mongoTemplate.aggregate(aggregation, Solution.class, Document.class).getMappedResults();
+
+        if (!best.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LeaderboardEntry.class);
+            for (Document entry : best) {
+                bulk.upsert(
+                        Query.query(where("userId").is(entry.getString("_id")).and("taskId").is(taskId)),
+                        new Update()
+                                .set("bestScore", entry.getInteger("bestScore"))
+                                .set("bestScoreTimestamp", entry.getDate("bestScoreTimestamp")));
+            }
+            bulk.execute();
+        }
+
+        Set<String> users = best.stream().map(entry -> entry.getString("_id")).collect(Collectors.toSet());
+        mongoTemplate.remove(Query.query(where("taskId").is(taskId).and("userId").nin(users)), LeaderboardEntry.class);
+
+        Query scoredMeanwhile = Query.query(where("taskId").is(taskId).and("status").is(SolutionStatus.SCORED)
+                .orOperator(where("submissionTimestamp").gte(job.startedAt), where("_id").in(pending)));
+        scoredMeanwhile.fields().include("userId", "taskId", "score", "submissionTimestamp");
+        for (Solution solution : mongoTemplate.find(scoredMeanwhile, Solution.class)) {
+            solutionService.updateLeaderboard(solution.getUserId(), taskId, solution.getScore(), solution.getSubmissionTimestamp());
+        }
+        leaderboardIndex.reload(taskId);
+        leaderboardStream.reset(taskId);
+    }
+
+    private static Query solutionsToRescore(String taskId) {
+        return Query.query(where("taskId").is(taskId).and("status").ne(SolutionStatus.PENDING));
+    }
+
+    private record Rescored(String solutionId, int score, String failureReason) {
+    }
+
+    private static final class Job {
+        private final String taskId;
+        // the SubmissionIndex generation the ground truth was loaded in
+        private final long generation;
+        private final long total;
+        private final Instant startedAt = Instant.now();
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final Map<String, Integer> scoresByContent = new ConcurrentHashMap<>();
+
+        private volatile RescoreJobState state = RescoreJobState.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        Job(String taskId, long generation, long total) {
+            this.taskId = taskId;
+            this.generation = generation;
+            this.total = total;
+        }
+
+        void finish(RescoreJobState state, String error) {
+            this.error = error;
+            this.finishedAt = Instant.now();
+            this.state = state;
+            scoresByContent.clear();
+        }
+
+        RescoreJobStatus status() {
+            long done = processed.sum();
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            double seconds = Duration.between(startedAt, end).toNanos() / 1e9;
+            return new RescoreJobStatus(
+                    taskId,
+                    state,
+                    total,
+                    done,
+                    failed.sum(),
+                    seconds > 0 ? done / seconds : 0,
+                    startedAt,
+                    finishedAt,
+                    error
+            );
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.dto.ScoringQueueStats;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded executor for asynchronous scoring jobs.
+ * <p>
+ * Every accepted job gets its own virtual thread, which waits for one of
+ * {@code hackathon.scoring.async.concurrency} permits before running. At most
+ * {@code hackathon.scoring.async.queue-capacity} jobs may wait at the same time; further submissions
+ * are rejected. A job that waits longer than {@code hackathon.scoring.async.max-queue-wait} is not
+ * run and its timeout callback is invoked instead.
+ */
+@Component
+@Slf4j
+public class ScoringExecutor {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final int concurrency;
+    private final int queueCapacity;
+    private final Duration maxQueueWait;
+    private final Semaphore permits;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public ScoringExecutor(
+            @Value("${hackathon.scoring.async.concurrency:0}") int concurrency,
+            @Value("${hackathon.scoring.async.queue-capacity:1000}") int queueCapacity,
+            @Value("${hackathon.scoring.async.max-queue-wait:60s}") Duration maxQueueWait
+    ) {
+        this.concurrency = concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = queueCapacity;
+        this.maxQueueWait = maxQueueWait;
+        this.permits = new Semaphore(this.concurrency, true);
+    }
+
+    /**
+     * @return {@code true} if a job submitted now would currently be accepted
+     */
+    public boolean hasCapacity() {
+        return queued.get() < queueCapacity;
+    }
+
+    /**
+     * Queues a scoring job.
+     *
+     * @param job       the job to run once a permit is available
+     * @param onTimeout invoked instead of the job if it waited longer than the maximum queue wait
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public void submit(Runnable job, Runnable onTimeout) {
+        int current;
+        do {
+            current = queued.get();
+            if (current >= queueCapacity) {
+                rejected.increment();
+                throw new RejectedExecutionException("Scoring queue is full");
+            }
+        } while (!queued.compareAndSet(current, current + 1));
+
+        submitted.increment();
+        long enqueuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> run(job, onTimeout, enqueuedAt));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    private void run(Runnable job, Runnable onTimeout, long enqueuedAt) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxQueueWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            queued.decrementAndGet();
+        }
+
+        long waited = System.nanoTime() - enqueuedAt;
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        if (!acquired) {
+            timedOut.increment();
+            log.warn("Scoring job timed out after waiting {} ms in the queue", TimeUnit.NANOSECONDS.toMillis(waited));
+            onTimeout.run();
+            return;
+        }
+
+        running.incrementAndGet();
+        try {
+            job.run();
+        } catch (RuntimeException e) {
+            log.error("Scoring job failed", e);
+        } finally {
+            running.decrementAndGet();
+            completed.increment();
+            permits.release();
+        }
+    }
+
+    /**
+     * @return a snapshot of the queue depth, configuration and wait-time counters
+     */
+    public ScoringQueueStats stats() {
+        long started = completed.sum() + running.get() + timedOut.sum();
+        double averageWait = started == 0 ? 0 : totalWaitNanos.sum() / (double) started / 1_000_000;
+        return new ScoringQueueStats(
+                queued.get(),
+                running.get(),
+                queueCapacity,
+                concurrency,
+                maxQueueWait.toMillis(),
+                submitted.sum(),
+                completed.sum(),
+                rejected.sum(),
+                timedOut.sum(),
+                averageWait,
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get())
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,154 +1,249 @@
 package com.hackathon.main.service;
 
+import com.hackathon.main.model.ScoreTransform;
+import com.hackathon.main.model.SubmissionLimits;
+import com.hackathon.main.model.Task;
 import com.hackathon.main.model.TaskFile;
+import com.hackathon.main.scoring.Compression;
+import com.hackathon.main.scoring.GroundTruth;
+import com.hackathon.main.scoring.Metric;
+import com.hackathon.main.scoring.Metrics;
+import com.hackathon.main.scoring.NumericParser;
+import com.hackathon.main.scoring.ParallelScorer;
+import com.hackathon.main.scoring.ParseBudget;
+import com.hackathon.main.scoring.StandardMetric;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.*;
-import java.util.Base64;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ScoringService {
     private final TaskService taskService;
+    private final GroundTruthCache groundTruthCache;
+    private final ParallelScorer parallelScorer;
+    private final UploadSpooler uploadSpooler;
+    private final FileStorageService fileStorageService;
+
+    // submissions at least this large are parsed and scored on the fork/join pool; 0 disables
+    @Value("${hackathon.scoring.parallel.threshold-bytes:8388608}")
+    private long parallelThresholdBytes;
+
+    // per-submission limits of tasks without their own SubmissionLimits
+    @Value("${hackathon.scoring.limits.max-bytes:268435456}")
+    private long defaultMaxBytes;
+
+    @Value("${hackathon.scoring.limits.max-parse-time:30s}")
+    private Duration defaultMaxParseTime;
 
     /**
-     * Calculates a score for a submitted solution file for a given task.
+     * Starts scoring a submitted solution file for a given task from the bytes the caller writes to
+     * the returned {@link SubmissionScorer} while it reads the upload for another purpose, such as
+     * storing it, so the upload is read only once.
      * <p>
-     * The method:
+     * Scoring:
      * <ol>
-     *     <li>Fetches the correct solution file for the given task ID.</li>
-     *     <li>Decodes the correct solution from Base64 to plain text.</li>
-     *     <li>Reads the submitted file content as plain text.</li>
-     *     <li>Parses both contents into lists of {@link Double} values
-     *         (either from JSON array or CSV, depending on content type).</li>
-     *     <li>Computes the RMSE (Root Mean Square Error) between both lists.</li>
-     *     <li>Transforms the RMSE into a score from 0 to 100, where lower RMSE means higher score.</li>
+     *     <li>Fetches the parsed correct solution for the given task ID with {@link #getGroundTruth(String)}.</li>
+     *     <li>Parses the submitted file into a {@code double[]} array with {@link NumericParser}
+     *         (JSON array, CSV, {@code .npy} or raw little-endian floats, depending on the content type
+     *         or, failing that, the file extension; gzip and zstd compression is recognised by its
+     *         magic number, for raw floats only with a {@code .gz} or {@code .zst} file name, and decoded on the fly) on a virtual thread while the bytes are being
+     *         written, instead of copying it into a {@link String}. Uncompressed files of at least
+     *         {@code hackathon.scoring.parallel.threshold-bytes} are instead collected and reduced
+     *         chunk by chunk on the fork/join pool without building an array of the submitted
+     *         values: in memory, or, if they also reach {@code hackathon.upload.mmap-threshold-bytes},
+     *         spooled to a temporary file by the {@link UploadSpooler} and memory-mapped, so their
+     *         heap use does not grow with the file size.</li>
+     *     <li>Parsing runs within the task's {@link ParseBudget} and aborts as soon as the submission
+     *         exceeds its byte or time limit or has more values than the correct solution; the
+     *         time limit includes waiting for the caller's writes.</li>
+     *     <li>Computes the task's {@link Metric} (RMSE by default) between both arrays in a single pass.</li>
+     *     <li>Transforms the metric value into a score from 0 to 100 with the task's {@link ScoreTransform}
+     *         (by default {@code 100 - 3 * rmse}, so lower RMSE means higher score).</li>
      * </ol>
      *
      * @param taskId the ID of the task whose solution is being evaluated
-     * @param file   the submitted solution file uploaded by the user
-     * @return an integer score in the range 0–100
-     * @throws Exception if:
-     *                   <ul>
-     *                       <li>the stored or submitted content cannot be parsed,</li>
-     *                       <li>the lists have different sizes,</li>
-     *                       <li>or the file types are unsupported.</li>
-     *                   </ul>
+     * @param file   the submitted solution file uploaded by the user; only its first bytes are read here
+     * @return the scorer to write the content of {@code file} to; {@link SubmissionScorer#finish()}
+     *         returns the score, an integer in the range 0–100, and the scorer must be closed
+     * @throws IOException              if reading the first bytes or creating a spool file fails
+     * @throws IllegalArgumentException if the stored content cannot be parsed or the file exceeds the byte limit;
+     *                                  writing to the scorer or finishing it also throws one if the
+     *                                  submitted content cannot be parsed, has the wrong length,
+     *                                  exceeds a limit of the task's parse budget or has an unsupported type
      */
-    public int calculateScore(String taskId, MultipartFile file) throws IOException, IllegalArgumentException {
-        TaskFile taskFile = taskService.getTaskById(taskId).getSolutionFile();
-        byte[] bytes = Base64.getDecoder().decode(taskFile.getDataBase64());
-
-        String correctSolution = new String(bytes);
-        String submittedSolution = new String(file.getBytes());
-        System.out.println("Correct src: " + correctSolution);
-        System.out.println("Submitted src: " + file.getContentType());
-        System.out.println("Correct type: " + taskFile.getContentType());
-        System.out.println("Submitted type: " + submittedSolution);
-        List<Double> correct = fileToList(correctSolution, taskFile.getContentType());
-        List<Double> submitted = fileToList(submittedSolution, file.getContentType());
-
-        if (correct.size() != submitted.size()) {
-            throw new IllegalArgumentException("Correct and submitted solution arrays must have the same length");
+    public SubmissionScorer startScoring(String taskId, MultipartFile file) throws IOException, IllegalArgumentException {
+        String type = NumericParser.resolveType(file.getContentType(), file.getOriginalFilename());
+        GroundTruth groundTruth = getGroundTruth(taskId);
+        // Rejected before anything is copied; compressed content only ever grows when decompressed.
+        groundTruth.getSubmissionBudget().checkBytes(file.getSize());
+        // Compressed content cannot be split into chunks, so it is decompressed while streaming.
+        if (!isCompressed(file, type)) {
+            // the parallel threshold decides how a file is scored, the spool threshold only where a
+            // file scored in parallel is held
+            if (isParallel(file.getSize())) {
+                if (uploadSpooler.shouldSpool(file.getSize())) {
+                    return SubmissionScorer.spooled(uploadSpooler.create(),
+                            content -> calculateScoreInParallel(groundTruth, content, type));
+                }
+                return SubmissionScorer.buffered((int) file.getSize(),
+                        content -> calculateScoreInParallel(groundTruth, content, type));
+            }
         }
+        return SubmissionScorer.streaming(in -> calculateScore(groundTruth, in, type, file.getOriginalFilename()));
+    }
 
-        double output = rmse(correct, submitted);
-        int score = (int) Math.max(0, 100 - output * 3);
-        return score;
+    /**
+     * Calculates a score for submitted solution content that is already in memory, in parallel
+     * if it reaches {@code hackathon.scoring.parallel.threshold-bytes} and is not compressed.
+     *
+     * @param taskId      the ID of the task whose solution is being evaluated
+     * @param content     the submitted solution content
+     * @param contentType the MIME content type of the submitted content
+     * @param fileName    the original file name of the submitted content, possibly {@code null}
+     * @return an integer score in the range 0–100
+     * @throws IllegalArgumentException if the content cannot be parsed, has the wrong length or an unsupported type
+     * @see #startScoring(String, MultipartFile)
+     */
+    public int calculateScore(String taskId, byte[] content, String contentType, String fileName) throws IllegalArgumentException {
+        return calculateScore(getGroundTruth(taskId), content, contentType, fileName);
     }
 
     /**
-     * Parses the textual content of a solution into a list of {@link Double} values,
-     * based on the provided content type.
-     * <p>
-     * Supported formats:
-     * <ul>
-     *     <li>{@code application/json} → JSON array of numbers, e.g. {@code [1.0, 2.5, 3]}</li>
-     *     <li>{@code text/csv} → CSV list of numbers, e.g. {@code 1.0,2.5,3}</li>
-     * </ul>
-     * For JSON input, the method expects the content to start with {@code '['} and end with {@code ']'}.
-     * For CSV input, the method expects at least one comma in the content.
+     * Calculates a score for submitted solution content against a given ground truth, e.g. one
+     * snapshot shared by all solutions of a bulk re-scoring.
      *
-     * @param content the textual content of the solution file
-     * @param type    the MIME content type of the file (e.g. {@code application/json}, {@code text/csv})
-     * @return a list of {@link Double} values parsed from the content
-     * @throws IllegalArgumentException if the format is invalid or the type is unsupported
+     * @param groundTruth the parsed correct solution and scoring settings of the task
+     * @param content     the submitted solution content
+     * @param contentType the MIME content type of the submitted content
+     * @param fileName    the original file name of the submitted content, possibly {@code null}
+     * @return an integer score in the range 0–100
+     * @throws IllegalArgumentException if the content cannot be parsed, has the wrong length or an unsupported type
+     * @see #calculateScore(String, byte[], String, String)
      */
-    private static List<Double> fileToList(String content, String type) throws IllegalArgumentException {
+    public int calculateScore(GroundTruth groundTruth, byte[] content, String contentType, String fileName) throws IllegalArgumentException {
+        if (isParallel(content.length) && Compression.detect(content, content.length, contentType, fileName) == Compression.NONE) {
+            return calculateScoreInParallel(groundTruth, ByteBuffer.wrap(content), contentType);
+        }
+        double[] submitted = NumericParser.parse(content, contentType, fileName, groundTruth.getSubmissionBudget());
+        return score(groundTruth, submitted);
+    }
 
-        // 1. JSON ARRAY → must start with "[" and end with "]"
-        if (type != null && type.equals("application/json")) {
-            if (!content.startsWith("[") || !content.endsWith("]")) {
-                throw new IllegalArgumentException("Invalid JSON array format");
-            }
+    /**
+     * Returns the parsed correct solution of a task with its scoring settings, from the
+     * {@link GroundTruthCache} or loaded with {@link #loadGroundTruth(String)} on a miss.
+     *
+     * @param taskId the ID of the task
+     * @return the ground truth, whose values must be treated as read-only
+     * @throws IllegalArgumentException if the stored content cannot be parsed or its type is unsupported
+     */
+    public GroundTruth getGroundTruth(String taskId) {
+        return groundTruthCache.get(taskId, this::loadGroundTruth);
+    }
 
-            try {
-                String inner = content.substring(1, content.length() - 1).trim();
+    /**
+     * Calculates a score for submitted solution content read from a stream.
+     *
+     * @param taskId      the ID of the task whose solution is being evaluated
+     * @param in          the submitted solution content, possibly compressed; it is closed once read
+     * @param contentType the MIME content type of the submitted content
+     * @param fileName    the original file name of the submitted content, possibly {@code null}
+     * @return an integer score in the range 0–100
+     * @throws IOException              if reading the content fails
+     * @throws IllegalArgumentException if the content cannot be parsed, has the wrong length or an unsupported type
+     * @see #startScoring(String, MultipartFile)
+     */
+    public int calculateScore(String taskId, InputStream in, String contentType, String fileName) throws IOException, IllegalArgumentException {
+        log.debug("Scoring submission of type {} for task {}", contentType, taskId);
+        return calculateScore(getGroundTruth(taskId), in, contentType, fileName);
+    }
+
+    private int calculateScore(GroundTruth groundTruth, InputStream in, String contentType, String fileName) throws IOException {
+        double[] submitted = NumericParser.parse(in, contentType, fileName, groundTruth.getSubmissionBudget());
+        return score(groundTruth, submitted);
+    }
 
-                if (inner.isEmpty()) return List.of();
+    /**
+     * Parses and scores a large submission on the fork/join pool with {@link ParallelScorer}:
+     * chunks are parsed into partial metric accumulators which are merged into the final value.
+     *
+     * @param groundTruth the parsed correct solution and scoring settings of the task
+     * @param content     the submitted solution content, on the heap or memory-mapped
+     * @param contentType the MIME content type of the submitted content
+     * @return an integer score in the range 0–100
+     * @throws IllegalArgumentException if the content cannot be parsed, has the wrong length or an unsupported type
+     */
+    private int calculateScoreInParallel(GroundTruth groundTruth, ByteBuffer content, String contentType) {
+        double[] correct = groundTruth.getValues();
 
-                String[] parts = inner.split(",");
+        log.debug("Scoring {} byte submission of type {} in parallel", content.remaining(), contentType);
+        ParallelScorer.Result result = parallelScorer.score(
+                content, contentType, correct, groundTruth.getMetric(), groundTruth.getSubmissionBudget());
 
-                List<Double> result = new ArrayList<>();
-                for (String part : parts) {
-                    result.add(Double.parseDouble(part.trim()));
-                }
-                return result;
-            } catch (Exception e) {
-                throw new IllegalArgumentException("Failed to parse JSON array", e);
-            }
+        if (result.count() != correct.length) {
+            throw new IllegalArgumentException("Correct and submitted solution arrays must have the same length");
         }
+        return groundTruth.getScoreTransform().apply(result.accumulator().result());
+    }
 
-        // 2. CSV ARRAY → no brackets, contains commas
-        if (type != null && (type.equals("text/csv"))) {
+    private int score(GroundTruth groundTruth, double[] submitted) {
+        double[] correct = groundTruth.getValues();
+        if (correct.length != submitted.length) {
+            throw new IllegalArgumentException("Correct and submitted solution arrays must have the same length");
+        }
 
-            if (!content.contains(",")) {
-                throw new IllegalArgumentException("Invalid CSV array format");
-            }
+        double output = Metrics.evaluate(groundTruth.getMetric(), correct, submitted);
+        return groundTruth.getScoreTransform().apply(output);
+    }
 
-            try {
-                return Arrays.stream(content.split(","))
-                        .map(String::trim)
-                        .map(Double::parseDouble)
-                        .toList();
-            } catch (Exception e) {
-                throw new IllegalArgumentException("Failed to parse CSV array", e);
-            }
+    private static boolean isCompressed(MultipartFile file, String type) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            byte[] head = in.readNBytes(Compression.MAGIC_LENGTH);
+            return Compression.detect(head, head.length, type, file.getOriginalFilename()) != Compression.NONE;
         }
+    }
 
-        // 3. ANYTHING ELSE → reject
-        throw new IllegalArgumentException("Unsupported file type: " + type);
+    private boolean isParallel(long size) {
+        return parallelThresholdBytes > 0 && size >= parallelThresholdBytes;
     }
 
     /**
-     * Calculates the Root Mean Square Error (RMSE) between two numeric sequences.
-     * <p>
-     * RMSE is defined as:
-     * <pre>
-     *   RMSE = sqrt( (1/n) * Σ (a_i - b_i)^2 )
-     * </pre>
-     * where {@code a_i} and {@code b_i} are corresponding elements of the input lists.
+     * Loads the correct solution file of a task, reads it from storage and parses it, and resolves
+     * the task's metric and score transform (RMSE and the metric's default transform if unset) and
+     * its submission parse budget (the configured defaults for unset limits, at most as many values
+     * as the correct solution).
      *
-     * @param a the first list of numeric values (e.g. correct solution)
-     * @param b the second list of numeric values (e.g. submitted solution)
-     * @return the RMSE value as a {@code double}
-     * @throws IllegalArgumentException if the lists have different lengths
+     * @param taskId the ID of the task
+     * @return the parsed correct solution with its scoring settings
+     * @throws IllegalArgumentException if the stored content cannot be parsed or its type is unsupported
      */
-    private static double rmse(List<Double> a, List<Double> b) throws IllegalArgumentException {
-        if (a.size() != b.size()) {
-            throw new IllegalArgumentException("Arrays must have the same length");
-        }
-
-        double sum = 0.0;
-        for (int i = 0; i < a.size(); i++) {
-            double diff = a.get(i) - b.get(i);
-            sum += diff * diff;
-        }
+    private GroundTruth loadGroundTruth(String taskId) {
+        Task task = taskService.getTaskById(taskId);
+        TaskFile taskFile = task.getSolutionFile();
+        byte[] bytes = fileStorageService.load(taskFile);
+        double[] values = NumericParser.parse(bytes, taskFile.getContentType(), taskFile.getFileName(), ParseBudget.UNLIMITED);
+
+        Metric metric = task.getMetric() != null ? task.getMetric() : StandardMetric.RMSE;
+        ScoreTransform transform = task.getScoreTransform() != null
+                ? task.getScoreTransform()
+                : metric.defaultScoreTransform();
+        return new GroundTruth(values, metric, transform, submissionBudget(task.getSubmissionLimits(), values.length));
+    }
 
-        return Math.sqrt(sum / a.size());
+    private ParseBudget submissionBudget(SubmissionLimits limits, int valueCount) {
+        long maxBytes = limits != null && limits.getMaxBytes() != null ? limits.getMaxBytes() : defaultMaxBytes;
+        Duration maxParseTime = limits != null && limits.getMaxParseMillis() != null
+                ? Duration.ofMillis(limits.getMaxParseMillis())
+                : defaultMaxParseTime;
+        return ParseBudget.of(maxBytes, valueCount, maxParseTime);
     }
 
 }
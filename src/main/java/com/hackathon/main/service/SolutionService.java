@@ -1,29 +1,84 @@
 package com.hackathon.main.service;
 
+import com.hackathon.main.dto.LeaderboardWindow;
 import com.hackathon.main.dto.ManualScoreDTO;
+import com.hackathon.main.dto.SolutionFilter;
+import com.hackathon.main.dto.SolutionPage;
+import com.hackathon.main.dto.SolutionStatusDTO;
 import com.hackathon.main.model.LeaderboardEntry;
 import com.hackathon.main.model.Solution;
+import com.hackathon.main.model.SolutionStatus;
+import com.hackathon.main.model.SubmissionFingerprint;
 import com.hackathon.main.model.TaskFile;
 import com.hackathon.main.repository.LeaderboardRepository;
 import com.hackathon.main.repository.SolutionRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class SolutionService {
 
     private final SolutionRepository solutionRepository;
     private final LeaderboardRepository leaderboardRepository;
     private final ScoringService scoringService;
+    private final ScoringExecutor scoringExecutor;
+    private final FileStorageService fileStorageService;
+    private final SubmissionIndex submissionIndex;
+    private final LeaderboardIndex leaderboardIndex;
+    private final LeaderboardStream leaderboardStream;
+    private final MongoTemplate mongoTemplate;
+
+    public static final int MAX_PAGE_SIZE = 500;
+    private static final long PENDING_RECOVERY_BACKOFF_MILLIS = 1000;
+
+    /**
+     * Creates the indexes that keyset pagination of listings walks, newest first, see
+     * {@link #getSolutionPage}; indexes are not created automatically.
+     */
+    @PostConstruct
+    void createIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Solution.class);
+        indexOps.createIndex(new Index()
+                .on("taskId", Sort.Direction.ASC)
+                .on("submissionTimestamp", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC)
+                .named("task_submitted"));
+        indexOps.createIndex(new Index()
+                .on("userId", Sort.Direction.ASC)
+                .on("submissionTimestamp", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC)
+                .named("user_submitted"));
+        indexOps.createIndex(new Index()
+                .on("submissionTimestamp", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC)
+                .named("submitted"));
+    }
 
     /**
      * Submits a new solution for a given user and task, computes its score,
@@ -31,8 +86,12 @@ public class SolutionService {
      * <p>
      * Workflow:
      * <ol>
-     *     <li>Validates and processes the uploaded file into a {@link TaskFile}.</li>
-     *     <li>Calculates a score using {@link ScoringService#calculateScore(String, MultipartFile)}.</li>
+     *     <li>Validates the uploaded file and reads it once, feeding every chunk to the storage
+     *         writer, which hashes it into a {@link TaskFile}, and to the parser started with
+     *         {@link ScoringService#startScoring(String, MultipartFile)}, so storing and scoring
+     *         overlap. A submission that fails to parse aborts the read and is not stored.</li>
+     *     <li>Reuses the score and stored content of a byte-identical earlier submission from the
+     *         {@link SubmissionIndex}, or otherwise takes the calculated score and indexes it.</li>
      *     <li>Creates and saves a new {@link Solution} containing user, task, score, timestamp and file.</li>
      *     <li>Updates the corresponding {@link LeaderboardEntry} using {@link #updateLeaderboard(String, String, int, Instant)}.</li>
      * </ol>
@@ -42,29 +101,221 @@ public class SolutionService {
      * @param file   the uploaded solution file
      * @return the persisted {@link Solution} entity
      * @throws IOException if reading the file bytes fails
-     * @throws RuntimeException if the file is null/empty or scoring fails internally
+     * @throws RuntimeException if the file is null/empty or scoring fails internally; the stored
+     *                          content is deleted again in that case
      */
     @Transactional
     public Solution submitSolution(String userId, String taskId, MultipartFile file) throws IOException {
+        requireFile(file);
 
-        TaskFile taskFile = processFile(file);
+        long generation = submissionIndex.generation(taskId);
+        TaskFile taskFile;
+        int newScore;
+        try (SubmissionScorer scorer = scoringService.startScoring(taskId, file)) {
+            taskFile = fileStorageService.store(file, taskId, scorer);
+            try {
+                newScore = scorer.finish();
+            } catch (IOException | RuntimeException e) {
+                fileStorageService.delete(taskFile);
+                throw e;
+            }
+        }
+        Solution newLogEntry = new Solution();
 
-        int newScore = scoringService.calculateScore(taskId, file);
+        Optional<SubmissionFingerprint> identical = submissionIndex.find(taskId, taskFile);
+        if (identical.isPresent()) {
+            newScore = identical.get().getScore();
+            shareStoredContent(newLogEntry, taskFile, identical.get());
+        }
         Instant newTimestamp = Instant.now();
 
-        Solution newLogEntry = new Solution();
         newLogEntry.setUserId(userId);
         newLogEntry.setTaskId(taskId);
         newLogEntry.setScore(newScore);
         newLogEntry.setSubmissionTimestamp(newTimestamp);
         newLogEntry.setFile(taskFile);
         solutionRepository.save(newLogEntry);
+        if (identical.isEmpty()) {
+            submissionIndex.record(taskId, taskFile, newScore, newLogEntry.getId(), generation);
+        }
 
         updateLeaderboard(userId, taskId, newScore, newTimestamp);
 
         return newLogEntry;
     }
 
+    /**
+     * Stores a new solution as {@link SolutionStatus#PENDING} and scores it in the background.
+     * <p>
+     * Workflow:
+     * <ol>
+     *     <li>Rejects the submission up front if the {@link ScoringExecutor} queue is full.</li>
+     *     <li>Validates and processes the uploaded file into a {@link TaskFile}.</li>
+     *     <li>If the {@link SubmissionIndex} knows a byte-identical earlier submission, saves the
+     *         solution as {@link SolutionStatus#SCORED} with its score right away.</li>
+     *     <li>Otherwise saves a pending {@link Solution} and queues {@link #scorePendingSolution(String)} for it.</li>
+     * </ol>
+     * The caller can follow the result with {@link #getSolutionStatus(String)}.
+     *
+     * @param userId the ID of the user submitting the solution
+     * @param taskId the ID of the task the solution belongs to
+     * @param file   the uploaded solution file
+     * @return the persisted pending {@link Solution}
+     * @throws IOException                if reading the file bytes fails
+     * @throws RejectedExecutionException if the scoring queue is full
+     * @throws RuntimeException           if the file is null/empty
+     */
+    public Solution submitSolutionAsync(String userId, String taskId, MultipartFile file) throws IOException {
+        if (!scoringExecutor.hasCapacity()) {
+            throw new RejectedExecutionException("Scoring queue is full");
+        }
+
+        TaskFile taskFile = processFile(taskId, file);
+
+        Solution pending = new Solution();
+        pending.setUserId(userId);
+        pending.setTaskId(taskId);
+        pending.setSubmissionTimestamp(Instant.now());
+        pending.setFile(taskFile);
+
+        Optional<SubmissionFingerprint> identical = submissionIndex.find(taskId, taskFile);
+        if (identical.isPresent()) {
+            pending.setScore(identical.get().getScore());
+            shareStoredContent(pending, taskFile, identical.get());
+            solutionRepository.save(pending);
+            updateLeaderboard(userId, taskId, pending.getScore(), pending.getSubmissionTimestamp());
+            return pending;
+        }
+
+        pending.setStatus(SolutionStatus.PENDING);
+        solutionRepository.save(pending);
+
+        try {
+            queuePendingSolution(pending.getId());
+        } catch (RejectedExecutionException e) {
+            solutionRepository.deleteById(pending.getId());
+            fileStorageService.delete(taskFile);
+            throw e;
+        }
+        return pending;
+    }
+
+    private void queuePendingSolution(String id) {
+        scoringExecutor.submit(
+                () -> scorePendingSolution(id),
+                () -> failPendingSolution(id, "Timed out waiting for scoring")
+        );
+    }
+
+    /**
+     * Queues the solutions left {@link SolutionStatus#PENDING} by a previous run, whose place in
+     * the in-memory scoring queue was lost, waiting for room in the queue as needed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void requeuePendingSolutions() {
+        Thread.ofVirtual().name("pending-solution-recovery").start(() -> {
+            Query pending = Query.query(where("status").is(SolutionStatus.PENDING));
+            pending.fields().include("_id");
+            int queued = 0;
+            try {
+                // IDs up front, as waiting for room in the queue could outlast a cursor
+                for (Solution solution : mongoTemplate.find(pending, Solution.class)) {
+                    while (!tryQueuePendingSolution(solution.getId())) {
+                        Thread.sleep(PENDING_RECOVERY_BACKOFF_MILLIS);
+                    }
+                    queued++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Re-queueing pending solutions failed", e);
+            }
+            if (queued > 0) {
+                log.info("Re-queued {} pending solutions for scoring", queued);
+            }
+        });
+    }
+
+    private boolean tryQueuePendingSolution(String id) {
+        try {
+            queuePendingSolution(id);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Scores a pending solution from its stored file, then marks it {@link SolutionStatus#SCORED}
+     * and updates the leaderboard, or marks it {@link SolutionStatus#FAILED} if scoring fails.
+     * The solution is read afresh, as its file may have been moved meanwhile; if it was deleted or
+     * is no longer pending, nothing is done.
+     *
+     * @param id the ID of the pending solution
+     */
+    private void scorePendingSolution(String id) {
+        Solution solution = mongoTemplate.findOne(
+                Query.query(where("_id").is(id).and("status").is(SolutionStatus.PENDING)), Solution.class);
+        if (solution == null) {
+            return;
+        }
+        TaskFile taskFile = solution.getFile();
+        long generation = submissionIndex.generation(solution.getTaskId());
+        int score;
+        try {
+            byte[] content = fileStorageService.load(taskFile);
+            score = scoringService.calculateScore(solution.getTaskId(), content, taskFile.getContentType(), taskFile.getFileName());
+        } catch (RuntimeException e) {
+            log.info("Scoring of solution {} failed: {}", id, e.getMessage());
+            failPendingSolution(id, e.getMessage());
+            return;
+        }
+
+        if (!completePendingSolution(id, new Update().set("score", score).set("status", SolutionStatus.SCORED))) {
+            return;
+        }
+        submissionIndex.record(solution.getTaskId(), taskFile, score, id, generation);
+
+        updateLeaderboard(solution.getUserId(), solution.getTaskId(), score, solution.getSubmissionTimestamp());
+    }
+
+    /**
+     * Makes a solution refer to the stored content of a byte-identical earlier solution instead of
+     * keeping its own copy, which is deleted.
+     */
+    private void shareStoredContent(Solution solution, TaskFile taskFile, SubmissionFingerprint identical) {
+        fileStorageService.delete(taskFile);
+        solution.setPayloadSolutionId(identical.getSolutionId());
+    }
+
+    private void failPendingSolution(String id, String reason) {
+        completePendingSolution(id, new Update().set("score", 0).set("status", SolutionStatus.FAILED).set("failureReason", reason));
+    }
+
+    /**
+     * Applies the result of scoring to a solution, unless it was deleted or completed meanwhile.
+     *
+     * @return whether the solution was still pending and has been updated
+     */
+    private boolean completePendingSolution(String id, Update result) {
+        return mongoTemplate.updateFirst(
+                Query.query(where("_id").is(id).and("status").is(SolutionStatus.PENDING)), result, Solution.class)
+                .getMatchedCount() > 0;
+    }
+
+    /**
+     * Returns the scoring status of a solution without loading its file.
+     *
+     * @param id the ID of the solution
+     * @return the status, score and failure reason of the solution
+     * @throws RuntimeException if the solution does not exist
+     */
+    public SolutionStatusDTO getSolutionStatus(String id) {
+        Solution solution = solutionRepository.findWithoutFileById(id)
+                .orElseThrow(() -> new RuntimeException("Error: Solution not found with id: " + id));
+        return new SolutionStatusDTO(solution.getId(), solution.getStatus(), solution.getScore(), solution.getFailureReason());
+    }
+
     /**
      * Updates or creates a leaderboard entry for a given user and task based on a new score.
      * <p>
@@ -78,31 +329,36 @@ public class SolutionService {
      *         </ul>
      *     </li>
      * </ul>
+     * Both rules are encoded in the filter of a single upserting {@code findAndModify}, so concurrent
+     * submissions of a user cannot overwrite a better score. If an entry exists but is not worse,
+     * the filter does not match and the upsert fails on the unique (userId, taskId) index kept by
+     * {@link LeaderboardDeduplication}; the update is then retried once without upsert, in case the
+     * entry was only just created by a concurrent update.
      *
      * @param userId      the ID of the user whose leaderboard entry is affected
      * @param taskId      the ID of the task for which the leaderboard is maintained
      * @param newScore    the newly obtained score
      * @param newTimestamp the timestamp of the solution that produced the new score
      */
-    private void updateLeaderboard(String userId, String taskId, int newScore, Instant newTimestamp) {
+    void updateLeaderboard(String userId, String taskId, int newScore, Instant newTimestamp) {
+        Query worseEntry = Query.query(where("userId").is(userId).and("taskId").is(taskId).orOperator(
+                where("bestScore").lt(newScore),
+                where("bestScore").is(newScore).and("bestScoreTimestamp").gt(newTimestamp)));
+        Update newBest = new Update()
+                .set("bestScore", newScore)
+                .set("bestScoreTimestamp", newTimestamp);
 
-        Optional<LeaderboardEntry> entryOpt = leaderboardRepository.findByUserIdAndTaskId(userId, taskId);
-
-        if (entryOpt.isEmpty()) {
-            LeaderboardEntry newBest = new LeaderboardEntry(userId, taskId, newScore, newTimestamp);
-            leaderboardRepository.save(newBest);
-        } else {
-            LeaderboardEntry existingBest = entryOpt.get();
-
-            boolean isNewScoreBetter = newScore > existingBest.getBestScore();
-            boolean isTieAndFaster = (newScore == existingBest.getBestScore()) &&
-                    (newTimestamp.isBefore(existingBest.getBestScoreTimestamp()));
-
-            if (isNewScoreBetter || isTieAndFaster) {
-                existingBest.setBestScore(newScore);
-                existingBest.setBestScoreTimestamp(newTimestamp);
-                leaderboardRepository.save(existingBest);
-            }
+        LeaderboardEntry updated;
+        try {
+            updated = mongoTemplate.findAndModify(worseEntry, newBest,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), LeaderboardEntry.class);
+        } catch (DuplicateKeyException e) {
+            updated = mongoTemplate.findAndModify(worseEntry, newBest,
+                    FindAndModifyOptions.options().returnNew(true), LeaderboardEntry.class);
+        }
+        if (updated != null) {
+            leaderboardIndex.update(updated);
+            leaderboardStream.publish(updated);
         }
     }
 
@@ -161,82 +417,200 @@ public class SolutionService {
      * @return a sorted list of {@link LeaderboardEntry} for the given task
      */
     public List<LeaderboardEntry> getLeaderboardForTask(String taskId) {
-        Sort sort = Sort.by(
-                Sort.Order.desc("bestScore"),
-                Sort.Order.asc("bestScoreTimestamp")
-        );
+        return getLeaderboardForTask(taskId, Integer.MAX_VALUE);
+    }
 
-        return leaderboardRepository.findByTaskId(taskId, sort);
+    /**
+     * Returns the best entries of a task's leaderboard from the {@link LeaderboardIndex}, in the
+     * order of {@link #getLeaderboardForTask(String)}.
+     *
+     * @param taskId the ID of the task for which the leaderboard is requested
+     * @param limit  the maximum number of entries
+     * @return the best {@code limit} entries
+     * @throws IllegalArgumentException if {@code limit} is not positive
+     */
+    public List<LeaderboardEntry> getLeaderboardForTask(String taskId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return leaderboardIndex.top(taskId, limit);
+    }
+
+    /**
+     * Returns the rank of a user on a task's leaderboard and the entries around it.
+     *
+     * @param taskId the ID of the task
+     * @param userId the ID of the user
+     * @param radius the number of entries to include above and below the user's
+     * @return the rank and the window of entries
+     * @throws IllegalArgumentException if {@code radius} is negative or larger than {@link #MAX_PAGE_SIZE}
+     * @throws RuntimeException         if the user has no entry for the task
+     */
+    public LeaderboardWindow getLeaderboardWindow(String taskId, String userId, int radius) {
+        if (radius < 0 || radius > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("radius must be between 0 and " + MAX_PAGE_SIZE);
+        }
+        return leaderboardIndex.window(taskId, userId, radius)
+                .orElseThrow(() -> new RuntimeException("Error: No leaderboard entry for user " + userId + " and task " + taskId));
     }
 
     /**
      * Converts and validates an uploaded solution file into a {@link TaskFile} entity,
-     * encoding its content as Base64.
+     * storing its content in GridFS.
      * <p>
      * The method ensures that the file is neither {@code null} nor empty, then extracts:
      * <ul>
      *     <li>original filename</li>
      *     <li>content type</li>
-     *     <li>raw bytes (encoded to Base64)</li>
+     *     <li>raw bytes (compressed with the task's dictionary, streamed into GridFS and hashed, see
+     *     {@link FileStorageService#store(MultipartFile, String)})</li>
      * </ul>
      *
-     * @param file the uploaded {@link MultipartFile} to be processed
+     * @param taskId the ID of the task the solution belongs to
+     * @param file   the uploaded {@link MultipartFile} to be processed
      * @return a populated {@link TaskFile} instance ready to be attached to a {@link Solution}
      * @throws IOException      if reading file bytes fails
      * @throws RuntimeException if the file is {@code null} or empty
      */
-    private TaskFile processFile(MultipartFile file) throws IOException {
+    private TaskFile processFile(String taskId, MultipartFile file) throws IOException {
+        requireFile(file);
+        return fileStorageService.store(file, taskId);
+    }
+
+    private static void requireFile(MultipartFile file) {
         if (file == null || file.isEmpty()) {
             throw new RuntimeException("Error: No file submitted!");
         }
-        TaskFile tf = new TaskFile();
-        tf.setFileName(file.getOriginalFilename());
-        tf.setContentType(file.getContentType());
-        String base64 = Base64.getEncoder().encodeToString(file.getBytes());
-        tf.setDataBase64(base64);
-        return tf;
     }
 
     /**
      * Deletes a solution by its identifier.
+     * <p>
+     * If later byte-identical solutions share the stored content of the deleted one, the first of
+     * them takes the content over and the others, as well as the {@link SubmissionIndex}, are
+     * pointed at it. Otherwise the stored content is deleted with the solution.
      *
      * @param id the ID of the solution to delete
      * @throws RuntimeException if the solution does not exist
      */
+    @Transactional
     public void deleteSolution(String id) {
-        if (!solutionRepository.existsById(id)) {
+        // Removed first, so the content is handed on as the document last referred to it, even if
+        // StorageCompaction re-pointed it concurrently.
+        Solution solution = mongoTemplate.findAndRemove(Query.query(where("_id").is(id)), Solution.class);
+        if (solution == null) {
             throw new RuntimeException("Error: Solution not found with id: " + id);
         }
-        solutionRepository.deleteById(id);
-    }
 
-    /**
-     * Retrieves all solutions stored in the repository.
-     *
-     * @return a list of all {@link Solution} entities
-     */
-    public List<Solution> getAllSolutions() {
-        return solutionRepository.findAll();
+        boolean contentInherited = false;
+        if (solution.getPayloadSolutionId() == null) {
+            List<Solution> sharing = solutionRepository.findByPayloadSolutionId(id);
+            String heirId = null;
+            if (!sharing.isEmpty()) {
+                Solution heir = sharing.get(0);
+                heirId = heir.getId();
+                fileStorageService.moveContent(solution.getFile(), heir.getFile());
+                contentInherited = true;
+                heir.setPayloadSolutionId(null);
+                for (Solution other : sharing.subList(1, sharing.size())) {
+                    other.setPayloadSolutionId(heirId);
+                }
+                solutionRepository.saveAll(sharing);
+            }
+            submissionIndex.moveStoredContent(id, heirId);
+        }
+        if (solution.getPayloadSolutionId() == null && !contentInherited) {
+            fileStorageService.delete(solution.getFile());
+        }
     }
 
     /**
-     * Retrieves all solutions submitted by a specific user.
+     * Returns one page of solutions, newest first unless {@code ascending}, ordered by submission
+     * time and then ID.
+     * <p>
+     * Pages are addressed with keyset cursors rather than offsets: {@code after} is the
+     * {@link SolutionPage#getNextCursor()} of the previous page, and the query continues right
+     * after that solution, so every page costs the same index range scan however deep it is and
+     * no solution is skipped or repeated when new ones arrive. Filters and sort run in MongoDB;
+     * the file reference is left out unless {@code includeFile} is set.
      *
-     * @param userId the ID of the user whose solutions are requested
-     * @return a list of {@link Solution} entities submitted by the given user
+     * @param filter      the filters to apply
+     * @param after       the cursor of the previous page, or {@code null} for the first page
+     * @param limit       the maximum number of solutions on the page, at most {@value #MAX_PAGE_SIZE}
+     * @param ascending   whether to return the oldest solutions first
+     * @param includeFile whether to include the {@link TaskFile} metadata of each solution
+     * @return the page and the cursor of the next one
+     * @throws IllegalArgumentException if the cursor is malformed or the limit is out of range
      */
-    public List<Solution> getSolutionsForUser(String userId) {
-        return solutionRepository.findByUserId(userId);
+    public SolutionPage getSolutionPage(SolutionFilter filter, String after, int limit, boolean ascending, boolean includeFile) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        List<Criteria> criteria = new ArrayList<>();
+        if (filter.taskId() != null) {
+            criteria.add(where("taskId").is(filter.taskId()));
+        }
+        if (filter.userId() != null) {
+            criteria.add(where("userId").is(filter.userId()));
+        }
+        if (filter.minScore() != null || filter.maxScore() != null) {
+            Criteria score = where("score");
+            if (filter.minScore() != null) {
+                score = score.gte(filter.minScore());
+            }
+            if (filter.maxScore() != null) {
+                score = score.lte(filter.maxScore());
+            }
+            criteria.add(score);
+        }
+        if (after != null) {
+            Cursor cursor = Cursor.decode(after);
+            criteria.add(ascending
+                    ? new Criteria().orOperator(
+                            where("submissionTimestamp").gt(cursor.timestamp()),
+                            where("submissionTimestamp").is(cursor.timestamp()).and("id").gt(cursor.id()))
+                    : new Criteria().orOperator(
+                            where("submissionTimestamp").lt(cursor.timestamp()),
+                            where("submissionTimestamp").is(cursor.timestamp()).and("id").lt(cursor.id())));
+        }
+
+        Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Query query = new Query(criteria.isEmpty() ? new Criteria() : new Criteria().andOperator(criteria))
+                .with(Sort.by(direction, "submissionTimestamp", "id"))
+                .limit(limit + 1);
+        if (!includeFile) {
+            query.fields().exclude("file");
+        }
+
+        List<Solution> solutions = mongoTemplate.find(query, Solution.class);
+        String next = null;
+        if (solutions.size() > limit) {
+            solutions = solutions.subList(0, limit);
+            Solution last = solutions.get(limit - 1);
+            next = new Cursor(last.getSubmissionTimestamp(), last.getId()).encode();
+        }
+        return new SolutionPage(solutions, next);
     }
 
     /**
-     * Retrieves all solutions submitted for a specific task.
-     *
-     * @param taskId the ID of the task whose solutions are requested
-     * @return a list of {@link Solution} entities associated with the given task
+     * Position of a solution in a listing, encoded as an opaque URL-safe string.
      */
-    public List<Solution> getSolutionsForTask(String taskId) {
-        return solutionRepository.findByTaskId(taskId);
+    private record Cursor(Instant timestamp, String id) {
+        String encode() {
+            String raw = timestamp.toEpochMilli() + ":" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf(':');
+                return new Cursor(Instant.ofEpochMilli(Long.parseLong(raw.substring(0, separator))), raw.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
     }
 
     /**
@@ -249,12 +623,13 @@ public class SolutionService {
      *     (newest submissions first).</li>
      * </ul>
      *
+     * Solutions are read newest first and without their file from MongoDB.
+     *
      * @param userId the ID of the user whose grouped solutions are requested
      * @return a map from task ID to list of solutions for that task
      */
     public Map<String, List<Solution>> getGroupedSolutionsForUser(String userId) {
-        List<Solution> allUserSolutions = solutionRepository.findByUserId(userId);
-        allUserSolutions.sort(Comparator.comparing(Solution::getSubmissionTimestamp).reversed());
+        List<Solution> allUserSolutions = solutionRepository.findWithoutFileByUserId(userId);
         return allUserSolutions.stream()
                 .collect(Collectors.groupingBy(Solution::getTaskId));
     }
@@ -0,0 +1,194 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.model.Solution;
+import com.hackathon.main.model.Task;
+import com.hackathon.main.model.TaskFile;
+import com.hackathon.main.scoring.Compression;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Compresses the GridFS contents of tasks and solutions that were stored before
+ * {@link StorageCompression} was enabled.
+ * <p>
+ * Runs once in the background after startup if {@code hackathon.storage.compression.compact-existing}
+ * is set and a codec is configured. If per-task dictionaries are enabled, it first trains one for
+ * every task with enough stored solutions and none yet. Each uncompressed content is then
+ * rewritten compressed and its document updated to the new reference only if it still refers to
+ * the old one, after which the old content is deleted unless another document refers to it, e.g.
+ * because a deleted solution handed it on concurrently; so like {@link InlineFileMigration} it can
+ * run concurrently with normal use and be restarted at any time. Contents that do not get smaller
+ * are kept and only marked as examined.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StorageCompaction {
+
+    private final MongoTemplate mongoTemplate;
+    private final FileStorageService fileStorageService;
+    private final StorageCompression storageCompression;
+
+    @Value("${hackathon.storage.compression.compact-existing:true}")
+    private boolean enabled;
+
+    @Value("${hackathon.storage.compression.dictionary.min-samples:100}")
+    private int minSamples;
+
+    @Value("${hackathon.storage.compression.dictionary.max-samples:1000}")
+    private int maxSamples;
+
+    @Value("${hackathon.storage.compression.dictionary.sample-bytes:16384}")
+    private int sampleBytes;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled && storageCompression.codec() != Compression.NONE) {
+            Thread.ofVirtual().name("storage-compaction").start(this::run);
+        }
+    }
+
+    private void run() {
+        try {
+            if (storageCompression.dictionariesEnabled()) {
+                trainDictionaries();
+            }
+            int tasks = compactTasks();
+            int solutions = compactSolutions();
+            if (tasks + solutions > 0) {
+                log.info("Compressed stored files of {} tasks and {} solutions", tasks, solutions);
+            }
+        } catch (RuntimeException e) {
+            log.error("Compressing stored files failed", e);
+        }
+    }
+
+    private void trainDictionaries() {
+        for (String taskId : mongoTemplate.findDistinct(new Query(), "taskId", Solution.class, String.class)) {
+            if (storageCompression.dictionaryFor(taskId).isPresent()) {
+                continue;
+            }
+            Query query = Query.query(where("taskId").is(taskId).and("file.gridFsId").exists(true)).limit(maxSamples);
+            query.fields().include("file");
+            List<byte[]> samples = new ArrayList<>();
+            for (Solution solution : mongoTemplate.find(query, Solution.class)) {
+                try (InputStream in = fileStorageService.open(solution.getFile())) {
+                    samples.add(in.readNBytes(sampleBytes));
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Skipping unreadable sample of solution {}", solution.getId(), e);
+                }
+            }
+            if (samples.size() >= minSamples) {
+                storageCompression.train(taskId, samples);
+            }
+        }
+    }
+
+    private int compactTasks() {
+        Criteria uncompressed = where("gridFsId").exists(true).and("compression").exists(false);
+        Query query = Query.query(new Criteria().orOperator(
+                where("files").elemMatch(uncompressed),
+                where("solutionFile.gridFsId").exists(true).and("solutionFile.compression").exists(false)));
+        int compacted = 0;
+        try (Stream<Task> tasks = mongoTemplate.stream(query, Task.class)) {
+            for (Task task : (Iterable<Task>) tasks::iterator) {
+                boolean changed = false;
+                for (TaskFile file : task.getFiles()) {
+                    if (isUncompressed(file)) {
+                        Query unchanged = Query.query(where("_id").is(task.getId()).and("files.gridFsId").is(file.getGridFsId()));
+                        changed |= compact(file, null, unchanged, "files.$", Task.class);
+                    }
+                }
+                if (isUncompressed(task.getSolutionFile())) {
+                    Query unchanged = Query.query(where("_id").is(task.getId()).and("solutionFile.gridFsId").is(task.getSolutionFile().getGridFsId()));
+                    changed |= compact(task.getSolutionFile(), null, unchanged, "solutionFile", Task.class);
+                }
+                if (changed) {
+                    compacted++;
+                }
+            }
+        }
+        return compacted;
+    }
+
+    private int compactSolutions() {
+        Query query = Query.query(where("file.gridFsId").exists(true).and("file.compression").exists(false));
+        query.fields().include("taskId").include("file");
+        int compacted = 0;
+        try (Stream<Solution> solutions = mongoTemplate.stream(query, Solution.class)) {
+            for (Solution solution : (Iterable<Solution>) solutions::iterator) {
+                Query unchanged = Query.query(where("_id").is(solution.getId()).and("file.gridFsId").is(solution.getFile().getGridFsId()));
+                if (compact(solution.getFile(), solution.getTaskId(), unchanged, "file", Solution.class)) {
+                    compacted++;
+                }
+            }
+        }
+        return compacted;
+    }
+
+    private static boolean isUncompressed(TaskFile file) {
+        return file != null && file.getGridFsId() != null && file.getCompression() == null;
+    }
+
+    /**
+     * Rewrites one content compressed and points the file at it.
+     *
+     * @param file      the file with uncompressed content
+     * @param taskId    the task whose dictionary to use, or {@code null}
+     * @param unchanged matches the document only while it still refers to the old content
+     * @param path      the path of the file in the document, for the update
+     * @param type      the type of the document
+     * @return whether the file now refers to compressed content
+     */
+    private boolean compact(TaskFile file, String taskId, Query unchanged, String path, Class<?> type) {
+        TaskFile compressed;
+        try {
+            compressed = fileStorageService.recompress(file, taskId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (compressed.getCompression() == Compression.NONE || compressed.getStoredSize() >= compressed.getSize()) {
+            fileStorageService.delete(compressed);
+            Update examined = new Update()
+                    .set(path + ".compression", Compression.NONE)
+                    .set(path + ".storedSize", compressed.getSize());
+            mongoTemplate.updateFirst(unchanged, examined, type);
+            return false;
+        }
+
+        Update update = new Update()
+                .set(path + ".gridFsId", compressed.getGridFsId())
+                .set(path + ".compression", compressed.getCompression())
+                .set(path + ".compressionDictionaryId", compressed.getCompressionDictionaryId())
+                .set(path + ".storedSize", compressed.getStoredSize());
+        if (mongoTemplate.updateFirst(unchanged, update, type).getMatchedCount() == 0) {
+            fileStorageService.delete(compressed);
+            return false;
+        }
+        if (fileStorageService.isGridFsReferenced(file.getGridFsId())) {
+            log.debug("Keeping uncompressed content {} that is still referenced", file.getGridFsId());
+        } else {
+            fileStorageService.delete(file);
+        }
+        storageCompression.recordCompaction(compressed.getSize(), compressed.getStoredSize());
+        return true;
+    }
+}
@@ -0,0 +1,279 @@
+package com.hackathon.main.service;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.github.luben.zstd.ZstdException;
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.hackathon.main.dto.StorageCompressionStats;
+import com.hackathon.main.model.CompressionDictionary;
+import com.hackathon.main.model.Solution;
+import com.hackathon.main.model.Task;
+import com.hackathon.main.model.TaskFile;
+import com.hackathon.main.repository.CompressionDictionaryRepository;
+import com.hackathon.main.scoring.Compression;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Codec of the file contents {@link FileStorageService} keeps in GridFS.
+ * <p>
+ * New contents are compressed with the {@link Compression} set in
+ * {@code hackathon.storage.compression.codec} ({@code none}, {@code gzip} or {@code zstd}) and
+ * decompressed again on every read, so callers only ever see raw content. Each {@link TaskFile}
+ * records the codec and dictionary of its stored content, so changing the setting does not affect
+ * existing contents; {@link StorageCompaction} compresses those in the background.
+ * <p>
+ * With {@code hackathon.storage.compression.dictionary.enabled} and zstd, solution files of a task
+ * are compressed with a {@link CompressionDictionary} trained on earlier files of that task, which
+ * pays off for the many small files of the same CSV shape a task receives. Dictionaries are cached
+ * once loaded; they never change.
+ */
+@Service
+@Slf4j
+public class StorageCompression {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CompressionDictionaryRepository dictionaryRepository;
+    private final MongoTemplate mongoTemplate;
+    private final Compression codec;
+    private final int level;
+    private final boolean dictionariesEnabled;
+    private final int dictionarySize;
+
+    private final Map<String, CompressionDictionary> dictionariesById = new ConcurrentHashMap<>();
+    private final Map<String, Optional<CompressionDictionary>> dictionariesByTask = new ConcurrentHashMap<>();
+
+    private final LongAdder writtenFiles = new LongAdder();
+    private final LongAdder writtenRawBytes = new LongAdder();
+    private final LongAdder writtenStoredBytes = new LongAdder();
+    private final LongAdder compactedFiles = new LongAdder();
+    private final LongAdder compactedRawBytes = new LongAdder();
+    private final LongAdder compactedStoredBytes = new LongAdder();
+
+    public StorageCompression(
+            CompressionDictionaryRepository dictionaryRepository,
+            MongoTemplate mongoTemplate,
+            @Value("${hackathon.storage.compression.codec:zstd}") Compression codec,
+            @Value("${hackathon.storage.compression.level:0}") int level,
+            @Value("${hackathon.storage.compression.dictionary.enabled:false}") boolean dictionariesEnabled,
+            @Value("${hackathon.storage.compression.dictionary.size:65536}") int dictionarySize
+    ) {
+        int maxLevel = switch (codec) {
+            case NONE -> Integer.MAX_VALUE;
+            case GZIP -> Deflater.BEST_COMPRESSION;
+            case ZSTD -> Zstd.maxCompressionLevel();
+        };
+        if (level < 0 || level > maxLevel) {
+            throw new IllegalArgumentException("hackathon.storage.compression.level must be between 0 and " + maxLevel + " for " + codec);
+        }
+        this.dictionaryRepository = dictionaryRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.codec = codec;
+        this.level = level;
+        this.dictionariesEnabled = dictionariesEnabled;
+        this.dictionarySize = dictionarySize;
+    }
+
+    /**
+     * @return the codec new contents are stored with
+     */
+    public Compression codec() {
+        return codec;
+    }
+
+    /**
+     * @return whether solution files are compressed with per-task dictionaries
+     */
+    public boolean dictionariesEnabled() {
+        return dictionariesEnabled && codec == Compression.ZSTD;
+    }
+
+    /**
+     * @param taskId the ID of the task a solution file belongs to, or {@code null} for other files
+     * @return the latest dictionary of the task, if dictionaries are enabled and one has been trained
+     */
+    public Optional<CompressionDictionary> dictionaryFor(String taskId) {
+        if (taskId == null || !dictionariesEnabled()) {
+            return Optional.empty();
+        }
+        return dictionariesByTask.computeIfAbsent(taskId, dictionaryRepository::findFirstByTaskIdOrderByCreatedAtDesc);
+    }
+
+    /**
+     * Wraps a stream so that content written to it is compressed.
+     *
+     * @param out        the stream the compressed content is written to; closed with the returned stream
+     * @param codec      the codec to compress with
+     * @param dictionary the zstd dictionary to compress with, or {@code null}
+     * @return the stream to write the raw content to
+     * @throws IOException if writing the stream header fails
+     */
+    public OutputStream compress(OutputStream out, Compression codec, CompressionDictionary dictionary) throws IOException {
+        return switch (codec) {
+            case NONE -> out;
+            case GZIP -> new GZIPOutputStream(out, BUFFER_SIZE) {
+                {
+                    if (level > 0) {
+                        def.setLevel(level);
+                    }
+                }
+            };
+            case ZSTD -> {
+                ZstdOutputStream zstd = new ZstdOutputStream(out, level > 0 ? level : Zstd.defaultCompressionLevel());
+                if (dictionary != null) {
+                    zstd.setDict(dictionary.getData());
+                }
+                yield zstd;
+            }
+        };
+    }
+
+    /**
+     * Wraps the stored content of a file so that it is read decompressed.
+     *
+     * @param in   the stored content; closed with the returned stream
+     * @param file the file the content belongs to
+     * @return the raw content
+     * @throws IOException      if reading the stream header fails
+     * @throws RuntimeException if the dictionary of the file does not exist
+     */
+    public InputStream decompress(InputStream in, TaskFile file) throws IOException {
+        if (file.getCompression() == null) {
+            return in;
+        }
+        return switch (file.getCompression()) {
+            case NONE -> in;
+            case GZIP -> new GZIPInputStream(in, BUFFER_SIZE);
+            case ZSTD -> {
+                ZstdInputStream zstd = new ZstdInputStream(in);
+                if (file.getCompressionDictionaryId() != null) {
+                    zstd.setDict(dictionary(file.getCompressionDictionaryId()).getData());
+                }
+                yield zstd;
+            }
+        };
+    }
+
+    /**
+     * Trains a zstd dictionary on sample file contents of a task and makes it the one new files of
+     * the task are compressed with.
+     *
+     * @param taskId  the ID of the task
+     * @param samples the leading bytes of stored files of the task
+     * @return the new dictionary, or empty if the samples are not enough to train one
+     */
+    public Optional<CompressionDictionary> train(String taskId, List<byte[]> samples) {
+        ZstdDictTrainer trainer = new ZstdDictTrainer(samples.stream().mapToInt(sample -> sample.length).sum(), dictionarySize);
+        samples.forEach(trainer::addSample);
+        byte[] data;
+        try {
+            data = trainer.trainSamples();
+        } catch (ZstdException e) {
+            log.info("Could not train a compression dictionary for task {} from {} samples: {}", taskId, samples.size(), e.getMessage());
+            return Optional.empty();
+        }
+
+        CompressionDictionary dictionary = dictionaryRepository.save(
+                new CompressionDictionary(taskId, Zstd.getDictIdFromDict(data), data, samples.size(), Instant.now()));
+        dictionariesById.put(dictionary.getId(), dictionary);
+        dictionariesByTask.put(taskId, Optional.of(dictionary));
+        log.info("Trained a {} byte compression dictionary for task {} from {} samples", data.length, taskId, samples.size());
+        return Optional.of(dictionary);
+    }
+
+    /**
+     * Counts a newly stored content in {@link #stats()}.
+     */
+    public void recordWrite(long rawBytes, long storedBytes) {
+        writtenFiles.increment();
+        writtenRawBytes.add(rawBytes);
+        writtenStoredBytes.add(storedBytes);
+    }
+
+    /**
+     * Counts a content compressed by {@link StorageCompaction} in {@link #stats()}.
+     */
+    public void recordCompaction(long rawBytes, long storedBytes) {
+        compactedFiles.increment();
+        compactedRawBytes.add(rawBytes);
+        compactedStoredBytes.add(storedBytes);
+    }
+
+    /**
+     * Sums the raw and stored sizes of all GridFS contents referenced by tasks and solutions, which
+     * scans both collections, and adds the counters since startup.
+     *
+     * @return a snapshot of the storage savings
+     */
+    public StorageCompressionStats stats() {
+        Document group = new Document("$group", new Document("_id", null)
+                .append("files", new Document("$sum", 1))
+                .append("rawBytes", new Document("$sum", "$file.size"))
+                .append("storedBytes", new Document("$sum", new Document("$ifNull", List.of("$file.storedSize", "$file.size")))));
+        Document stored = new Document("$match", new Document("file.gridFsId", new Document("$exists", true)));
+
+        List<Document> solutionPipeline = List.of(stored, group);
+        List<Document> taskPipeline = List.of(
+                new Document("$project", new Document("file", new Document("$concatArrays", List.of(
+                        new Document("$ifNull", List.of("$files", List.of())),
+                        new Document("$cond", List.of(new Document("$ifNull", List.of("$solutionFile", false)), List.of("$solutionFile"), List.of())))))),
+                new Document("$unwind", "$file"),
+                stored,
+                group);
+
+        long files = 0;
+        long rawBytes = 0;
+        long storedBytes = 0;
+        for (Document totals : List.of(
+                aggregate(mongoTemplate.getCollectionName(Solution.class), solutionPipeline),
+                aggregate(mongoTemplate.getCollectionName(Task.class), taskPipeline))) {
+            files += totals.get("files", Number.class).longValue();
+            rawBytes += totals.get("rawBytes", Number.class).longValue();
+            storedBytes += totals.get("storedBytes", Number.class).longValue();
+        }
+
+        return new StorageCompressionStats(
+                codec.name(),
+                level,
+                dictionaryRepository.count(),
+                files,
+                rawBytes,
+                storedBytes,
+                rawBytes - storedBytes,
+                writtenFiles.sum(),
+                writtenRawBytes.sum(),
+                writtenStoredBytes.sum(),
+                compactedFiles.sum(),
+                compactedRawBytes.sum(),
+                compactedStoredBytes.sum()
+        );
+    }
+
+    private Document aggregate(String collection, List<Document> pipeline) {
+        Document totals = mongoTemplate.getCollection(collection).aggregate(pipeline).first();
+        return totals != null ? totals : new Document("files", 0).append("rawBytes", 0).append("storedBytes", 0);
+    }
+
+    private CompressionDictionary dictionary(String id) {
+        return dictionariesById.computeIfAbsent(id, key -> dictionaryRepository.findById(key)
+                .orElseThrow(() -> new RuntimeException("Compression dictionary " + key + " not found")));
+    }
+}
@@ -0,0 +1,161 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.model.SubmissionFingerprint;
+import com.hackathon.main.model.TaskFile;
+import com.hackathon.main.repository.SubmissionFingerprintRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of already scored submission contents, keyed by task, SHA-256 of the content and content
+ * type, so a byte-identical resubmission can reuse the earlier score and stored payload.
+ * <p>
+ * A score is only valid for the ground truth and scoring settings it was computed with, so
+ * {@link TaskService} invalidates a task's entries whenever those change, together with the
+ * {@link GroundTruthCache}. Like there, every invalidation starts a new generation of the task:
+ * callers take the {@link #generation(String)} before scoring, and a score recorded with an older
+ * generation is dropped, so a score of the previous ground truth is never indexed again.
+ * <p>
+ * The unique (taskId, sha256, contentType) index that lookups use and that keeps concurrent
+ * records of the same content apart is created at startup, since indexes are not created
+ * automatically. The entries are only a cache, so if earlier versions left duplicates that keep
+ * the index from being built, they are all dropped first.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SubmissionIndex {
+
+    private final SubmissionFingerprintRepository fingerprintRepository;
+    private final MongoTemplate mongoTemplate;
+
+    private final Map<String, Generation> generations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void createIndexes() {
+        Index unique = new Index()
+                .on("taskId", Sort.Direction.ASC)
+                .on("sha256", Sort.Direction.ASC)
+                .on("contentType", Sort.Direction.ASC)
+                .unique();
+        try {
+            mongoTemplate.indexOps(SubmissionFingerprint.class).createIndex(unique);
+        } catch (DuplicateKeyException e) {
+            log.warn("Dropping submission fingerprints with duplicates to create their unique index");
+            mongoTemplate.dropCollection(SubmissionFingerprint.class);
+            mongoTemplate.indexOps(SubmissionFingerprint.class).createIndex(unique);
+        }
+        mongoTemplate.indexOps(SubmissionFingerprint.class).createIndex(new Index().on("solutionId", Sort.Direction.ASC));
+    }
+
+    /**
+     * @param taskId the ID of the task
+     * @return the current generation of the task's entries, to pass to {@link #record}
+     */
+    public long generation(String taskId) {
+        return generationOf(taskId).value;
+    }
+
+    /**
+     * Looks up an earlier submission with the same content.
+     *
+     * @param taskId the ID of the task
+     * @param file   the stored submission, with its {@code sha256} set
+     * @return the fingerprint of an identical scored submission, if any
+     */
+    public Optional<SubmissionFingerprint> find(String taskId, TaskFile file) {
+        if (file.getSha256() == null) {
+            return Optional.empty();
+        }
+        Optional<SubmissionFingerprint> fingerprint = fingerprintRepository
+                .findFirstByTaskIdAndSha256AndContentType(taskId, file.getSha256(), file.getContentType());
+        fingerprint.ifPresent(f -> log.debug("Submission {} for task {} is identical to solution {}",
+                file.getSha256(), taskId, f.getSolutionId()));
+        return fingerprint;
+    }
+
+    /**
+     * Records the score of a submission whose content is stored in the given solution, unless the
+     * task's entries were invalidated since {@code generation} was taken.
+     * Concurrent records of the same content keep the first one.
+     *
+     * @param taskId     the ID of the task
+     * @param file       the stored submission, with its {@code sha256} set
+     * @param score      the automatically calculated score
+     * @param solutionId the ID of the solution storing the content
+     * @param generation the {@link #generation(String)} of the task taken before scoring started
+     */
+    public void record(String taskId, TaskFile file, int score, String solutionId, long generation) {
+        if (file.getSha256() == null) {
+            return;
+        }
+        Generation current = generationOf(taskId);
+        synchronized (current) {
+            if (current.value != generation) {
+                log.debug("Submission {} for task {} was scored before an invalidation", file.getSha256(), taskId);
+                return;
+            }
+            if (find(taskId, file).isPresent()) {
+                return;
+            }
+            try {
+                fingerprintRepository.save(new SubmissionFingerprint(taskId, file.getSha256(), file.getContentType(), score, solutionId));
+            } catch (DuplicateKeyException e) {
+                log.debug("Submission {} for task {} was recorded concurrently", file.getSha256(), taskId);
+            }
+        }
+    }
+
+    /**
+     * Points the entries of a deleted solution's content at the solution that now stores it,
+     * or removes them if no solution does.
+     *
+     * @param solutionId    the ID of the deleted solution
+     * @param newSolutionId the ID of the solution that took over its content, or {@code null}
+     */
+    public void moveStoredContent(String solutionId, String newSolutionId) {
+        for (SubmissionFingerprint fingerprint : fingerprintRepository.findBySolutionId(solutionId)) {
+            if (newSolutionId == null) {
+                fingerprintRepository.delete(fingerprint);
+            } else {
+                fingerprint.setSolutionId(newSolutionId);
+                fingerprintRepository.save(fingerprint);
+            }
+        }
+    }
+
+    /**
+     * Removes all entries of a task, e.g. because its ground truth or scoring settings changed.
+     *
+     * @param taskId the ID of the task
+     */
+    public void invalidate(String taskId) {
+        Generation current = generationOf(taskId);
+        synchronized (current) {
+            current.value++;
+            fingerprintRepository.deleteByTaskId(taskId);
+        }
+    }
+
+    private Generation generationOf(String taskId) {
+        return generations.computeIfAbsent(taskId, key -> new Generation());
+    }
+
+    /**
+     * The number of invalidations of a task's entries; records and invalidations of the task are
+     * serialized on it.
+     */
+    private static final class Generation {
+        private volatile long value;
+    }
+}
@@ -0,0 +1,212 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.dto.SubmissionRateLimitStats;
+import com.hackathon.main.model.Hackathon;
+import com.hackathon.main.model.SubmissionRateLimit;
+import com.hackathon.main.repository.HackathonRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control for solution submissions with one token bucket per user and one per task.
+ * <p>
+ * A submission is admitted only if both buckets hold a token. Limits come from the
+ * {@link SubmissionRateLimit} of the hackathon the task belongs to, falling back to the
+ * {@code hackathon.submissions.rate-limit.*} defaults; user buckets are kept per hackathon.
+ * <p>
+ * Buckets are lock-free: each is a single {@link AtomicLong} holding the time at which it will
+ * be full again (the generic cell rate algorithm, equivalent to a token bucket), updated with
+ * compare-and-set. Full buckets carry no state and are swept periodically. The hackathon of a
+ * task is looked up once and cached until {@link #invalidate()}.
+ */
+@Service
+@Slf4j
+public class SubmissionRateLimiter {
+
+    private static final int SWEEP_INTERVAL = 1024;
+    private static final String NO_HACKATHON = "";
+
+    private final HackathonRepository hackathonRepository;
+    private final Limits defaults;
+
+    private final Map<String, Limits> limitsByTask = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> taskBuckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedByUser = new LongAdder();
+    private final LongAdder rejectedByTask = new LongAdder();
+
+    public SubmissionRateLimiter(
+            HackathonRepository hackathonRepository,
+            @Value("${hackathon.submissions.rate-limit.user.burst:5}") int userBurst,
+            @Value("${hackathon.submissions.rate-limit.user.per-minute:10}") double userPerMinute,
+            @Value("${hackathon.submissions.rate-limit.task.burst:100}") int taskBurst,
+            @Value("${hackathon.submissions.rate-limit.task.per-minute:600}") double taskPerMinute
+    ) {
+        this.hackathonRepository = hackathonRepository;
+        this.defaults = new Limits(NO_HACKATHON, new Rate(userBurst, userPerMinute), new Rate(taskBurst, taskPerMinute));
+    }
+
+    /**
+     * Takes a token from the user's and the task's bucket, or from neither.
+     *
+     * @param user   the key of the submitting user
+     * @param taskId the ID of the task, or {@code null} if unknown; then only the default user limit applies
+     * @return {@link Duration#ZERO} if the submission is admitted, otherwise how long to wait before retrying
+     */
+    public Duration tryAcquire(String user, String taskId) {
+        long now = System.nanoTime();
+        if (acquisitions.incrementAndGet() % SWEEP_INTERVAL == 0) {
+            sweep(now);
+        }
+
+        Limits limits = taskId != null ? limitsFor(taskId) : defaults;
+        TokenBucket userBucket = limits.user.unlimited() ? null : bucket(userBuckets, limits.hackathonId + '/' + user, limits.user, now);
+        TokenBucket taskBucket = taskId == null || limits.task.unlimited() ? null : bucket(taskBuckets, taskId, limits.task, now);
+
+        long userWait = userBucket != null ? userBucket.tryAcquire(now) : 0;
+        if (userWait > 0) {
+            rejectedByUser.increment();
+            return Duration.ofNanos(userWait);
+        }
+        long taskWait = taskBucket != null ? taskBucket.tryAcquire(now) : 0;
+        if (taskWait > 0) {
+            if (userBucket != null) {
+                userBucket.refund();
+            }
+            rejectedByTask.increment();
+            return Duration.ofNanos(taskWait);
+        }
+        admitted.increment();
+        return Duration.ZERO;
+    }
+
+    /**
+     * Forgets the cached hackathon limits of all tasks, e.g. because a hackathon's limits or tasks
+     * changed. Buckets are kept and replaced lazily once their limits differ.
+     */
+    public void invalidate() {
+        limitsByTask.clear();
+    }
+
+    /**
+     * @return a snapshot of the admission counters, tracked buckets and default limits
+     */
+    public SubmissionRateLimitStats stats() {
+        return new SubmissionRateLimitStats(
+                admitted.sum(),
+                rejectedByUser.sum(),
+                rejectedByTask.sum(),
+                userBuckets.size(),
+                taskBuckets.size(),
+                limitsByTask.size(),
+                defaults.user.burst,
+                defaults.user.perMinute,
+                defaults.task.burst,
+                defaults.task.perMinute
+        );
+    }
+
+    private Limits limitsFor(String taskId) {
+        Limits cached = limitsByTask.get(taskId);
+        if (cached != null) {
+            return cached;
+        }
+        // Unknown tasks are not cached, so made-up IDs cannot grow the cache.
+        return hackathonRepository.findFirstByTasksContaining(taskId)
+                .map(hackathon -> limitsByTask.computeIfAbsent(taskId, id -> limitsOf(hackathon)))
+                .orElse(defaults);
+    }
+
+    private Limits limitsOf(Hackathon hackathon) {
+        SubmissionRateLimit limit = hackathon.getSubmissionRateLimit();
+        if (limit == null) {
+            return new Limits(hackathon.getId(), defaults.user, defaults.task);
+        }
+        return new Limits(
+                hackathon.getId(),
+                new Rate(
+                        limit.getUserBurst() != null ? limit.getUserBurst() : defaults.user.burst,
+                        limit.getUserPerMinute() != null ? limit.getUserPerMinute() : defaults.user.perMinute),
+                new Rate(
+                        limit.getTaskBurst() != null ? limit.getTaskBurst() : defaults.task.burst,
+                        limit.getTaskPerMinute() != null ? limit.getTaskPerMinute() : defaults.task.perMinute)
+        );
+    }
+
+    private static TokenBucket bucket(Map<String, TokenBucket> buckets, String key, Rate rate, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null && bucket.rate.equals(rate)) {
+            return bucket;
+        }
+        return buckets.compute(key, (k, current) -> current != null && current.rate.equals(rate) ? current : new TokenBucket(rate, now));
+    }
+
+    /**
+     * Removes full buckets; a bucket removed concurrently with an acquisition loses at most that token.
+     */
+    private void sweep(long now) {
+        userBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        taskBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        log.debug("Tracking {} user and {} task submission buckets", userBuckets.size(), taskBuckets.size());
+    }
+
+    private record Limits(String hackathonId, Rate user, Rate task) {
+    }
+
+    private record Rate(int burst, double perMinute) {
+        boolean unlimited() {
+            return burst <= 0 || perMinute <= 0;
+        }
+    }
+
+    private static final class TokenBucket {
+        private final Rate rate;
+        private final long intervalNanos;
+        private final long capacityNanos;
+        // the time at which the bucket is full again; at or before now means full
+        private final AtomicLong fullAt;
+
+        // full as of now, the time of the acquisition that creates it
+        TokenBucket(Rate rate, long now) {
+            this.rate = rate;
+            this.fullAt = new AtomicLong(now);
+            this.intervalNanos = Math.max(1, (long) (60_000_000_000L / rate.perMinute));
+            this.capacityNanos = intervalNanos * rate.burst;
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+         */
+        long tryAcquire(long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = (current - now > 0 ? current : now) + intervalNanos;
+                long wait = next - now - capacityNanos;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        void refund() {
+            fullAt.addAndGet(-intervalNanos);
+        }
+
+        boolean isFull(long now) {
+            return fullAt.get() - now <= 0;
+        }
+    }
+}
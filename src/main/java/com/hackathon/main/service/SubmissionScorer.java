@@ -0,0 +1,281 @@
+package com.hackathon.main.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scores a submission from the bytes written to it while another consumer reads the upload, so the
+ * upload is read only once.
+ * <p>
+ * Created by {@link ScoringService#startScoring(String, org.springframework.web.multipart.MultipartFile)}
+ * in one of three forms:
+ * <ul>
+ *     <li>streaming: the bytes are handed through a small bounded queue to a parser on a virtual
+ *     thread, so parsing overlaps with the reader (e.g. the storage write) and a submission that
+ *     fails to parse aborts the reader on its next write;</li>
+ *     <li>spooled: large uncompressed submissions are written to a temporary file, memory-mapped
+ *     and scored in parallel by {@link #finish()};</li>
+ *     <li>buffered: as spooled but on the heap, if spooling is disabled.</li>
+ * </ul>
+ * Write all bytes, call {@link #finish()} for the score and always {@link #close()} it.
+ */
+@Slf4j
+public abstract class SubmissionScorer extends OutputStream {
+
+    private static final int QUEUE_CHUNKS = 16;
+
+    /**
+     * Scores submitted content read from a stream.
+     */
+    @FunctionalInterface
+    interface StreamScorer {
+        int score(InputStream in) throws IOException;
+    }
+
+    /**
+     * Scores submitted content that is completely in a buffer.
+     */
+    @FunctionalInterface
+    interface BufferScorer {
+        int score(ByteBuffer content) throws IOException;
+    }
+
+    static SubmissionScorer streaming(StreamScorer scorer) {
+        return new Streaming(scorer);
+    }
+
+    static SubmissionScorer buffered(int size, BufferScorer scorer) {
+        return new Buffered(size, scorer);
+    }
+
+    static SubmissionScorer spooled(UploadSpooler.SpooledUpload upload, BufferScorer scorer) throws IOException {
+        return new Spooled(upload, scorer);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    /**
+     * Waits for the score of all bytes written so far; call it once the upload has been read to its end.
+     *
+     * @return an integer score in the range 0–100
+     * @throws IOException              if reading or spooling the content failed
+     * @throws IllegalArgumentException if the content cannot be parsed, has the wrong length or an unsupported type
+     */
+    public abstract int finish() throws IOException;
+
+    /**
+     * Stops parsing and releases temporary resources, also if {@link #finish()} was never called.
+     */
+    @Override
+    public abstract void close();
+
+    private static final class Streaming extends SubmissionScorer {
+        private static final byte[] EOF = new byte[0];
+
+        private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+        private final Thread parser;
+
+        Streaming(StreamScorer scorer) {
+            this.parser = Thread.ofVirtual().name("submission-parser").start(() -> {
+                try (InputStream in = new ChunkInputStream()) {
+                    result.complete(scorer.score(in));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+                // lets a blocked writer notice the result
+                chunks.clear();
+            });
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                put(Arrays.copyOfRange(b, off, off + len));
+            }
+        }
+
+        @Override
+        public int finish() throws IOException {
+            put(EOF);
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while scoring submission");
+            } catch (ExecutionException e) {
+                throw rethrow(e.getCause());
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!result.isDone()) {
+                parser.interrupt();
+            }
+        }
+
+        /**
+         * Queues a chunk for the parser, or drops it once the parser is done: a failure is thrown
+         * so the reader stops, content after a complete value is left to the parser to reject.
+         */
+        private void put(byte[] chunk) throws IOException {
+            try {
+                while (!result.isDone()) {
+                    if (chunks.offer(chunk, 10, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while scoring submission");
+            }
+            if (result.isCompletedExceptionally()) {
+                throw rethrow(result.exceptionNow());
+            }
+        }
+
+        private static IOException rethrow(Throwable failure) {
+            if (failure instanceof IOException e) {
+                return e;
+            }
+            if (failure instanceof RuntimeException e) {
+                throw e;
+            }
+            if (failure instanceof Error e) {
+                throw e;
+            }
+            return new IOException(failure);
+        }
+
+        private final class ChunkInputStream extends InputStream {
+            private byte[] chunk = new byte[0];
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                return next() ? chunk[position++] & 0xff : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                if (!next()) {
+                    return -1;
+                }
+                int n = Math.min(len, chunk.length - position);
+                System.arraycopy(chunk, position, b, off, n);
+                position += n;
+                return n;
+            }
+
+            private boolean next() throws IOException {
+                if (chunk == EOF) {
+                    return false;
+                }
+                try {
+                    while (position == chunk.length) {
+                        chunk = chunks.take();
+                        position = 0;
+                        if (chunk == EOF) {
+                            return false;
+                        }
+                    }
+                    return true;
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException("Submission upload was aborted");
+                }
+            }
+        }
+    }
+
+    private static final class Buffered extends SubmissionScorer {
+        private final ContentBuffer buffer;
+        private final BufferScorer scorer;
+
+        Buffered(int size, BufferScorer scorer) {
+            this.buffer = new ContentBuffer(size);
+            this.scorer = scorer;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.write(b, off, len);
+        }
+
+        @Override
+        public int finish() throws IOException {
+            return scorer.score(buffer.content());
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private static final class ContentBuffer extends ByteArrayOutputStream {
+            ContentBuffer(int size) {
+                super(size);
+            }
+
+            ByteBuffer content() {
+                return ByteBuffer.wrap(buf, 0, count);
+            }
+        }
+    }
+
+    private static final class Spooled extends SubmissionScorer {
+        private final UploadSpooler.SpooledUpload upload;
+        private final OutputStream out;
+        private final BufferScorer scorer;
+
+        Spooled(UploadSpooler.SpooledUpload upload, BufferScorer scorer) throws IOException {
+            this.upload = upload;
+            this.scorer = scorer;
+            try {
+                this.out = Files.newOutputStream(upload.getPath());
+            } catch (IOException | RuntimeException e) {
+                upload.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public int finish() throws IOException {
+            out.close();
+            return scorer.score(upload.map());
+        }
+
+        @Override
+        public void close() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                log.debug("Could not close spooled upload {}", upload.getPath(), e);
+            }
+            upload.close();
+        }
+    }
+}
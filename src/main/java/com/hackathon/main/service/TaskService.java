@@ -1,5 +1,7 @@
 package com.hackathon.main.service;
 
+import com.hackathon.main.dto.TaskFileSummary;
+import com.hackathon.main.dto.TaskSummary;
 import com.hackathon.main.model.Task;
 import com.hackathon.main.model.TaskFile;
 import com.hackathon.main.repository.TaskRepository;
@@ -9,13 +11,15 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class TaskService {
     private final TaskRepository taskRepository;
+    private final GroundTruthCache groundTruthCache;
+    private final SubmissionIndex submissionIndex;
+    private final FileStorageService fileStorageService;
 
     /**
      * Persists a new {@link Task} entity in the repository.
@@ -42,14 +46,7 @@ public class TaskService {
             for (MultipartFile file : files) {
                 if (file.isEmpty()) continue;
 
-                TaskFile tf = new TaskFile();
-                tf.setFileName(file.getOriginalFilename());
-                tf.setContentType(file.getContentType());
-
-                String base64 = Base64.getEncoder().encodeToString(file.getBytes());
-                tf.setDataBase64(base64);
-
-                taskFiles.add(tf);
+                taskFiles.add(fileStorageService.store(file));
             }
         }
 
@@ -85,13 +82,7 @@ public class TaskService {
             for (MultipartFile file : files) {
                 if (file.isEmpty()) continue;
 
-                TaskFile tf = new TaskFile();
-                tf.setFileName(file.getOriginalFilename());
-                tf.setContentType(file.getContentType());
-                String base64 = Base64.getEncoder().encodeToString(file.getBytes());
-                tf.setDataBase64(base64);
-
-                task.getFiles().add(tf);
+                task.getFiles().add(fileStorageService.store(file));
             }
         }
 
@@ -99,7 +90,7 @@ public class TaskService {
     }
 
     /**
-     * Processes a single {@link MultipartFile} and converts it into a {@link TaskFile} with Base64 content.
+     * Processes a single {@link MultipartFile} and converts it into a {@link TaskFile} stored in GridFS.
      *
      * @param file the file to process
      * @return the resulting {@link TaskFile}
@@ -110,16 +101,12 @@ public class TaskService {
         if (file == null || file.isEmpty()) {
             throw new RuntimeException("Error: No file submitted!");
         }
-        TaskFile tf = new TaskFile();
-        tf.setFileName(file.getOriginalFilename());
-        tf.setContentType(file.getContentType());
-        String base64 = Base64.getEncoder().encodeToString(file.getBytes());
-        tf.setDataBase64(base64);
-        return tf;
+        return fileStorageService.store(file);
     }
 
     /**
-     * Sets the solution file for a specific task.
+     * Sets the solution file for a specific task, deletes the content of the previous one and
+     * evicts the task's cached ground truth and indexed submission scores.
      *
      * @param taskId the ID of the task
      * @param file   the solution file to attach
@@ -128,13 +115,23 @@ public class TaskService {
      */
     public Task addSolutionFileToTask(String taskId, MultipartFile file) throws IOException {
         Task task = getTaskById(taskId);
+        TaskFile previous = task.getSolutionFile();
         TaskFile solutionFile = processSingleFile(file);
         task.setSolutionFile(solutionFile);
-        return taskRepository.save(task);
+        Task saved = taskRepository.save(task);
+        invalidateScoring(taskId);
+        fileStorageService.delete(previous);
+        return saved;
     }
 
     /**
      * Updates basic details of a task, such as name and description.
+     * <p>
+     * The scoring metric and score transform are only changed when provided, so clients that
+     * edit name and description alone keep the task's scoring settings. Either change evicts
+     * the task's cached ground truth and indexed submission scores. Submission limits are
+     * likewise only changed when provided; they evict the cached ground truth only, since
+     * they do not change any score.
      *
      * @param taskId      the ID of the task to update
      * @param taskDetails the updated task data
@@ -144,11 +141,35 @@ public class TaskService {
         Task existingTask = getTaskById(taskId);
         existingTask.setName(taskDetails.getName());
         existingTask.setDescription(taskDetails.getDescription());
-        return taskRepository.save(existingTask);
+
+        boolean scoringChanged = false;
+        if (taskDetails.getMetric() != null) {
+            existingTask.setMetric(taskDetails.getMetric());
+            scoringChanged = true;
+        }
+        if (taskDetails.getScoreTransform() != null) {
+            existingTask.setScoreTransform(taskDetails.getScoreTransform());
+            scoringChanged = true;
+        }
+
+        boolean limitsChanged = false;
+        if (taskDetails.getSubmissionLimits() != null) {
+            existingTask.setSubmissionLimits(taskDetails.getSubmissionLimits());
+            limitsChanged = true;
+        }
+
+        Task saved = taskRepository.save(existingTask);
+        if (scoringChanged) {
+            invalidateScoring(taskId);
+        } else if (limitsChanged) {
+            groundTruthCache.invalidate(taskId);
+        }
+        return saved;
     }
 
     /**
-     * Removes a file from a task by its index.
+     * Removes a file from a task by its index, deletes its content and evicts the task's cached
+     * ground truth.
      *
      * @param taskId the ID of the task
      * @param index  the index of the file to remove
@@ -162,21 +183,31 @@ public class TaskService {
             throw new IllegalArgumentException("Invalid file index");
         }
 
-        task.getFiles().remove(index);
-        return taskRepository.save(task);
+        TaskFile removed = task.getFiles().remove(index);
+        Task saved = taskRepository.save(task);
+        groundTruthCache.invalidate(taskId);
+        fileStorageService.delete(removed);
+        return saved;
     }
 
     /**
-     * Deletes a task by its ID.
+     * Deletes a task by its ID together with the content of its files and evicts its cached
+     * ground truth and indexed submission scores.
      *
      * @param taskId the ID of the task to delete
      * @throws RuntimeException if the task does not exist
      */
     public void deleteTask(String taskId) {
-        if (!taskRepository.existsById(taskId)) {
-            throw new RuntimeException("Task not found");
-        }
+        Task task = getTaskById(taskId);
         taskRepository.deleteById(taskId);
+        invalidateScoring(taskId);
+        task.getFiles().forEach(fileStorageService::delete);
+        fileStorageService.delete(task.getSolutionFile());
+    }
+
+    private void invalidateScoring(String taskId) {
+        groundTruthCache.invalidate(taskId);
+        submissionIndex.invalidate(taskId);
     }
 
     /**
@@ -187,4 +218,22 @@ public class TaskService {
     public List<Task> getAllTasks() {
         return taskRepository.findAll();
     }
+
+    /**
+     * Retrieves the ID, name, description and file metadata of all tasks. Only these fields are
+     * read from MongoDB; file contents are only available through the download endpoint.
+     *
+     * @return a summary of every task
+     */
+    public List<TaskSummary> getTaskSummaries() {
+        return taskRepository.findAllSummaries().stream()
+                .map(task -> new TaskSummary(
+                        task.getId(),
+                        task.getName(),
+                        task.getDescription(),
+                        task.getFiles().stream()
+                                .map(file -> new TaskFileSummary(file.getFileName(), file.getContentType(), file.getSize()))
+                                .toList()))
+                .toList();
+    }
 }
@@ -0,0 +1,97 @@
+package com.hackathon.main.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Spools large uploads to temporary files so they can be read through a memory-mapped
+ * {@link FileChannel} instead of being copied onto the heap.
+ * <p>
+ * Uploads that are scored in parallel, as they reach
+ * {@code hackathon.scoring.parallel.threshold-bytes}, and have at least
+ * {@code hackathon.upload.mmap-threshold-bytes} are spooled into
+ * {@code hackathon.upload.spool-dir} (the system temp directory by default) by a
+ * {@link SubmissionScorer} while the upload is being stored, so it is not read a second time.
+ */
+@Component
+@Slf4j
+public class UploadSpooler {
+
+    private final Path spoolDir;
+    private final long mmapThresholdBytes;
+
+    public UploadSpooler(@Value("${hackathon.upload.spool-dir:${java.io.tmpdir}}") Path spoolDir,
+                         @Value("${hackathon.upload.mmap-threshold-bytes:1048576}") long mmapThresholdBytes) {
+        this.spoolDir = spoolDir;
+        this.mmapThresholdBytes = mmapThresholdBytes;
+    }
+
+    /**
+     * @param size the size of an upload in bytes
+     * @return whether an upload of this size should be spooled and memory-mapped; never if the threshold is 0
+     */
+    public boolean shouldSpool(long size) {
+        return mmapThresholdBytes > 0 && size >= mmapThresholdBytes;
+    }
+
+    /**
+     * Creates a new empty temporary file to spool an upload into.
+     *
+     * @return the spooled upload, which must be closed to delete the temporary file
+     * @throws IOException if the temporary file cannot be created
+     */
+    public SpooledUpload create() throws IOException {
+        Files.createDirectories(spoolDir);
+        return new SpooledUpload(Files.createTempFile(spoolDir, "upload-", ".tmp"));
+    }
+
+    /**
+     * An upload spooled to a temporary file, deleted on {@link #close()}.
+     */
+    public static final class SpooledUpload implements AutoCloseable {
+        private final Path path;
+
+        private SpooledUpload(Path path) {
+            this.path = path;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         * Maps the whole spooled file read-only. The mapping is backed by the page cache rather than
+         * the heap and stays valid after {@link #close()}, until it is garbage collected.
+         *
+         * @return a read-only buffer over the file content
+         * @throws IOException              if the file cannot be opened or mapped
+         * @throws IllegalArgumentException if the file is too large to map into a single buffer
+         */
+        public ByteBuffer map() throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Upload is too large: " + size + " bytes");
+                }
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Could not delete spooled upload {}: {}", path, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.hackathon.main.configurtion;
+
+import com.hackathon.main.service.SubmissionRateLimiter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Submissions are limited per user and per task from the query, and a submission whose task is
+ * not in the query is rejected instead of only being limited per user.
+ */
+class SubmissionRateLimitFilterTest {
+
+    private final SubmissionRateLimiter limiter = mock(SubmissionRateLimiter.class);
+    private final SubmissionRateLimitFilter filter = new SubmissionRateLimitFilter(limiter);
+
+    @Test
+    void admittedSubmissionIsPassedOn() throws Exception {
+        when(limiter.tryAcquire("a", "task 1")).thenReturn(Duration.ZERO);
+        MockFilterChain chain = new MockFilterChain();
+
+        MockHttpServletResponse response = submit("userId=a&taskId=task%201", chain);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void limitedSubmissionGetsRetryAfter() throws Exception {
+        when(limiter.tryAcquire("a", "task")).thenReturn(Duration.ofMillis(1500));
+        MockFilterChain chain = new MockFilterChain();
+
+        MockHttpServletResponse response = submit("userId=a&taskId=task", chain);
+
+        assertEquals(429, response.getStatus());
+        assertEquals("2", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void submissionWithoutTaskInTheQueryIsRejected() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        MockHttpServletResponse response = submit("userId=a", chain);
+
+        assertEquals(400, response.getStatus());
+        assertNull(chain.getRequest());
+        verify(limiter, never()).tryAcquire(any(), any());
+    }
+
+    private MockHttpServletResponse submit(String query, MockFilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/solutions/submit");
+        request.setServletPath("/api/solutions/submit");
+        request.setQueryString(query);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,139 @@
+package com.hackathon.main.controller;
+
+import com.hackathon.main.model.Task;
+import com.hackathon.main.model.TaskFile;
+import com.hackathon.main.service.FileStorageService;
+import com.hackathon.main.service.RescoringService;
+import com.hackathon.main.service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Task file downloads answer a single satisfiable range with 206, a matching ETag with 304 and an
+ * unsatisfiable range with 416, and send the whole file for multiple or malformed ranges and for
+ * an If-Range naming another version.
+ */
+class TaskControllerTest {
+
+    private static final String CONTENT = "0123456789";
+    private static final String ETAG = "\"abc\"";
+    private static final String URL = "/api/tasks/task/files/0";
+
+    private final TaskService taskService = mock(TaskService.class);
+    private final FileStorageService fileStorageService = mock(FileStorageService.class);
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        TaskFile file = new TaskFile();
+        file.setFileName("data.csv");
+        file.setContentType("text/csv");
+        file.setSha256("abc");
+        Task task = new Task();
+        task.setFiles(List.of(file));
+        when(taskService.getTaskById("task")).thenReturn(task);
+        when(fileStorageService.localPath(any())).thenReturn(Optional.empty());
+        when(fileStorageService.size(any())).thenReturn((long) CONTENT.length());
+        when(fileStorageService.open(any())).thenAnswer(invocation -> stream(CONTENT));
+        when(fileStorageService.open(any(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            int offset = invocation.<Long>getArgument(1).intValue();
+            int length = invocation.<Long>getArgument(2).intValue();
+            return stream(CONTENT.substring(offset, offset + length));
+        });
+        mvc = MockMvcBuilders.standaloneSetup(
+                new TaskController(taskService, fileStorageService, mock(RescoringService.class))).build();
+    }
+
+    @Test
+    void wholeFile() throws Exception {
+        expectWholeFile(get(URL));
+    }
+
+    @Test
+    void singleRangeIsPartialContent() throws Exception {
+        mvc.perform(asyncDispatch(started(get(URL).header(HttpHeaders.RANGE, "bytes=2-4"))))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-4/10"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 3))
+                .andExpect(content().string("234"));
+    }
+
+    @Test
+    void matchingEtagIsNotModified() throws Exception {
+        mvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, "W/\"other\", " + ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void rangeBeyondTheEndIsNotSatisfiable() throws Exception {
+        mvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=20-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    @Test
+    void multipleRangesGetTheWholeFile() throws Exception {
+        expectWholeFile(get(URL).header(HttpHeaders.RANGE, "bytes=0-1,4-5"));
+    }
+
+    @Test
+    void malformedRangeGetsTheWholeFile() throws Exception {
+        expectWholeFile(get(URL).header(HttpHeaders.RANGE, "bytes=x-y"));
+    }
+
+    @Test
+    void ifRangeOfAnotherVersionGetsTheWholeFile() throws Exception {
+        expectWholeFile(get(URL).header(HttpHeaders.RANGE, "bytes=2-4").header(HttpHeaders.IF_RANGE, "\"other\""));
+    }
+
+    @Test
+    void ifRangeOfThisVersionIsPartialContent() throws Exception {
+        mvc.perform(asyncDispatch(started(get(URL).header(HttpHeaders.RANGE, "bytes=-3").header(HttpHeaders.IF_RANGE, ETAG))))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 7-9/10"))
+                .andExpect(content().string("789"));
+    }
+
+    private void expectWholeFile(MockHttpServletRequestBuilder request) throws Exception {
+        mvc.perform(asyncDispatch(started(request)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().string(CONTENT));
+    }
+
+    // the body is streamed asynchronously
+    private MvcResult started(MockHttpServletRequestBuilder request) throws Exception {
+        return mvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
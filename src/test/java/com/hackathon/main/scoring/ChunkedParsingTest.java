@@ -0,0 +1,180 @@
+package com.hackathon.main.scoring;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Chunk boundaries must not change what is parsed: feeding {@link NumericParser} in arbitrary
+ * slices and reducing with {@link ParallelScorer} in tiny chunks must give the values, counts,
+ * metric results and errors of parsing the whole payload sequentially, also where a boundary
+ * splits a number or falls next to whitespace or a sign.
+ */
+class ChunkedParsingTest {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    private static final List<String> CSV_SAMPLES = List.of(
+            "1,2,3",
+            " -1.5 , +2.25,\t3e-2 ,-0 ,  7",
+            "-12345.678e-3,+0.5,  -.25,6.02E23 ,1e-7",
+            "1,2,3,",
+            "  +1,-1 ,\n2.5,\r\n-3.75");
+
+    private static final List<String> JSON_SAMPLES = List.of(
+            "[1,2,3]",
+            "[ -1.5 , +2.25, 3e-2 ,-0 ,  7 ]",
+            "[\n  -12345.678e-3,\n  +0.5,\n  -.25\n]");
+
+    @AfterAll
+    static void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void feedingInTwoSlicesMatchesOneShotParsingAtEverySplit() {
+        for (String sample : CSV_SAMPLES) {
+            assertEverySplitMatches(sample, NumericParser.CSV);
+        }
+        for (String sample : JSON_SAMPLES) {
+            assertEverySplitMatches(sample, NumericParser.JSON);
+        }
+    }
+
+    @Test
+    void feedingByteByByteMatchesOneShotParsing() {
+        for (String sample : CSV_SAMPLES) {
+            byte[] bytes = sample.getBytes(StandardCharsets.US_ASCII);
+            NumericParser parser = NumericParser.forType(NumericParser.CSV, 0, ParseBudget.UNLIMITED);
+            for (int i = 0; i < bytes.length; i++) {
+                parser.feed(bytes, i, 1);
+            }
+            assertArrayEquals(NumericParser.parse(bytes, NumericParser.CSV), parser.finish(), sample);
+        }
+    }
+
+    @Test
+    void malformedValuesFailTheSameWayAtEverySplit() {
+        for (String sample : List.of("1,2 3,4", "1,,2", "1,-,2", "1,+-2,3", "1,2e,3")) {
+            byte[] bytes = sample.getBytes(StandardCharsets.US_ASCII);
+            String expected = assertThrows(IllegalArgumentException.class,
+                    () -> NumericParser.parse(bytes, NumericParser.CSV)).getMessage();
+            for (int split = 0; split <= bytes.length; split++) {
+                NumericParser parser = NumericParser.forType(NumericParser.CSV, 0, ParseBudget.UNLIMITED);
+                parser.feed(bytes, 0, split);
+                parser.feed(bytes, split, bytes.length - split);
+                assertEquals(expected, assertThrows(IllegalArgumentException.class, parser::finish).getMessage(),
+                        sample + " split at " + split);
+            }
+        }
+    }
+
+    @Test
+    void parallelReductionMatchesSequentialForEveryChunkSize() {
+        for (String sample : CSV_SAMPLES) {
+            assertParallelMatches(sample, NumericParser.CSV);
+        }
+        for (String sample : JSON_SAMPLES) {
+            assertParallelMatches(sample, NumericParser.JSON);
+        }
+    }
+
+    @Test
+    void parallelReductionRejectsMalformedValuesLikeTheSequentialParser() {
+        for (String sample : List.of("1,2 3,4", "1,,2", "1,-,2", "1,+-2,3")) {
+            byte[] bytes = sample.getBytes(StandardCharsets.US_ASCII);
+            String expected = assertThrows(IllegalArgumentException.class,
+                    () -> NumericParser.parse(bytes, NumericParser.CSV)).getMessage();
+            for (int chunkSize = 1; chunkSize <= bytes.length; chunkSize++) {
+                ParallelScorer scorer = new ParallelScorer(pool, chunkSize);
+                double[] groundTruth = new double[4];
+                IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                        () -> scorer.score(ByteBuffer.wrap(bytes), NumericParser.CSV, groundTruth, StandardMetric.MAE));
+                assertEquals(expected, e.getMessage(), sample + " in chunks of " + chunkSize);
+            }
+        }
+    }
+
+    @Test
+    void fuzzedPayloadsAgreeAcrossSlicesAndChunks() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            StringBuilder payload = new StringBuilder();
+            int values = 1 + random.nextInt(300);
+            for (int v = 0; v < values; v++) {
+                if (v > 0) {
+                    payload.append(',');
+                }
+                payload.append(" ".repeat(random.nextInt(3)));
+                payload.append(switch (random.nextInt(3)) {
+                    case 0 -> "-";
+                    case 1 -> "+";
+                    default -> "";
+                });
+                double magnitude = random.nextDouble() * Math.pow(10, random.nextInt(12) - 6);
+                payload.append(random.nextBoolean() ? Double.toString(magnitude) : String.format("%.5e", magnitude));
+                payload.append(" ".repeat(random.nextInt(3)));
+            }
+            String csv = values == 1 ? payload + "," : payload.toString();
+            byte[] bytes = csv.getBytes(StandardCharsets.US_ASCII);
+            double[] expected = NumericParser.parse(bytes, NumericParser.CSV);
+
+            NumericParser parser = NumericParser.forType(NumericParser.CSV, 0, ParseBudget.UNLIMITED);
+            for (int off = 0; off < bytes.length; ) {
+                int len = Math.min(bytes.length - off, 1 + random.nextInt(17));
+                parser.feed(bytes, off, len);
+                off += len;
+            }
+            assertArrayEquals(expected, parser.finish());
+
+            double[] groundTruth = groundTruth(expected.length, random);
+            ParallelScorer scorer = new ParallelScorer(pool, 1 + random.nextInt(64));
+            ParallelScorer.Result result = scorer.score(ByteBuffer.wrap(bytes), NumericParser.CSV, groundTruth, StandardMetric.MAE);
+            assertEquals(expected.length, result.count());
+            assertEquals(Metrics.evaluate(StandardMetric.MAE, groundTruth, expected), result.accumulator().result(),
+                    1e-9 * Math.max(1, Math.abs(result.accumulator().result())));
+        }
+    }
+
+    private static void assertEverySplitMatches(String sample, String type) {
+        byte[] bytes = sample.getBytes(StandardCharsets.US_ASCII);
+        double[] expected = NumericParser.parse(bytes, type);
+        for (int split = 1; split < bytes.length; split++) {
+            NumericParser parser = NumericParser.forType(type, 0, ParseBudget.UNLIMITED);
+            parser.feed(bytes, 0, split);
+            parser.feed(bytes, split, bytes.length - split);
+            assertArrayEquals(expected, parser.finish(), sample + " split at " + split);
+        }
+    }
+
+    private static void assertParallelMatches(String sample, String type) {
+        byte[] bytes = sample.getBytes(StandardCharsets.US_ASCII);
+        double[] expected = NumericParser.parse(bytes, type);
+        double[] groundTruth = groundTruth(expected.length, new Random(sample.hashCode()));
+        double expectedMae = Metrics.evaluate(StandardMetric.MAE, groundTruth, expected);
+        for (int chunkSize = 1; chunkSize <= bytes.length; chunkSize++) {
+            ParallelScorer.Result result = new ParallelScorer(pool, chunkSize)
+                    .score(ByteBuffer.wrap(bytes), type, groundTruth, StandardMetric.MAE);
+            assertEquals(expected.length, result.count(), sample + " in chunks of " + chunkSize);
+            assertEquals(expectedMae, result.accumulator().result(), 1e-9 * Math.max(1, Math.abs(expectedMae)),
+                    sample + " in chunks of " + chunkSize);
+        }
+    }
+
+    private static double[] groundTruth(int length, Random random) {
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = random.nextGaussian();
+        }
+        return values;
+    }
+}
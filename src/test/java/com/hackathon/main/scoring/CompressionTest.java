@@ -0,0 +1,63 @@
+package com.hackathon.main.scoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Raw little-endian floats can start with the bytes of a magic number, so they are only taken as
+ * compressed if their file name says so.
+ */
+class CompressionTest {
+
+    @Test
+    void rawFloatsStartingWithTheGzipMagicAreNotDecompressed() {
+        byte[] raw = rawFloat32WithGzipMagic();
+        double[] expected = {ByteBuffer.wrap(raw).order(ByteOrder.LITTLE_ENDIAN).getFloat(0), 1.5f};
+
+        assertEquals(Compression.GZIP, Compression.detect(raw, raw.length));
+        assertEquals(Compression.NONE, Compression.detect(raw, raw.length, NumericParser.FLOAT32_LE, "values.f32"));
+        assertArrayEquals(expected, NumericParser.parse(raw, NumericParser.FLOAT32_LE));
+        assertArrayEquals(expected, NumericParser.parse(raw, NumericParser.FLOAT32_LE, "values.f32", ParseBudget.UNLIMITED));
+    }
+
+    @Test
+    void rawFloatsWithACompressionExtensionAreDecompressed() throws IOException {
+        byte[] raw = rawFloat32WithGzipMagic();
+        byte[] gzipped = gzip(raw);
+
+        assertEquals(Compression.GZIP, Compression.detect(gzipped, gzipped.length, NumericParser.FLOAT32_LE, "values.F32.GZ"));
+        assertArrayEquals(NumericParser.parse(raw, NumericParser.FLOAT32_LE),
+                NumericParser.parse(gzipped, NumericParser.FLOAT32_LE, "values.f32.gz", ParseBudget.UNLIMITED));
+    }
+
+    @Test
+    void textAndNpyAreSniffedWhateverTheirName() throws IOException {
+        byte[] gzipped = gzip("1,2,3".getBytes());
+
+        assertEquals(Compression.GZIP, Compression.detect(gzipped, gzipped.length, NumericParser.CSV, "values.csv"));
+        assertArrayEquals(new double[]{1, 2, 3}, NumericParser.parse(gzipped, NumericParser.CSV, null, ParseBudget.UNLIMITED));
+    }
+
+    private static byte[] rawFloat32WithGzipMagic() {
+        return ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN)
+                .put((byte) 0x1f).put((byte) 0x8b).put((byte) 0x08).put((byte) 0x3f)
+                .putFloat(1.5f)
+                .array();
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
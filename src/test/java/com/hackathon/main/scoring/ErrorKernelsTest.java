@@ -0,0 +1,103 @@
+package com.hackathon.main.scoring;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The vector and scalar kernels must agree bit for bit; both must stay within a relative error of
+ * {@value #TOLERANCE} of a plain sequential loop, which is how scores were computed before.
+ */
+class ErrorKernelsTest {
+
+    private static final double TOLERANCE = 1e-12;
+    private static final double FLOOR = Math.ulp(1.0);
+    private static final int[] LENGTHS = {0, 1, 3, 7, 8, 9, 15, 16, 17, 1000, 100_003};
+
+    private static final ErrorKernel scalar = ScalarErrorKernel.INSTANCE;
+
+    @BeforeAll
+    static void requireVectorApi() {
+        assumeTrue(ErrorKernels.isVectorApiAvailable(), "jdk.incubator.vector is not available");
+    }
+
+    @Test
+    void vectorAndScalarKernelsAreBitIdentical() {
+        ErrorKernel vector = VectorErrorKernel.INSTANCE;
+        Random random = new Random(42);
+        for (int length : LENGTHS) {
+            for (int offset : new int[]{0, 1, 5}) {
+                double[] actual = randomValues(random, length + offset);
+                double[] predicted = randomValues(random, length + offset);
+                int to = offset + length;
+
+                assertBitEquals(scalar.sumSquaredError(actual, predicted, offset, to),
+                        vector.sumSquaredError(actual, predicted, offset, to));
+                assertBitEquals(scalar.sumAbsoluteError(actual, predicted, offset, to),
+                        vector.sumAbsoluteError(actual, predicted, offset, to));
+                assertBitEquals(scalar.sumAbsolutePercentageError(actual, predicted, offset, to, FLOOR),
+                        vector.sumAbsolutePercentageError(actual, predicted, offset, to, FLOOR));
+            }
+        }
+    }
+
+    @Test
+    void kernelsMatchSequentialSumsWithinTolerance() {
+        Random random = new Random(7);
+        for (int length : LENGTHS) {
+            double[] actual = randomValues(random, length);
+            double[] predicted = randomValues(random, length);
+
+            double squared = 0;
+            double absolute = 0;
+            double percentage = 0;
+            for (int i = 0; i < length; i++) {
+                double diff = actual[i] - predicted[i];
+                squared += diff * diff;
+                absolute += Math.abs(diff);
+                percentage += Math.abs(diff) / Math.max(Math.abs(actual[i]), FLOOR);
+            }
+
+            for (ErrorKernel kernel : new ErrorKernel[]{scalar, VectorErrorKernel.INSTANCE}) {
+                assertEquals(squared, kernel.sumSquaredError(actual, predicted, 0, length), TOLERANCE * squared);
+                assertEquals(absolute, kernel.sumAbsoluteError(actual, predicted, 0, length), TOLERANCE * absolute);
+                assertEquals(percentage, kernel.sumAbsolutePercentageError(actual, predicted, 0, length, FLOOR),
+                        TOLERANCE * percentage);
+            }
+        }
+    }
+
+    @Test
+    void switchingModesKeepsMetricResults() {
+        Random random = new Random(3);
+        double[] actual = randomValues(random, 12_345);
+        double[] predicted = randomValues(random, 12_345);
+        try {
+            ErrorKernels.select(ErrorKernels.Mode.SCALAR);
+            double scalarRmse = Metrics.evaluate(StandardMetric.RMSE, actual, predicted);
+            double scalarMape = Metrics.evaluate(StandardMetric.MAPE, actual, predicted);
+            ErrorKernels.select(ErrorKernels.Mode.VECTOR);
+            assertBitEquals(scalarRmse, Metrics.evaluate(StandardMetric.RMSE, actual, predicted));
+            assertBitEquals(scalarMape, Metrics.evaluate(StandardMetric.MAPE, actual, predicted));
+        } finally {
+            ErrorKernels.select(ErrorKernels.Mode.AUTO);
+        }
+    }
+
+    private static double[] randomValues(Random random, int length) {
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = (random.nextDouble() - 0.5) * 200;
+        }
+        return values;
+    }
+
+    private static void assertBitEquals(double expected, double actual) {
+        assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual),
+                () -> "expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,296 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.dto.CreateUploadDto;
+import com.hackathon.main.model.UploadPurpose;
+import com.hackathon.main.model.UploadSession;
+import com.hackathon.main.repository.UploadSessionRepository;
+import com.hackathon.main.scoring.GroundTruth;
+import com.hackathon.main.scoring.Metric;
+import com.hackathon.main.scoring.ParseBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Chunks may arrive in any order, more than once and across interruptions; a commit hands on
+ * exactly the checked content, excludes concurrent chunk writes and can take over a stale claim.
+ * Submissions larger than the task accepts are rejected up front, and content rejected on commit
+ * ends the session.
+ */
+class ChunkedUploadServiceTest {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    @TempDir
+    Path dir;
+
+    private final EmbeddedMongo mongo = new EmbeddedMongo();
+    private final byte[] content = new byte[3 * CHUNK_SIZE - 100];
+    private final ScoringService scoringService = mock(ScoringService.class);
+    private ChunkedUploadService service;
+    private UploadSession session;
+
+    @BeforeEach
+    void createSession() throws IOException {
+        new Random(3).nextBytes(content);
+        UploadSessionRepository repository = new MongoRepositoryFactory(mongo.mongoTemplate())
+                .getRepository(UploadSessionRepository.class);
+        when(scoringService.getGroundTruth("task")).thenReturn(new GroundTruth(
+                new double[0], mock(Metric.class), null, ParseBudget.of(content.length, 1000, Duration.ofMinutes(1))));
+        service = new ChunkedUploadService(repository, mongo.mongoTemplate(), mock(TaskService.class), scoringService,
+                dir, CHUNK_SIZE, CHUNK_SIZE, 2L * content.length, Duration.ofHours(1), Duration.ofMinutes(5));
+        session = service.create(request(content.length), "owner");
+    }
+
+    private CreateUploadDto request(long size) {
+        CreateUploadDto request = new CreateUploadDto();
+        request.setPurpose(UploadPurpose.SUBMISSION);
+        request.setUserId("user");
+        request.setTaskId("task");
+        request.setFileName("submission.bin");
+        request.setSize(size);
+        request.setChunkSize(CHUNK_SIZE);
+        request.setSha256(sha256(content));
+        return request;
+    }
+
+    @AfterEach
+    void closeMongo() {
+        mongo.close();
+    }
+
+    @Test
+    void interruptedUploadResumesWithTheMissingChunks() throws IOException {
+        writeChunk(0);
+        assertThrows(IOException.class, () -> service.writeChunk(session.getId(), "owner", 1, -1, failingAfter(1000)));
+
+        UploadSession resumed = service.get(session.getId(), "owner");
+        assertEquals(List.of(0), resumed.getReceivedChunks());
+        writeChunk(1);
+        writeChunk(2);
+
+        assertArrayEquals(content, commit(null));
+    }
+
+    @Test
+    void chunksMayArriveOutOfOrderAndMoreThanOnce() throws IOException {
+        writeChunk(2);
+        writeChunk(0);
+        writeChunk(2);
+        writeChunk(1);
+        writeChunk(0);
+
+        assertEquals(3, service.get(session.getId(), "owner").getReceivedChunks().size());
+        assertArrayEquals(content, commit(null));
+    }
+
+    @Test
+    void wrongDigestKeepsTheSessionOpenForAnotherCommit() throws IOException {
+        writeAll();
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> commit("0".repeat(64)));
+        assertTrue(e.getMessage().startsWith("Checksum mismatch"), e.getMessage());
+        assertFalse(service.get(session.getId(), "owner").isCommitting());
+
+        assertArrayEquals(content, commit(sha256(content)));
+        assertThrows(RuntimeException.class, () -> service.get(session.getId(), "owner"));
+    }
+
+    @Test
+    void rejectedContentEndsTheSession() throws IOException {
+        writeAll();
+
+        assertThrows(IllegalArgumentException.class, () -> service.commit(session.getId(), "owner", null, (s, file) -> {
+            throw new IllegalArgumentException("Failed to parse CSV array");
+        }));
+
+        assertThrows(RuntimeException.class, () -> service.get(session.getId(), "owner"));
+        assertFalse(Files.exists(dir.resolve(session.getId() + ".part")));
+    }
+
+    @Test
+    void failedHandlerKeepsTheSessionOpen() throws IOException {
+        writeAll();
+
+        assertThrows(IOException.class, () -> service.commit(session.getId(), "owner", null, (s, file) -> {
+            throw new IOException("Storage unavailable");
+        }));
+
+        assertFalse(service.get(session.getId(), "owner").isCommitting());
+        assertArrayEquals(content, commit(null));
+    }
+
+    @Test
+    void submissionLargerThanTheTaskAcceptsIsRejectedAtCreation() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> service.create(request(content.length + 1L), "owner"));
+
+        assertEquals("Submission exceeds the size limit of " + content.length + " bytes", e.getMessage());
+        assertEquals(1, mongo.mongoTemplate().findAll(UploadSession.class).size());
+    }
+
+    @Test
+    void missingChunksFailTheCommit() throws IOException {
+        writeChunk(0);
+        writeChunk(2);
+
+        assertThrows(IllegalArgumentException.class, () -> commit(null));
+        writeChunk(1);
+        assertArrayEquals(content, commit(null));
+    }
+
+    @Test
+    void chunksAreRejectedWhileTheFileIsHandedOn() throws IOException {
+        writeAll();
+
+        byte[] handed = service.commit(session.getId(), "owner", null, (s, file) -> {
+            CompletableFuture<UploadSession> rewrite = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return service.writeChunk(session.getId(), "owner", 0, CHUNK_SIZE, new ByteArrayInputStream(new byte[CHUNK_SIZE]));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            ExecutionException e = assertThrows(ExecutionException.class, rewrite::get);
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+            return file.getBytes();
+        });
+
+        assertArrayEquals(content, handed);
+    }
+
+    @Test
+    void commitWaitsForChunksBeingWritten() throws Exception {
+        writeChunk(0);
+        writeChunk(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        byte[] last = Arrays.copyOfRange(content, 2 * CHUNK_SIZE, content.length);
+        CompletableFuture<UploadSession> chunk = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.writeChunk(session.getId(), "owner", 2, last.length, blockingAfter(last, 10, started, release));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<byte[]> commit = CompletableFuture.supplyAsync(() -> {
+            try {
+                return commit(null);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        while (!service.get(session.getId(), "owner").isCommitting()) {
+            Thread.sleep(5);
+        }
+        assertFalse(commit.isDone());
+
+        release.countDown();
+        assertEquals(3, chunk.get(10, TimeUnit.SECONDS).getReceivedChunks().size());
+        assertArrayEquals(content, commit.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void staleCommitClaimIsTakenOver() throws IOException {
+        writeAll();
+        claim(Instant.now());
+        assertThrows(IllegalStateException.class, () -> commit(null));
+        assertThrows(IllegalStateException.class, () -> writeChunk(0));
+
+        claim(Instant.now().minus(Duration.ofMinutes(10)));
+        writeChunk(0);
+        assertArrayEquals(content, commit(null));
+    }
+
+    private void claim(Instant since) {
+        mongo.mongoTemplate().updateFirst(query(where("_id").is(session.getId())),
+                new Update().set("committing", true).set("committingSince", since), UploadSession.class);
+    }
+
+    private void writeAll() throws IOException {
+        for (int i = 0; i < session.getChunkCount(); i++) {
+            writeChunk(i);
+        }
+    }
+
+    private void writeChunk(int index) throws IOException {
+        byte[] chunk = Arrays.copyOfRange(content, index * CHUNK_SIZE, Math.min(content.length, (index + 1) * CHUNK_SIZE));
+        service.writeChunk(session.getId(), "owner", index, chunk.length, new ByteArrayInputStream(chunk));
+    }
+
+    private byte[] commit(String sha256) throws IOException {
+        return service.commit(session.getId(), "owner", sha256, (s, file) -> file.getBytes());
+    }
+
+    private static InputStream failingAfter(int bytes) {
+        return new InputStream() {
+            private int read;
+
+            @Override
+            public int read() throws IOException {
+                if (read++ >= bytes) {
+                    throw new IOException("Connection reset");
+                }
+                return 0;
+            }
+        };
+    }
+
+    private static InputStream blockingAfter(byte[] content, int bytes, CountDownLatch started, CountDownLatch release) {
+        return new ByteArrayInputStream(content) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                if (pos == bytes) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.read(b, off, Math.min(len, pos < bytes ? bytes - pos : len));
+            }
+        };
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.hackathon.main.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+
+import java.net.InetSocketAddress;
+
+/**
+ * An in-memory MongoDB server for service tests, speaking the wire protocol so the real driver,
+ * {@link MongoTemplate} and GridFS are exercised without an external database.
+ */
+final class EmbeddedMongo implements AutoCloseable {
+
+    private final MongoServer server = new MongoServer(new MemoryBackend());
+    private final MongoClient client;
+    private final MongoTemplate mongoTemplate;
+    private final GridFsTemplate gridFsTemplate;
+
+    EmbeddedMongo() {
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        SimpleMongoClientDatabaseFactory factory = new SimpleMongoClientDatabaseFactory(client, "test");
+        mongoTemplate = new MongoTemplate(factory);
+        gridFsTemplate = new GridFsTemplate(factory, mongoTemplate.getConverter());
+    }
+
+    MongoTemplate mongoTemplate() {
+        return mongoTemplate;
+    }
+
+    GridFsTemplate gridFsTemplate() {
+        return gridFsTemplate;
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        server.shutdownNow();
+    }
+}
@@ -0,0 +1,72 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.model.LeaderboardEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Duplicate entries left by earlier versions are reduced to the best one before the unique index
+ * is created, and a failure to create it is not swallowed, so startup fails.
+ */
+class LeaderboardDeduplicationTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final EmbeddedMongo mongo = new EmbeddedMongo();
+    private final LeaderboardIndex leaderboardIndex = mock(LeaderboardIndex.class);
+    private final LeaderboardStream leaderboardStream = mock(LeaderboardStream.class);
+
+    @AfterEach
+    void closeMongo() {
+        mongo.close();
+    }
+
+    @Test
+    void keepsTheBestEntryAndCreatesTheUniqueIndex() {
+        MongoTemplate mongoTemplate = mongo.mongoTemplate();
+        mongoTemplate.insert(new LeaderboardEntry("a", "task", 5, T0.plusSeconds(1)));
+        mongoTemplate.insert(new LeaderboardEntry("a", "task", 7, T0.plusSeconds(3)));
+        mongoTemplate.insert(new LeaderboardEntry("a", "task", 7, T0.plusSeconds(2)));
+        mongoTemplate.insert(new LeaderboardEntry("b", "task", 1, T0));
+
+        new LeaderboardDeduplication(mongoTemplate, leaderboardIndex, leaderboardStream).run();
+
+        List<LeaderboardEntry> entries = mongoTemplate.find(Query.query(where("userId").is("a")), LeaderboardEntry.class);
+        assertEquals(1, entries.size());
+        assertEquals(7, entries.getFirst().getBestScore());
+        assertEquals(T0.plusSeconds(2), entries.getFirst().getBestScoreTimestamp());
+        assertThrows(DuplicateKeyException.class,
+                () -> mongoTemplate.insert(new LeaderboardEntry("b", "task", 2, T0)));
+        verify(leaderboardIndex).reload("task");
+        verify(leaderboardStream).reset("task");
+    }
+
+    @Test
+    void failingToCreateTheIndexFailsTheRun() {
+        MongoTemplate mongoTemplate = spy(mongo.mongoTemplate());
+        IndexOperations indexOps = mock(IndexOperations.class);
+        when(indexOps.createIndex(any())).thenThrow(new IllegalStateException("index build failed"));
+        doReturn(indexOps).when(mongoTemplate).indexOps(LeaderboardEntry.class);
+
+        LeaderboardDeduplication deduplication = new LeaderboardDeduplication(mongoTemplate, leaderboardIndex, leaderboardStream);
+
+        assertEquals("index build failed", assertThrows(IllegalStateException.class, deduplication::run).getMessage());
+    }
+}
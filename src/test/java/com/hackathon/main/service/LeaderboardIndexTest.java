@@ -0,0 +1,207 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.dto.LeaderboardWindow;
+import com.hackathon.main.model.LeaderboardEntry;
+import com.hackathon.main.repository.LeaderboardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rank, range and window queries of the treap must agree with sorting the stored entries, also
+ * after entries moved up or down, were replaced and were removed by a reload. Updates only ever
+ * improve an entry, like the stored ones, so one that arrives late is ignored.
+ */
+class LeaderboardIndexTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    // the leaderboard collection of task "task", by user
+    private final Map<String, LeaderboardEntry> stored = new HashMap<>();
+    private LeaderboardIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        LeaderboardRepository repository = mock(LeaderboardRepository.class);
+        when(repository.findByTaskId(eq("task"), any())).thenAnswer(invocation -> sorted());
+        index = new LeaderboardIndex(repository, mock(MongoTemplate.class), true);
+    }
+
+    @Test
+    void ranksByScoreThenTimestampThenUser() {
+        write("a", 50, 3);
+        write("b", 70, 5);
+        write("c", 50, 1);
+        write("d", 50, 1);
+        index.top("task", 1);
+        write("e", 90, 9);
+
+        assertEquals(List.of("e", "b", "c", "d", "a"), users(index.top("task", 10)));
+        assertEquals(List.of("e", "b"), users(index.top("task", 2)));
+        assertRank("d", 4);
+    }
+
+    @Test
+    void updatesMoveEntriesUpAndDown() {
+        for (int i = 0; i < 10; i++) {
+            write("u" + i, 10 * i, i);
+        }
+        index.top("task", 1);
+
+        write("u0", 1000, 20);
+        write("u5", 50, 5);
+        // only a rebuild moves an entry down
+        stored.put("u9", new LeaderboardEntry("u9", "task", 5, T0.plusSeconds(21)));
+        index.reload("task");
+
+        assertEquals(List.of("u0", "u8", "u7", "u6", "u5", "u4", "u3", "u2", "u1", "u9"), users(index.top("task", 100)));
+        assertRank("u0", 1);
+        assertRank("u9", 10);
+        assertEquals(10, index.window("task", "u5", 0).orElseThrow().getTotal());
+    }
+
+    @Test
+    void updatesArrivingLateAreIgnored() {
+        write("a", 50, 5);
+        write("b", 40, 1);
+        index.top("task", 1);
+
+        // written before the entries above, applied after them
+        index.update(new LeaderboardEntry("a", "task", 30, T0));
+        index.update(new LeaderboardEntry("b", "task", 40, T0.plusSeconds(2)));
+        index.update(new LeaderboardEntry("b", "task", 40, T0.plusSeconds(1)));
+
+        assertEquals(List.of(50, 40), scores(index.top("task", 10)));
+        assertEquals(T0.plusSeconds(1), index.top("task", 10).get(1).getBestScoreTimestamp());
+        assertEquals(2, index.window("task", "b", 0).orElseThrow().getTotal());
+    }
+
+    @Test
+    void windowsAreClippedAtBothEnds() {
+        for (int i = 0; i < 5; i++) {
+            write("u" + i, 100 - i, i);
+        }
+        index.top("task", 1);
+
+        LeaderboardWindow first = index.window("task", "u0", 2).orElseThrow();
+        assertEquals(1, first.getFirstRank());
+        assertEquals(List.of("u0", "u1", "u2"), users(first.getEntries()));
+
+        LeaderboardWindow middle = index.window("task", "u2", 1).orElseThrow();
+        assertEquals(2, middle.getFirstRank());
+        assertEquals(List.of("u1", "u2", "u3"), users(middle.getEntries()));
+
+        LeaderboardWindow last = index.window("task", "u4", 3).orElseThrow();
+        assertEquals(2, last.getFirstRank());
+        assertEquals(List.of("u1", "u2", "u3", "u4"), users(last.getEntries()));
+
+        assertTrue(index.window("task", "nobody", 3).isEmpty());
+    }
+
+    @Test
+    void reloadDropsRemovedEntries() {
+        for (int i = 0; i < 6; i++) {
+            write("u" + i, 100 - i, i);
+        }
+        index.top("task", 1);
+
+        stored.remove("u0");
+        stored.remove("u3");
+        index.reload("task");
+
+        assertEquals(List.of("u1", "u2", "u4", "u5"), users(index.top("task", 10)));
+        assertRank("u4", 3);
+        assertTrue(index.window("task", "u3", 1).isEmpty());
+    }
+
+    @Test
+    void randomUpdatesAndRemovalsAgreeWithSorting() {
+        Random random = new Random(11);
+        for (int step = 0; step < 2000; step++) {
+            String user = "u" + random.nextInt(200);
+            if (random.nextInt(20) == 0) {
+                stored.remove(user);
+                index.reload("task");
+            } else if (random.nextInt(5) == 0) {
+                // an update that lost the race against a better one
+                LeaderboardEntry current = stored.get(user);
+                if (current != null) {
+                    index.update(new LeaderboardEntry(user, "task", current.getBestScore() - random.nextInt(2),
+                            current.getBestScoreTimestamp().plusSeconds(1)));
+                }
+            } else {
+                // few distinct scores and timestamps, so ties are common
+                write(user, random.nextInt(30), random.nextInt(10));
+            }
+
+            if (step % 50 == 0) {
+                assertAgreesWithSorting(random);
+            }
+        }
+        assertAgreesWithSorting(random);
+    }
+
+    private void assertAgreesWithSorting(Random random) {
+        List<LeaderboardEntry> expected = sorted();
+        assertEquals(users(expected), users(index.top("task", Integer.MAX_VALUE)));
+        if (expected.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < 20; i++) {
+            int rank = random.nextInt(expected.size());
+            int radius = random.nextInt(5);
+            LeaderboardWindow window = index.window("task", expected.get(rank).getUserId(), radius).orElseThrow();
+            int from = Math.max(0, rank - radius);
+            int to = Math.min(expected.size(), rank + radius + 1);
+            assertEquals(rank + 1, window.getRank());
+            assertEquals(expected.size(), window.getTotal());
+            assertEquals(from + 1, window.getFirstRank());
+            assertEquals(users(expected.subList(from, to)), users(window.getEntries()));
+        }
+    }
+
+    /**
+     * Stores an entry if it improves the user's, as {@link SolutionService} does, and then applies
+     * it to the index.
+     */
+    private void write(String user, int score, int second) {
+        LeaderboardEntry entry = new LeaderboardEntry(user, "task", score, T0.plusSeconds(second));
+        LeaderboardEntry previous = stored.get(user);
+        if (previous == null || LeaderboardIndex.ORDER.compare(entry, previous) < 0) {
+            stored.put(user, entry);
+            index.update(entry);
+        }
+    }
+
+    private void assertRank(String user, int rank) {
+        assertEquals(rank, index.window("task", user, 0).orElseThrow().getRank());
+    }
+
+    private List<LeaderboardEntry> sorted() {
+        List<LeaderboardEntry> entries = new ArrayList<>(stored.values());
+        entries.sort(LeaderboardIndex.ORDER);
+        return entries;
+    }
+
+    private static List<Integer> scores(List<LeaderboardEntry> entries) {
+        return entries.stream().map(LeaderboardEntry::getBestScore).toList();
+    }
+
+    private static List<String> users(List<LeaderboardEntry> entries) {
+        return entries.stream().map(LeaderboardEntry::getUserId).toList();
+    }
+}
@@ -0,0 +1,265 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.model.LeaderboardEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Subscribers start with a snapshot, then get coalesced deltas that keep the better of a user's
+ * entries; a reset replaces pending deltas by a snapshot, a slow client's backlog collapses into
+ * one snapshot, and subscribers beyond the limit or gone away are rejected or dropped.
+ */
+class LeaderboardStreamTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final LeaderboardIndex leaderboardIndex = mock(LeaderboardIndex.class);
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+    private LeaderboardStream stream;
+
+    @AfterEach
+    void shutdown() {
+        if (stream != null) {
+            stream.shutdown();
+        }
+    }
+
+    @Test
+    void subscriberStartsWithTheWholeLeaderboard() throws Exception {
+        List<LeaderboardEntry> board = List.of(entry("a", 9), entry("b", 3));
+        when(leaderboardIndex.top("task", Integer.MAX_VALUE)).thenReturn(board);
+        createStream(2, 16, 10);
+
+        RecordingEmitter emitter = subscribe("task");
+
+        Event snapshot = emitter.next();
+        assertEquals("snapshot", snapshot.name());
+        assertEquals(board, snapshot.data());
+        assertEquals(1, stream.stats().getSubscribers());
+        assertEquals(1, stream.stats().getTasks());
+    }
+
+    @Test
+    void changesAreCoalescedPerUser() throws Exception {
+        createStream(2, 16, 10);
+        RecordingEmitter emitter = subscribe("task");
+        assertEquals("snapshot", emitter.next().name());
+
+        stream.publish(entry("a", 1));
+        assertEquals(List.of(entry("a", 1)), emitter.next().data());
+
+        // within the flush interval of the first delta, so sent together
+        stream.publish(entry("a", 2));
+        stream.publish(entry("b", 5));
+        stream.publish(entry("a", 3));
+        Event delta = emitter.next();
+        assertEquals("delta", delta.name());
+        assertEquals(List.of(entry("a", 3), entry("b", 5)), delta.data());
+        assertNull(emitter.poll(700));
+        assertEquals(4, stream.stats().getPublished());
+        assertEquals(2, stream.stats().getDeltasSent());
+    }
+
+    @Test
+    void queuedChangeIsOnlyReplacedByABetterOne() throws Exception {
+        createStream(2, 16, 10);
+        RecordingEmitter emitter = subscribe("task");
+        assertEquals("snapshot", emitter.next().name());
+        stream.publish(entry("b", 1));
+        assertEquals("delta", emitter.next().name());
+
+        // published out of order by concurrent updates
+        stream.publish(entry("a", 3));
+        stream.publish(entry("a", 2));
+
+        assertEquals(List.of(entry("a", 3)), emitter.next().data());
+    }
+
+    @Test
+    void changesOfUnwatchedTasksAreDropped() throws Exception {
+        createStream(2, 16, 10);
+        RecordingEmitter emitter = subscribe("task");
+        assertEquals("snapshot", emitter.next().name());
+
+        stream.publish(new LeaderboardEntry("a", "other", 1, T0));
+        stream.reset("other");
+
+        assertNull(emitter.poll(300));
+        assertEquals(0, stream.stats().getPublished());
+    }
+
+    @Test
+    void resetReplacesPendingDeltasBySnapshot() throws Exception {
+        when(leaderboardIndex.top("task", Integer.MAX_VALUE)).thenReturn(List.of()).thenReturn(List.of(entry("c", 4)));
+        createStream(2, 16, 10);
+        RecordingEmitter emitter = subscribe("task");
+        assertEquals("snapshot", emitter.next().name());
+        stream.publish(entry("a", 1));
+        assertEquals("delta", emitter.next().name());
+
+        stream.publish(entry("b", 2));
+        stream.reset("task");
+
+        Event snapshot = emitter.next();
+        assertEquals("snapshot", snapshot.name());
+        assertEquals(List.of(entry("c", 4)), snapshot.data());
+        assertNull(emitter.poll(700));
+    }
+
+    @Test
+    void slowSubscriberGetsOneSnapshotInsteadOfItsBacklog() throws Exception {
+        createStream(1000, 2, 10);
+        RecordingEmitter slow = subscribe("task");
+        RecordingEmitter fast = subscribe("task");
+        CountDownLatch release = slow.block();
+        assertEquals("snapshot", fast.next().name());
+
+        for (int i = 0; i < 10; i++) {
+            stream.publish(entry("a", i));
+            assertEquals(List.of(entry("a", i)), fast.next().data());
+        }
+        assertTrue(stream.stats().getOverflows() > 0);
+
+        release.countDown();
+        List<String> names = new ArrayList<>();
+        for (Event event; (event = slow.poll(300)) != null; ) {
+            names.add(event.name());
+        }
+        // the initial snapshot it was blocked in, then at most the fresh snapshot and a delta after it
+        assertEquals("snapshot", names.getFirst());
+        assertTrue(names.lastIndexOf("snapshot") > 0, names.toString());
+        assertTrue(names.size() <= 4, names.toString());
+    }
+
+    @Test
+    void subscribersBeyondTheLimitAreRejected() {
+        createStream(2, 16, 2);
+        stream.subscribe("task");
+        stream.subscribe("other");
+
+        assertThrows(RejectedExecutionException.class, () -> stream.subscribe("task"));
+        assertEquals(2, stream.stats().getSubscribers());
+        assertEquals(1, stream.stats().getRejected());
+    }
+
+    @Test
+    void disconnectedSubscriberIsDropped() throws Exception {
+        createStream(2, 16, 1);
+        RecordingEmitter emitter = subscribe("task");
+        assertEquals("snapshot", emitter.next().name());
+
+        emitter.disconnect();
+        stream.publish(entry("a", 1));
+
+        awaitTrue(() -> stream.stats().getSubscribers() == 0);
+        assertEquals(0, stream.stats().getTasks());
+        assertNotNull(subscribe("task"));
+    }
+
+    private void createStream(int maxMessagesPerSecond, int subscriberBuffer, int maxSubscribers) {
+        stream = new LeaderboardStream(leaderboardIndex, maxMessagesPerSecond, subscriberBuffer, maxSubscribers, Duration.ofMinutes(1)) {
+            @Override
+            SseEmitter newEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    private RecordingEmitter subscribe(String taskId) {
+        stream.subscribe(taskId);
+        return emitters.getLast();
+    }
+
+    private static LeaderboardEntry entry(String user, int score) {
+        return new LeaderboardEntry(user, "task", score, T0);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    private record Event(String name, Object data) {
+    }
+
+    /**
+     * Records the events sent instead of writing them to a response.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+        private volatile CountDownLatch blocked;
+        private volatile boolean disconnected;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (disconnected) {
+                throw new IOException("Broken pipe");
+            }
+            String name = null;
+            Object data = null;
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof String text && text.startsWith("event:")) {
+                    name = text.substring("event:".length(), text.indexOf('\n'));
+                } else if (!(part.getData() instanceof String)) {
+                    data = part.getData();
+                }
+            }
+            CountDownLatch latch = blocked;
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            events.add(new Event(name, data));
+        }
+
+        CountDownLatch block() {
+            blocked = new CountDownLatch(1);
+            return blocked;
+        }
+
+        void disconnect() {
+            disconnected = true;
+        }
+
+        Event next() throws InterruptedException {
+            Event event = events.poll(10, TimeUnit.SECONDS);
+            assertNotNull(event, "no event sent");
+            return event;
+        }
+
+        Event poll(long millis) throws InterruptedException {
+            return events.poll(millis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.model.LeaderboardEntry;
+import com.hackathon.main.repository.LeaderboardRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Many concurrent submissions per user must leave exactly one leaderboard entry per user holding
+ * the best score, ties going to the earliest submission, both in MongoDB and in the
+ * {@link LeaderboardIndex}. Runs against an {@link EmbeddedMongo} with the unique index created by
+ * {@link LeaderboardDeduplication}.
+ */
+@ExtendWith(MockitoExtension.class)
+class LeaderboardUpdateStressTest {
+
+    private static final String TASK_ID = "stress-task";
+    private static final int USERS = 20;
+    private static final int SUBMISSIONS_PER_USER = 100;
+    private static final int THREADS = 32;
+
+    private final EmbeddedMongo mongo = new EmbeddedMongo();
+
+    @Spy
+    private MongoTemplate mongoTemplate = mongo.mongoTemplate();
+
+    private final LeaderboardRepository leaderboardRepository =
+            new MongoRepositoryFactory(mongo.mongoTemplate()).getRepository(LeaderboardRepository.class);
+
+    @Spy
+    private LeaderboardIndex leaderboardIndex = new LeaderboardIndex(leaderboardRepository, mongo.mongoTemplate(), true);
+
+    @Spy
+    private LeaderboardStream leaderboardStream = new LeaderboardStream(leaderboardIndex, 2, 16, 10, Duration.ofMinutes(1));
+
+    // gets the collaborators above by type; the ones updateLeaderboard does not use are left null
+    @InjectMocks
+    private SolutionService solutionService;
+
+    @AfterEach
+    void close() {
+        leaderboardStream.shutdown();
+        mongo.close();
+    }
+
+    @Test
+    void concurrentSubmissionsKeepTheBestScore() throws Exception {
+        new LeaderboardDeduplication(mongoTemplate, leaderboardIndex, leaderboardStream).run();
+        // load the empty board up front so it is kept up to date by the updates
+        leaderboardIndex.top(TASK_ID, 1);
+
+        Random random = new Random(42);
+        Instant start = Instant.parse("2026-01-01T00:00:00Z");
+        List<LeaderboardEntry> submissions = new ArrayList<>();
+        Map<String, LeaderboardEntry> expected = new HashMap<>();
+        for (int user = 0; user < USERS; user++) {
+            for (int i = 0; i < SUBMISSIONS_PER_USER; i++) {
+                // few distinct scores and timestamps, so ties are common
+                LeaderboardEntry submission = new LeaderboardEntry("user-" + user, TASK_ID,
+                        random.nextInt(20), start.plusSeconds(random.nextInt(50)));
+                submissions.add(submission);
+                expected.merge(submission.getUserId(), submission,
+                        (a, b) -> LeaderboardIndex.ORDER.compare(a, b) <= 0 ? a : b);
+            }
+        }
+        Collections.shuffle(submissions, random);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (LeaderboardEntry submission : submissions) {
+            futures.add(executor.submit(() -> {
+                ready.await();
+                solutionService.updateLeaderboard(submission.getUserId(), TASK_ID,
+                        submission.getBestScore(), submission.getBestScoreTimestamp());
+                return null;
+            }));
+        }
+        ready.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        List<LeaderboardEntry> stored = mongoTemplate.find(Query.query(where("taskId").is(TASK_ID)), LeaderboardEntry.class);
+        assertEquals(USERS, stored.size());
+        for (LeaderboardEntry entry : stored) {
+            LeaderboardEntry best = expected.get(entry.getUserId());
+            assertEquals(best.getBestScore(), entry.getBestScore(), entry.getUserId());
+            assertEquals(best.getBestScoreTimestamp(), entry.getBestScoreTimestamp(), entry.getUserId());
+        }
+
+        List<LeaderboardEntry> ranked = new ArrayList<>(expected.values());
+        ranked.sort(LeaderboardIndex.ORDER);
+        List<LeaderboardEntry> indexed = leaderboardIndex.top(TASK_ID, Integer.MAX_VALUE);
+        assertEquals(ranked.size(), indexed.size());
+        for (int i = 0; i < ranked.size(); i++) {
+            assertEquals(ranked.get(i).getUserId(), indexed.get(i).getUserId());
+            assertEquals(ranked.get(i).getBestScore(), indexed.get(i).getBestScore());
+            assertEquals(ranked.get(i).getBestScoreTimestamp(), indexed.get(i).getBestScoreTimestamp());
+        }
+    }
+}
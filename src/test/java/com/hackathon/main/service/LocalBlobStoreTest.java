@@ -0,0 +1,73 @@
+package com.hackathon.main.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A blob must survive a delete that races with a put of the same content.
+ */
+class LocalBlobStoreTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void keepsReferencedBlobs() throws IOException {
+        LocalBlobStore store = new LocalBlobStore(root, Duration.ZERO);
+        LocalBlobStore.Blob blob = put(store, "1,2,3");
+
+        store.deleteUnlessReferenced(blob.sha256(), () -> true);
+        assertTrue(Files.exists(store.path(blob.sha256())));
+
+        store.deleteUnlessReferenced(blob.sha256(), () -> false);
+        assertFalse(Files.exists(store.path(blob.sha256())));
+        store.shutdown();
+    }
+
+    @Test
+    void keepsBlobsPutWithinTheGracePeriod() throws IOException {
+        LocalBlobStore store = new LocalBlobStore(root, Duration.ofMinutes(10));
+        LocalBlobStore.Blob blob = put(store, "1,2,3");
+        Path path = store.path(blob.sha256());
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+
+        // a second upload of the same content finds the blob in place; its document is not saved yet
+        put(store, "1,2,3");
+        store.deleteUnlessReferenced(blob.sha256(), () -> false);
+
+        assertTrue(Files.exists(path));
+        store.shutdown();
+    }
+
+    @Test
+    void deletesBlobsOnceTheGracePeriodHasPassed() throws Exception {
+        LocalBlobStore store = new LocalBlobStore(root, Duration.ofMillis(200));
+        LocalBlobStore.Blob blob = put(store, "1,2,3");
+        Path path = store.path(blob.sha256());
+
+        store.deleteUnlessReferenced(blob.sha256(), () -> false);
+        assertTrue(Files.exists(path));
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (Files.exists(path) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(Files.exists(path));
+        store.shutdown();
+    }
+
+    private static LocalBlobStore.Blob put(LocalBlobStore store, String content) throws IOException {
+        return store.put(new ByteArrayInputStream(content.getBytes()));
+    }
+}
@@ -0,0 +1,163 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.model.Solution;
+import com.hackathon.main.model.SolutionStatus;
+import com.hackathon.main.model.TaskFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Pending solutions left by a previous run are scored after startup, and finishing a pending
+ * solution only sets its result: it neither resurrects a solution deleted meanwhile nor undoes a
+ * change to its file reference.
+ */
+@ExtendWith(MockitoExtension.class)
+class PendingSolutionTest {
+
+    private final EmbeddedMongo mongo = new EmbeddedMongo();
+
+    @Spy
+    private MongoTemplate mongoTemplate = mongo.mongoTemplate();
+
+    @Spy
+    private ScoringExecutor scoringExecutor = new ScoringExecutor(1, 1, Duration.ofMinutes(1));
+
+    @Mock
+    private ScoringService scoringService;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private SubmissionIndex submissionIndex;
+
+    @Mock
+    private LeaderboardIndex leaderboardIndex;
+
+    @Mock
+    private LeaderboardStream leaderboardStream;
+
+    @InjectMocks
+    private SolutionService solutionService;
+
+    @AfterEach
+    void close() {
+        scoringExecutor.shutdown();
+        mongo.close();
+    }
+
+    @Test
+    void pendingSolutionsOfAPreviousRunAreScored() throws Exception {
+        when(fileStorageService.load(any())).thenReturn(new byte[]{'1'});
+        when(scoringService.calculateScore(eq("task"), any(byte[].class), anyString(), anyString())).thenReturn(7);
+        String first = insertPending("a");
+        String second = insertPending("b");
+        String third = insertPending("c");
+
+        // the queue holds one job, so recovery has to wait for room
+        solutionService.requeuePendingSolutions();
+
+        for (String id : new String[]{first, second, third}) {
+            awaitTrue(() -> status(id) == SolutionStatus.SCORED);
+            assertEquals(7, solution(id).getScore());
+        }
+        verify(leaderboardIndex, timeout(5000).times(3)).update(any());
+    }
+
+    @Test
+    void solutionDeletedWhileScoredStaysDeleted() throws Exception {
+        when(fileStorageService.load(any())).thenReturn(new byte[]{'1'});
+        String id = insertPending("a");
+        when(scoringService.calculateScore(eq("task"), any(byte[].class), anyString(), anyString())).thenAnswer(invocation -> {
+            mongoTemplate.remove(Query.query(where("_id").is(id)), Solution.class);
+            return 5;
+        });
+
+        solutionService.requeuePendingSolutions();
+
+        verify(scoringService, timeout(5000)).calculateScore(eq("task"), any(byte[].class), anyString(), anyString());
+        Thread.sleep(200);
+        assertNull(solution(id));
+        verify(leaderboardIndex, never()).update(any());
+        verify(submissionIndex, never()).record(any(), any(), anyInt(), any(), anyLong());
+    }
+
+    @Test
+    void failureKeepsAFileReferenceMovedMeanwhile() throws Exception {
+        when(fileStorageService.load(any())).thenReturn(new byte[]{'x'});
+        String id = insertPending("a");
+        CountDownLatch scored = new CountDownLatch(1);
+        when(scoringService.calculateScore(eq("task"), any(byte[].class), anyString(), anyString())).thenAnswer(invocation -> {
+            mongoTemplate.updateFirst(Query.query(where("_id").is(id)), new Update().set("file.gridFsId", "moved"), Solution.class);
+            scored.countDown();
+            throw new IllegalArgumentException("Failed to parse CSV array");
+        });
+
+        solutionService.requeuePendingSolutions();
+
+        assertTrue(scored.await(5, TimeUnit.SECONDS));
+        awaitTrue(() -> status(id) == SolutionStatus.FAILED);
+        Solution failed = solution(id);
+        assertEquals("Failed to parse CSV array", failed.getFailureReason());
+        assertEquals("moved", failed.getFile().getGridFsId());
+    }
+
+    private String insertPending(String user) {
+        TaskFile file = new TaskFile();
+        file.setFileName("submission.csv");
+        file.setContentType("text/csv");
+        file.setGridFsId("original");
+        Solution solution = new Solution();
+        solution.setUserId(user);
+        solution.setTaskId("task");
+        solution.setSubmissionTimestamp(Instant.now());
+        solution.setStatus(SolutionStatus.PENDING);
+        solution.setFile(file);
+        return mongo.mongoTemplate().insert(solution).getId();
+    }
+
+    private Solution solution(String id) {
+        return mongo.mongoTemplate().findById(id, Solution.class);
+    }
+
+    private SolutionStatus status(String id) {
+        Solution solution = solution(id);
+        return solution == null ? null : solution.getStatus();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.dto.RescoreJobStatus;
+import com.hackathon.main.model.LeaderboardEntry;
+import com.hackathon.main.model.RescoreJobState;
+import com.hackathon.main.model.Solution;
+import com.hackathon.main.model.SolutionStatus;
+import com.hackathon.main.model.TaskFile;
+import com.hackathon.main.repository.LeaderboardRepository;
+import com.hackathon.main.repository.SolutionRepository;
+import com.hackathon.main.scoring.GroundTruth;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * A job writes new scores back per batch, marks solutions that no longer parse as failed, rebuilds
+ * the leaderboard without losing solutions scored meanwhile, and runs at most once per task.
+ */
+class RescoringServiceTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final EmbeddedMongo mongo = new EmbeddedMongo();
+    private final MongoTemplate mongoTemplate = spy(mongo.mongoTemplate());
+    private final ScoringService scoringService = mock(ScoringService.class);
+    private final FileStorageService fileStorageService = mock(FileStorageService.class);
+    private final LeaderboardIndex leaderboardIndex = mock(LeaderboardIndex.class);
+    private final LeaderboardStream leaderboardStream = mock(LeaderboardStream.class);
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+    private SolutionService solutionService;
+    private RescoringService rescoringService;
+
+    @BeforeEach
+    void createServices() {
+        mongoTemplate.indexOps(LeaderboardEntry.class).createIndex(
+                new Index().on("userId", Sort.Direction.ASC).on("taskId", Sort.Direction.ASC).unique());
+        SolutionRepository solutionRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(SolutionRepository.class);
+        SubmissionIndex submissionIndex = mock(SubmissionIndex.class);
+        solutionService = new SolutionService(solutionRepository, mock(LeaderboardRepository.class), scoringService,
+                mock(ScoringExecutor.class), fileStorageService, submissionIndex, leaderboardIndex, leaderboardStream, mongoTemplate);
+        rescoringService = new RescoringService(mongoTemplate, solutionRepository, scoringService, fileStorageService,
+                submissionIndex, leaderboardIndex, leaderboardStream, solutionService, pool);
+        ReflectionTestUtils.setField(rescoringService, "batchSize", 2);
+
+        when(scoringService.getGroundTruth("task")).thenReturn(mock(GroundTruth.class));
+        when(fileStorageService.load(any())).thenAnswer(invocation ->
+                invocation.<TaskFile>getArgument(0).getGridFsId().getBytes(StandardCharsets.UTF_8));
+        // the new score is the number of characters of the content
+        when(scoringService.calculateScore(any(GroundTruth.class), any(byte[].class), anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.<byte[]>getArgument(1).length);
+    }
+
+    @AfterEach
+    void close() {
+        pool.shutdown();
+        mongo.close();
+    }
+
+    @Test
+    void scoresAreWrittenBackPerBatchAndTheLeaderboardRebuilt() throws Exception {
+        String first = insert("a", "xxx", 1, T0);
+        String second = insert("a", "xxxxx", 1, T0.plusSeconds(1));
+        String third = insert("b", "xx", 90, T0.plusSeconds(2));
+        insert("b", "xx", 1, T0.plusSeconds(3));
+        insert("c", "xxxx", 1, T0.plusSeconds(4));
+        mongoTemplate.insert(new LeaderboardEntry("a", "task", 99, T0));
+        mongoTemplate.insert(new LeaderboardEntry("gone", "task", 50, T0));
+
+        RescoreJobStatus status = await(rescoringService.start("task"));
+
+        assertEquals(RescoreJobState.COMPLETED, status.getState());
+        assertEquals(5, status.getProcessedSolutions());
+        assertEquals(0, status.getFailedSolutions());
+        verify(mongoTemplate, times(3)).bulkOps(any(), eq(Solution.class));
+        assertEquals(3, solution(first).getScore());
+        assertEquals(5, solution(second).getScore());
+        assertEquals(2, solution(third).getScore());
+        // the manual override of a is replaced, and b's tie goes to the earlier submission
+        assertEquals(Map.of("a", 5, "b", 2, "c", 4), leaderboard());
+        assertEquals(T0.plusSeconds(2), entry("b").getBestScoreTimestamp());
+        verify(leaderboardIndex).reload("task");
+        verify(leaderboardStream).reset("task");
+    }
+
+    @Test
+    void solutionsThatNoLongerParseAreMarkedFailed() throws Exception {
+        String failing = insert("a", "broken", 7, T0);
+        insert("b", "xx", 1, T0);
+        mongoTemplate.insert(new LeaderboardEntry("a", "task", 7, T0));
+        doThrow(new IllegalArgumentException("Failed to parse CSV array")).when(scoringService)
+                .calculateScore(any(GroundTruth.class), eq("broken".getBytes(StandardCharsets.UTF_8)), anyString(), anyString());
+
+        RescoreJobStatus status = await(rescoringService.start("task"));
+
+        assertEquals(RescoreJobState.COMPLETED, status.getState());
+        assertEquals(1, status.getFailedSolutions());
+        Solution failed = solution(failing);
+        assertEquals(SolutionStatus.FAILED, failed.getStatus());
+        assertEquals(0, failed.getScore());
+        assertEquals("Failed to parse CSV array", failed.getFailureReason());
+        assertEquals(Map.of("b", 2), leaderboard());
+    }
+
+    @Test
+    void solutionsScoredDuringTheRebuildAreKept() throws Exception {
+        insert("a", "xxx", 1, T0);
+        mongoTemplate.insert(new LeaderboardEntry("a", "task", 3, T0));
+        String pending = insert("b", "xx", 0, T0.plusSeconds(1));
+        mongoTemplate.updateFirst(Query.query(where("_id").is(pending)), new Update().set("status", SolutionStatus.PENDING), Solution.class);
+        Instant submitted = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        // both finish after the aggregation, right before stale entries are removed
+        doAnswer(invocation -> {
+            mongoTemplate.updateFirst(Query.query(where("_id").is(pending)),
+                    new Update().set("score", 30).set("status", SolutionStatus.SCORED), Solution.class);
+            solutionService.updateLeaderboard("b", "task", 30, T0.plusSeconds(1));
+            insert("a", "xxxxxxxxxx", 40, submitted);
+            solutionService.updateLeaderboard("a", "task", 40, submitted);
+            return invocation.callRealMethod();
+        }).when(mongoTemplate).remove(any(Query.class), eq(LeaderboardEntry.class));
+
+        RescoreJobStatus status = await(rescoringService.start("task"));
+
+        assertEquals(RescoreJobState.COMPLETED, status.getState());
+        assertEquals(Map.of("a", 40, "b", 30), leaderboard());
+        assertEquals(submitted, entry("a").getBestScoreTimestamp());
+    }
+
+    @Test
+    void secondJobIsRejectedWhileTheFirstRuns() throws Exception {
+        insert("a", "xxx", 1, T0);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return 3;
+        }).when(scoringService).calculateScore(any(GroundTruth.class), any(byte[].class), anyString(), anyString());
+
+        RescoreJobStatus running = rescoringService.start("task");
+
+        assertThrows(IllegalStateException.class, () -> rescoringService.start("task"));
+        release.countDown();
+        assertEquals(RescoreJobState.COMPLETED, await(running).getState());
+        assertEquals(RescoreJobState.COMPLETED, await(rescoringService.start("task")).getState());
+    }
+
+    private String insert(String user, String content, int score, Instant timestamp) {
+        TaskFile file = new TaskFile();
+        file.setFileName("submission.csv");
+        file.setContentType("text/csv");
+        // the stored content is the ID, see the FileStorageService mock
+        file.setGridFsId(content);
+        Solution solution = new Solution();
+        solution.setUserId(user);
+        solution.setTaskId("task");
+        solution.setScore(score);
+        solution.setSubmissionTimestamp(timestamp);
+        solution.setFile(file);
+        return mongo.mongoTemplate().insert(solution).getId();
+    }
+
+    private Solution solution(String id) {
+        return mongo.mongoTemplate().findById(id, Solution.class);
+    }
+
+    private LeaderboardEntry entry(String user) {
+        return mongo.mongoTemplate().findOne(Query.query(where("userId").is(user)), LeaderboardEntry.class);
+    }
+
+    private Map<String, Integer> leaderboard() {
+        Map<String, Integer> scores = new TreeMap<>();
+        for (LeaderboardEntry entry : mongo.mongoTemplate().findAll(LeaderboardEntry.class)) {
+            scores.put(entry.getUserId(), entry.getBestScore());
+        }
+        return scores;
+    }
+
+    private RescoreJobStatus await(RescoreJobStatus started) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        RescoreJobStatus status;
+        while ((status = rescoringService.getStatus(started.getTaskId()).orElseThrow()).getState() == RescoreJobState.RUNNING) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+        return status;
+    }
+}
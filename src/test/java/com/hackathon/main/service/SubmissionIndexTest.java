@@ -0,0 +1,98 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.model.SubmissionFingerprint;
+import com.hackathon.main.model.TaskFile;
+import com.hackathon.main.repository.SubmissionFingerprintRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A score computed before the task's entries were invalidated must not be indexed afterwards, and
+ * the same content is only indexed once per task and content type.
+ */
+class SubmissionIndexTest {
+
+    private final SubmissionFingerprintRepository repository = mock(SubmissionFingerprintRepository.class);
+    private final SubmissionIndex index = new SubmissionIndex(repository, mock(MongoTemplate.class));
+
+    @Test
+    void recordsWithTheCurrentGeneration() {
+        when(repository.findFirstByTaskIdAndSha256AndContentType(anyString(), anyString(), anyString())).thenReturn(Optional.empty());
+
+        index.record("task", file(), 80, "solution", index.generation("task"));
+
+        verify(repository).save(any(SubmissionFingerprint.class));
+    }
+
+    @Test
+    void dropsScoresOfAnEarlierGeneration() {
+        long generation = index.generation("task");
+        index.invalidate("task");
+
+        index.record("task", file(), 80, "solution", generation);
+
+        verify(repository).deleteByTaskId("task");
+        verify(repository, never()).save(any(SubmissionFingerprint.class));
+    }
+
+    @Test
+    void generationsArePerTask() {
+        long other = index.generation("other");
+        index.invalidate("task");
+
+        assertEquals(other, index.generation("other"));
+        assertEquals(1, index.generation("task"));
+    }
+
+    @Test
+    void uniqueIndexRejectsASecondRecordOfTheSameContent() {
+        try (EmbeddedMongo mongo = new EmbeddedMongo()) {
+            SubmissionFingerprintRepository stored = new MongoRepositoryFactory(mongo.mongoTemplate())
+                    .getRepository(SubmissionFingerprintRepository.class);
+            new SubmissionIndex(stored, mongo.mongoTemplate()).createIndexes();
+            stored.save(new SubmissionFingerprint("task", "ab", "text/csv", 70, "first"));
+
+            assertThrows(DuplicateKeyException.class,
+                    () -> stored.save(new SubmissionFingerprint("task", "ab", "text/csv", 80, "second")));
+            stored.save(new SubmissionFingerprint("task", "ab", "application/json", 80, "second"));
+            assertEquals(2, stored.count());
+        }
+    }
+
+    @Test
+    void duplicatesOfEarlierVersionsAreDroppedToCreateTheIndex() {
+        try (EmbeddedMongo mongo = new EmbeddedMongo()) {
+            MongoTemplate mongoTemplate = mongo.mongoTemplate();
+            mongoTemplate.insert(new SubmissionFingerprint("task", "ab", "text/csv", 70, "first"));
+            mongoTemplate.insert(new SubmissionFingerprint("task", "ab", "text/csv", 70, "second"));
+
+            new SubmissionIndex(mock(SubmissionFingerprintRepository.class), mongoTemplate).createIndexes();
+
+            assertEquals(0, mongoTemplate.count(new Query(), SubmissionFingerprint.class));
+            assertTrue(mongoTemplate.indexOps(SubmissionFingerprint.class).getIndexInfo().stream()
+                    .anyMatch(info -> info.isUnique() && info.getIndexFields().size() == 3));
+        }
+    }
+
+    private static TaskFile file() {
+        TaskFile file = new TaskFile();
+        file.setSha256("ab");
+        file.setContentType("text/csv");
+        return file;
+    }
+}
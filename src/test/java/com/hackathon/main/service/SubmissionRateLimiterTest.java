@@ -0,0 +1,83 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.repository.HackathonRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * A bucket admits its burst at once and then refills at its rate, a submission rejected by the
+ * task's bucket gives the user's token back, and full buckets are swept.
+ */
+class SubmissionRateLimiterTest {
+
+    private final HackathonRepository hackathonRepository = mock(HackathonRepository.class);
+
+    @Test
+    void admitsTheBurstAndThenRejectsWithTheWait() {
+        SubmissionRateLimiter limiter = new SubmissionRateLimiter(hackathonRepository, 3, 1, 100, 600);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Duration.ZERO, limiter.tryAcquire("a", "task"));
+        }
+        Duration wait = limiter.tryAcquire("a", "task");
+
+        // one token a minute
+        assertTrue(wait.compareTo(Duration.ofSeconds(59)) > 0 && wait.compareTo(Duration.ofMinutes(1)) <= 0, wait.toString());
+        assertEquals(Duration.ZERO, limiter.tryAcquire("b", "task"));
+        assertEquals(4, limiter.stats().getAdmitted());
+        assertEquals(1, limiter.stats().getRejectedByUser());
+    }
+
+    @Test
+    void refillsAtTheRate() throws InterruptedException {
+        // a token every 50 ms
+        SubmissionRateLimiter limiter = new SubmissionRateLimiter(hackathonRepository, 1, 1200, 100, 600);
+        assertEquals(Duration.ZERO, limiter.tryAcquire("a", "task"));
+        Duration wait = limiter.tryAcquire("a", "task");
+        assertFalse(wait.isZero());
+
+        Thread.sleep(wait.toMillis() + 1);
+
+        assertEquals(Duration.ZERO, limiter.tryAcquire("a", "task"));
+        assertFalse(limiter.tryAcquire("a", "task").isZero());
+    }
+
+    @Test
+    void rejectionByTheTaskRefundsTheUsersToken() {
+        SubmissionRateLimiter limiter = new SubmissionRateLimiter(hackathonRepository, 2, 1, 1, 1);
+        assertEquals(Duration.ZERO, limiter.tryAcquire("a", "task"));
+
+        for (int i = 0; i < 5; i++) {
+            assertFalse(limiter.tryAcquire("b", "task").isZero());
+        }
+
+        // b's burst is untouched by the rejected submissions
+        assertEquals(Duration.ZERO, limiter.tryAcquire("b", "other"));
+        assertEquals(Duration.ZERO, limiter.tryAcquire("b", "another"));
+        assertFalse(limiter.tryAcquire("b", "third").isZero());
+        assertEquals(5, limiter.stats().getRejectedByTask());
+        assertEquals(1, limiter.stats().getRejectedByUser());
+    }
+
+    @Test
+    void fullBucketsAreSwept() throws InterruptedException {
+        // a token every 10 µs, so every bucket is full again right away
+        SubmissionRateLimiter limiter = new SubmissionRateLimiter(hackathonRepository, 1, 6_000_000, 0, 0);
+        for (int i = 1; i < 1024; i++) {
+            limiter.tryAcquire("user" + i, "task");
+        }
+        assertEquals(1023, limiter.stats().getTrackedUsers());
+        Thread.sleep(5);
+
+        limiter.tryAcquire("user", "task");
+
+        assertEquals(1, limiter.stats().getTrackedUsers());
+        assertEquals(0, limiter.stats().getTrackedTasks());
+    }
+}
@@ -0,0 +1,101 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.scoring.NumericParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The scorer forms must score exactly the bytes written to them, stop the writer once parsing has
+ * failed and release their parser or spool file on close.
+ */
+class SubmissionScorerTest {
+
+    @TempDir
+    Path spoolDir;
+
+    @Test
+    void streamingScoresTheBytesWrittenInAnyPieces() throws IOException {
+        try (SubmissionScorer scorer = SubmissionScorer.streaming(in -> NumericParser.parse(in, NumericParser.CSV).length)) {
+            write(scorer, "1,2");
+            write(scorer, ".5,-");
+            scorer.write('3');
+            write(scorer, ",4");
+            assertEquals(4, scorer.finish());
+        }
+    }
+
+    @Test
+    void streamingFailureStopsTheWriterWithTheParseError() throws IOException {
+        byte[] chunk = "1,2,3,4,5,6,7,8,".repeat(512).getBytes(StandardCharsets.US_ASCII);
+        try (SubmissionScorer scorer = SubmissionScorer.streaming(in -> NumericParser.parse(in, NumericParser.JSON).length)) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> {
+                for (int i = 0; i < 10_000; i++) {
+                    scorer.write(chunk);
+                }
+            });
+            assertEquals("Invalid JSON array format", e.getMessage());
+            assertEquals("Invalid JSON array format", assertThrows(IllegalArgumentException.class, scorer::finish).getMessage());
+        }
+    }
+
+    @Test
+    void streamingReportsParseErrorsFoundAtTheEnd() throws IOException {
+        try (SubmissionScorer scorer = SubmissionScorer.streaming(in -> NumericParser.parse(in, NumericParser.CSV).length)) {
+            write(scorer, "1,2,x");
+            assertEquals("Failed to parse CSV array", assertThrows(IllegalArgumentException.class, scorer::finish).getMessage());
+        }
+    }
+
+    @Test
+    void closingBeforeFinishInterruptsTheParser() throws Exception {
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        SubmissionScorer scorer = SubmissionScorer.streaming(in -> {
+            try {
+                return NumericParser.parse(in, NumericParser.CSV).length;
+            } catch (IOException | RuntimeException e) {
+                failure.complete(e);
+                throw e;
+            }
+        });
+        write(scorer, "1,2,");
+        scorer.close();
+
+        assertInstanceOf(InterruptedIOException.class, failure.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void bufferedScoresAllWrittenBytes() throws IOException {
+        try (SubmissionScorer scorer = SubmissionScorer.buffered(4, content -> content.remaining())) {
+            write(scorer, "1,2,3,4,5");
+            assertEquals(9, scorer.finish());
+        }
+    }
+
+    @Test
+    void spooledScoresTheMappedFileAndDeletesItOnClose() throws IOException {
+        UploadSpooler.SpooledUpload upload = new UploadSpooler(spoolDir, 1).create();
+        try (SubmissionScorer scorer = SubmissionScorer.spooled(upload, content -> content.remaining())) {
+            write(scorer, "1,2,3,4,5");
+            write(scorer, ",6");
+            assertEquals(11, scorer.finish());
+        }
+        assertFalse(Files.exists(upload.getPath()));
+    }
+
+    private static void write(SubmissionScorer scorer, String content) throws IOException {
+        scorer.write(content.getBytes(StandardCharsets.US_ASCII));
+    }
+}
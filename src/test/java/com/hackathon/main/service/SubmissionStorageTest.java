@@ -0,0 +1,103 @@
+package com.hackathon.main.service;
+
+import com.hackathon.main.model.StorageBackend;
+import com.hackathon.main.scoring.Compression;
+import com.hackathon.main.scoring.NumericParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * A submission that fails to parse while it is streamed into GridFS must leave nothing stored and
+ * surface the parse error, whether parsing fails during the upload or only at its end.
+ */
+@ExtendWith(MockitoExtension.class)
+class SubmissionStorageTest {
+
+    @TempDir
+    static Path blobs;
+
+    private final EmbeddedMongo mongo = new EmbeddedMongo();
+
+    @Mock
+    private ScoringService scoringService;
+
+    @Mock
+    private SubmissionIndex submissionIndex;
+
+    @Spy
+    private FileStorageService fileStorageService = fileStorageService(mongo);
+
+    @InjectMocks
+    private SolutionService solutionService;
+
+    @AfterEach
+    void closeMongo() {
+        mongo.close();
+    }
+
+    @Test
+    void parseFailureDuringTheUploadAbortsTheGridFsFile() throws Exception {
+        // not a JSON array, which the parser rejects on the first chunk
+        byte[] content = "1,2,3,4,5,6,7,8,".repeat(256 * 1024).getBytes(StandardCharsets.US_ASCII);
+        scoreAs(NumericParser.JSON);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> solutionService.submitSolution("user", "task", file(content, NumericParser.JSON)));
+
+        assertEquals("Invalid JSON array format", e.getMessage());
+        assertNothingStored();
+    }
+
+    @Test
+    void parseFailureAtTheEndDeletesTheGridFsFile() throws Exception {
+        byte[] content = "1,2,3,x".getBytes(StandardCharsets.US_ASCII);
+        scoreAs(NumericParser.CSV);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> solutionService.submitSolution("user", "task", file(content, NumericParser.CSV)));
+
+        assertEquals("Failed to parse CSV array", e.getMessage());
+        assertNothingStored();
+    }
+
+    private void scoreAs(String type) throws Exception {
+        when(scoringService.startScoring(eq("task"), any())).thenAnswer(invocation ->
+                SubmissionScorer.streaming(in -> NumericParser.parse(in, type).length));
+    }
+
+    private void assertNothingStored() {
+        assertEquals(0, mongo.mongoTemplate().getCollection("fs.files").countDocuments());
+        assertEquals(0, mongo.mongoTemplate().getCollection("fs.chunks").countDocuments());
+    }
+
+    private static MockMultipartFile file(byte[] content, String type) {
+        return new MockMultipartFile("file", "solution", type, content);
+    }
+
+    private static FileStorageService fileStorageService(EmbeddedMongo mongo) {
+        StorageCompression compression = new StorageCompression(null, mongo.mongoTemplate(), Compression.ZSTD, 0, false, 65536);
+        FileStorageService service = new FileStorageService(
+                mongo.gridFsTemplate(), new LocalBlobStore(blobs, Duration.ZERO), mongo.mongoTemplate(), compression);
+        ReflectionTestUtils.setField(service, "backend", StorageBackend.GRIDFS);
+        ReflectionTestUtils.setField(service, "gridFsBucket", "fs");
+        return service;
+    }
+}